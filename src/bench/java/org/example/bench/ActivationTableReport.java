@@ -0,0 +1,126 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.activation.IActivationFunction;
+import org.example.activation.kernel.ActivationKernels;
+import org.example.activation.kernel.ActivationTable;
+import org.example.data.MLDataSet;
+import org.example.model.Precision;
+import org.example.network.InferenceSession;
+import org.example.network.Network;
+
+import java.util.SplittableRandom;
+
+/*
+ * ActivationTableReport - это отчет о точности и скорости таблиц функций активации (ActivationTable)
+ * по сравнению с точными реализациями IActivationFunction.
+ *
+ * Функции: Для SIGMOID, TANH и SWISH и каждого разрешения из RESOLUTIONS печатаются объем таблицы,
+ * гарантированная граница ошибки (getMaxError), наибольшая ошибка на SAMPLES случайных аргументах из [-SPAN, SPAN]
+ * и время apply на массиве из ARRAY элементов для точной функции (ядра ActivationKernels) и для таблицы.
+ *
+ * Сеть: Для сети inputSize x hiddenSize x outputSize с начальными весами (train на 0 эпох) печатаются время прогноза строки
+ * при пакетах по BATCH строк в DOUBLE и FLOAT без таблиц и с таблицами по умолчанию,
+ * а также наибольшее отличие выходов снимка с таблицами от снимка без таблиц.
+ *
+ * Аргументы (все необязательные): inputSize hiddenSize outputSize samples.
+ * */
+public class ActivationTableReport {
+
+    private static final ActivationFunction[] FUNCTIONS = {
+            ActivationFunction.SIGMOID, ActivationFunction.TANH, ActivationFunction.SWISH};
+    private static final int[] RESOLUTIONS = {16, 64, 256};
+    private static final int SAMPLES = 4_000_000;
+    private static final double SPAN = 40.0;
+    private static final int ARRAY = 4096;
+    private static final int BATCH = 64;
+
+    public static void main(String[] args) {
+        int inputSize = arg(args, 0, 64);
+        int hiddenSize = arg(args, 1, 256);
+        int outputSize = arg(args, 2, 10);
+        int samples = arg(args, 3, 512);
+
+        System.out.println("Activation kernels: " + ActivationKernels.get().getName());
+        System.out.printf("%-8s %10s %10s %12s %12s %12s %12s%n",
+                "function", "intervals", "bytes", "bound", "max err", "exact ns/el", "table ns/el");
+        for (ActivationFunction function : FUNCTIONS) {
+            IActivationFunction exact = BenchmarkData.activation(function);
+            double exactNanos = nanosPerElement(exact);
+            for (int resolution : RESOLUTIONS) {
+                ActivationTable table = ActivationTable.of(function, exact, resolution);
+                System.out.printf("%-8s %10d %10d %12.3e %12.3e %12.2f %12.2f%n", function, resolution,
+                        table.getTableBytes(), table.getMaxError(), maxError(exact, table),
+                        exactNanos, nanosPerElement(table));
+            }
+        }
+
+        MLDataSet set = BenchmarkData.syntheticSet(samples, inputSize, outputSize);
+        System.out.printf("%nNetwork %dx%dx%d, %d samples, tables of %d intervals per unit%n",
+                inputSize, hiddenSize, outputSize, samples, ActivationTable.DEFAULT_INTERVALS_PER_UNIT);
+        System.out.printf("%-8s %-9s %12s %12s %14s%n", "function", "precision", "exact us/row", "table us/row",
+                "max abs diff");
+        for (ActivationFunction function : FUNCTIONS) {
+            Network network = new Network(inputSize, hiddenSize, outputSize);
+            network.setActivationFunction(function);
+            network.setSeed(42);
+            network.train(set, 0);
+            for (Precision precision : new Precision[]{Precision.DOUBLE, Precision.FLOAT}) {
+                network.setActivationTables(0);
+                InferenceSession exact = network.newInferenceSession(precision);
+                network.setActivationTables(ActivationTable.DEFAULT_INTERVALS_PER_UNIT);
+                InferenceSession tabled = network.newInferenceSession(precision);
+                System.out.printf("%-8s %-9s %12.2f %12.2f %14.3e%n", function, precision,
+                        BenchmarkData.microsPerRow(exact, set, BATCH), BenchmarkData.microsPerRow(tabled, set, BATCH),
+                        maxDifference(exact, tabled, set));
+            }
+        }
+    }
+
+    private static double maxError(IActivationFunction exact, ActivationTable table) {
+        SplittableRandom random = new SplittableRandom(1);
+        double max = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = random.nextDouble(-SPAN, SPAN);
+            max = Math.max(max, Math.abs(table.output(x) - exact.output(x)));
+        }
+        return max;
+    }
+
+    // nanosPerElement: Этот метод измеряет время apply на одном элементе (аргументы в [-8, 8], после прогрева).
+    private static double nanosPerElement(IActivationFunction function) {
+        SplittableRandom random = new SplittableRandom(2);
+        double[] in = new double[ARRAY];
+        double[] out = new double[ARRAY];
+        for (int i = 0; i < ARRAY; i++) {
+            in[i] = random.nextDouble(-8.0, 8.0);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            function.apply(in, out, ARRAY);
+        }
+        int iterations = 20_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            function.apply(in, out, ARRAY);
+        }
+        return (System.nanoTime() - start) / (double) iterations / ARRAY;
+    }
+
+    private static double maxDifference(InferenceSession expected, InferenceSession actual, MLDataSet set) {
+        double[] a = new double[expected.getOutputSize()];
+        double[] b = new double[actual.getOutputSize()];
+        double max = 0;
+        for (double[] row : set.getInputs()) {
+            expected.predict(row, a);
+            actual.predict(row, b);
+            for (int j = 0; j < a.length; j++) {
+                max = Math.max(max, Math.abs(a[j] - b[j]));
+            }
+        }
+        return max;
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.activation.IActivationFunction;
+import org.example.activation.iml.LeakyReLU;
+import org.example.activation.iml.Sigmoid;
+import org.example.activation.iml.Swish;
+import org.example.activation.iml.TanH;
+import org.example.data.MLDataSet;
+import org.example.network.InferenceSession;
+
+import java.util.Random;
+
+/*
+ * BenchmarkData - это общие данные для бенчмарков и отчетов: синтетический набор данных с фиксированным seed,
+ * разбор размеров сети из строки вида "784x512x10", соответствие ActivationFunction и ее реализации,
+ * а также измерение скорости снимка и argmax для отчетов о точности.
+ * */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    //syntheticSet: Этот метод создает набор данных из случайных входов в [0, 1) и one-hot целевых значений.
+    // Seed фиксирован, поэтому все запуски измеряют одни и те же данные.
+    static MLDataSet syntheticSet(int samples, int inputSize, int outputSize) {
+        Random random = new Random(42);
+        double[][] inputs = new double[samples][inputSize];
+        double[][] targets = new double[samples][outputSize];
+        for (int i = 0; i < samples; i++) {
+            for (int k = 0; k < inputSize; k++) {
+                inputs[i][k] = random.nextDouble();
+            }
+            targets[i][random.nextInt(outputSize)] = 1.0;
+        }
+        return new MLDataSet(inputs, targets);
+    }
+
+    //teacherSet: Этот метод создает набор данных, который можно выучить: входы случайны в [0, 1),
+    // а класс примера - argmax случайного линейного "учителя" от центрированных входов (x - 0.5).
+    // Учитель зависит только от seed учителя, поэтому обучающая и отложенная выборки с разными seed данных
+    // описывают одну и ту же задачу.
+    static MLDataSet teacherSet(int samples, int inputSize, int outputSize, long dataSeed) {
+        Random teacherRandom = new Random(7);
+        double[][] teacher = new double[outputSize][inputSize];
+        for (double[] row : teacher) {
+            for (int k = 0; k < inputSize; k++) {
+                row[k] = teacherRandom.nextGaussian();
+            }
+        }
+        Random random = new Random(dataSeed);
+        double[][] inputs = new double[samples][inputSize];
+        double[][] targets = new double[samples][outputSize];
+        double[] scores = new double[outputSize];
+        for (int i = 0; i < samples; i++) {
+            for (int k = 0; k < inputSize; k++) {
+                inputs[i][k] = random.nextDouble();
+            }
+            for (int j = 0; j < outputSize; j++) {
+                double score = 0;
+                for (int k = 0; k < inputSize; k++) {
+                    score += teacher[j][k] * (inputs[i][k] - 0.5);
+                }
+                scores[j] = score;
+            }
+            targets[i][argmax(scores)] = 1.0;
+        }
+        return new MLDataSet(inputs, targets);
+    }
+
+    //layerSizes(String layers): Этот метод разбирает размеры слоев вида "inputSize x hiddenSize x outputSize".
+    static int[] layerSizes(String layers) {
+        String[] parts = layers.split("x");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected inputSize x hiddenSize x outputSize, got " + layers);
+        }
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+    }
+
+    static IActivationFunction activation(ActivationFunction activationFunction) {
+        return switch (activationFunction) {
+            case SIGMOID -> new Sigmoid();
+            case TANH -> new TanH();
+            case SWISH -> new Swish();
+            case LEAKY_RELU -> new LeakyReLU();
+        };
+    }
+
+    //microsPerRow: Этот метод измеряет время прогноза одной строки при пакетах по batch строк (после прогрева).
+    static double microsPerRow(InferenceSession session, MLDataSet set, int batch) {
+        int inputSize = session.getInputSize();
+        double[][] rows = set.getInputs();
+        double[] inputs = new double[batch * inputSize];
+        for (int b = 0; b < batch; b++) {
+            System.arraycopy(rows[b % rows.length], 0, inputs, b * inputSize, inputSize);
+        }
+        double[] outputs = new double[batch * session.getOutputSize()];
+        InferenceSession.Scratch scratch = session.newScratch(batch);
+        for (int i = 0; i < 200; i++) {
+            session.predict(inputs, outputs, batch, scratch);
+        }
+        int iterations = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            session.predict(inputs, outputs, batch, scratch);
+        }
+        return (System.nanoTime() - start) / 1e3 / iterations / batch;
+    }
+
+    //margin: Этот метод возвращает разность двух наибольших значений.
+    static double margin(double[] values) {
+        double first = Double.NEGATIVE_INFINITY;
+        double second = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            if (value > first) {
+                second = first;
+                first = value;
+            } else if (value > second) {
+                second = value;
+            }
+        }
+        return first - second;
+    }
+
+    static int argmax(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
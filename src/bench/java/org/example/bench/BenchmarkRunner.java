@@ -0,0 +1,32 @@
+package org.example.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * BenchmarkRunner - это точка запуска JMH-бенчмарков проекта.
+ * Результаты записываются в JSON (формат JMH), чтобы их можно было сравнивать между версиями,
+ * а GCProfiler добавляет к каждому бенчмарку gc.alloc.rate и gc.alloc.rate.norm (байт на операцию).
+ * Форкам JMH передается модуль jdk.incubator.vector, чтобы измерялись векторные ядра функций активации.
+ *
+ * Аргументы (все необязательные): регулярное выражение имен бенчмарков и путь к файлу результатов.
+ * */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        String result = args.length > 1 ? args[1] : "target/jmh-result.json";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .jvmArgsAppend("--add-modules", "jdk.incubator.vector")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.activation.ActivationFunction;
+import org.example.network.InferenceSession;
+import org.example.network.ModelGraph;
+import org.example.network.Network;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/*
+ * ExportReport - это отчет о переносимом графе сети (Network.exportGraph) и сгенерированном классе прогнозов
+ * (Network.exportInferenceSource).
+ *
+ * Сеть inputSize x hidden1 (SWISH) x hidden2 (TANH) x outputSize (SIGMOID) обучается на BenchmarkData.teacherSet.
+ *
+ * Граф: Граф записывается во временный каталог и выполняется небольшим интерпретатором этого отчета (GraphRunner),
+ * который читает только JSON и знает операторы Gemm, Sigmoid, Tanh, LeakyRelu и Mul - так, как граф выполнял бы
+ * другой сервис. Печатаются размер файла и наибольшее отличие выходов от Network.predict.
+ *
+ * Класс: Исходный код класса компилируется компилятором JDK (javax.tools) и загружается отдельным загрузчиком классов.
+ * Печатаются наибольшее отличие его выходов от Network.predict и время прогноза одного примера для Network.predict,
+ * снимка InferenceSession (Precision.DOUBLE, буферы потока) и сгенерированного класса (лучшее из PASSES проходов).
+ *
+ * Аргументы (все необязательные): inputSize hidden1 hidden2 outputSize.
+ * */
+public class ExportReport {
+
+    private static final int SAMPLES = 4000;
+    private static final int TEST_ROWS = 1000;
+    private static final int ITERATIONS = 200;
+    private static final int PASSES = 5;
+    private static final String CLASS_NAME = "com.example.generated.ScoringModel";
+
+    public static void main(String[] args) throws Exception {
+        int inputSize = arg(args, 0, 16);
+        int hidden1 = arg(args, 1, 64);
+        int hidden2 = arg(args, 2, 32);
+        int outputSize = arg(args, 3, 4);
+
+        Network network = Network.builder(inputSize)
+                .layer(hidden1, ActivationFunction.SWISH)
+                .layer(hidden2, ActivationFunction.TANH)
+                .layer(outputSize, ActivationFunction.SIGMOID)
+                .learningRate(0.01)
+                .seed(42)
+                .build();
+        network.train(BenchmarkData.teacherSet(SAMPLES, inputSize, outputSize, 1), 5, 32);
+        double[][] test = BenchmarkData.teacherSet(TEST_ROWS, inputSize, outputSize, 2).getInputs();
+        double[][] expected = new double[test.length][];
+        for (int i = 0; i < test.length; i++) {
+            expected[i] = network.predict(test[i]);
+        }
+        System.out.printf("Network %dx%dx%dx%d (swish, tanh, sigmoid)%n", inputSize, hidden1, hidden2, outputSize);
+
+        Path directory = Files.createTempDirectory("export-report");
+        Path graphFile = directory.resolve("model.json");
+        network.exportGraph(graphFile);
+        GraphRunner graph = new GraphRunner(new ObjectMapper().readTree(graphFile.toFile()));
+        double graphDifference = 0;
+        for (int i = 0; i < test.length; i++) {
+            graphDifference = Math.max(graphDifference, maxDifference(expected[i], graph.run(test[i])));
+        }
+        System.out.printf("Graph: %d bytes, max abs difference from Network.predict %.3e%n",
+                Files.size(graphFile), graphDifference);
+
+        Path sourceFile = network.exportInferenceSource(directory.resolve("src"), CLASS_NAME);
+        BiConsumer<double[], double[]> generated = compile(sourceFile, directory.resolve("classes"));
+        double generatedDifference = 0;
+        for (int i = 0; i < test.length; i++) {
+            double[] outputs = new double[outputSize];
+            generated.accept(test[i], outputs);
+            generatedDifference = Math.max(generatedDifference, maxDifference(expected[i], outputs));
+        }
+        System.out.printf("Generated class: %d bytes of source, max abs difference from Network.predict %.3e%n",
+                Files.size(sourceFile), generatedDifference);
+
+        InferenceSession session = network.newInferenceSession();
+        double[] outputs = new double[outputSize];
+        double predictNanos = Double.MAX_VALUE;
+        double sessionNanos = Double.MAX_VALUE;
+        double generatedNanos = Double.MAX_VALUE;
+        double checksum = 0;
+        // Первые проходы прогревают JIT; печатается лучшее время каждого варианта.
+        for (int pass = 0; pass < PASSES; pass++) {
+            long start = System.nanoTime();
+            for (int n = 0; n < ITERATIONS; n++) {
+                for (double[] row : test) {
+                    checksum += network.predict(row)[0];
+                }
+            }
+            predictNanos = Math.min(predictNanos, nanosPerRow(start));
+            start = System.nanoTime();
+            for (int n = 0; n < ITERATIONS; n++) {
+                for (double[] row : test) {
+                    session.predict(row, outputs);
+                    checksum += outputs[0];
+                }
+            }
+            sessionNanos = Math.min(sessionNanos, nanosPerRow(start));
+            start = System.nanoTime();
+            for (int n = 0; n < ITERATIONS; n++) {
+                for (double[] row : test) {
+                    generated.accept(row, outputs);
+                    checksum += outputs[0];
+                }
+            }
+            generatedNanos = Math.min(generatedNanos, nanosPerRow(start));
+        }
+        System.out.printf("%-18s %10s%n", "single sample", "ns/row");
+        System.out.printf("%-18s %10.1f%n", "Network.predict", predictNanos);
+        System.out.printf("%-18s %10.1f%n", "InferenceSession", sessionNanos);
+        System.out.printf("%-18s %10.1f%n", "generated class", generatedNanos);
+        System.out.printf("(checksum %.3f)%n", checksum);
+    }
+
+    //compile: Этот метод компилирует сгенерированный класс и возвращает его экземпляр.
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<double[], double[]> compile(Path sourceFile, Path classes) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("A JDK is required to compile the generated class");
+        }
+        Files.createDirectories(classes);
+        if (compiler.run(null, null, null, "-d", classes.toString(), sourceFile.toString()) != 0) {
+            throw new IllegalStateException("Generated class does not compile: " + sourceFile);
+        }
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, ExportReport.class.getClassLoader());
+        return (BiConsumer<double[], double[]>) loader.loadClass(CLASS_NAME).getConstructor().newInstance();
+    }
+
+    private static double nanosPerRow(long start) {
+        return (System.nanoTime() - start) / (double) ITERATIONS / TEST_ROWS;
+    }
+
+    private static double maxDifference(double[] expected, double[] actual) {
+        double difference = 0;
+        for (int j = 0; j < expected.length; j++) {
+            difference = Math.max(difference, Math.abs(expected[j] - actual[j]));
+        }
+        return difference;
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    //GraphRunner: Это интерпретатор графа ModelGraph для одного примера, написанный только по описанию формата.
+    private static final class GraphRunner {
+        private final JsonNode nodes;
+        private final Map<String, double[]> tensors = new HashMap<>();
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        private GraphRunner(JsonNode graph) throws IOException {
+            if (!ModelGraph.FORMAT.equals(graph.path("format").asText())) {
+                throw new IOException("Not a graph: " + graph.path("format"));
+            }
+            for (JsonNode tensor : graph.path("initializers")) {
+                ByteBuffer bytes = ByteBuffer.wrap(Base64.getDecoder().decode(tensor.path("rawData").asText()))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                double[] values = new double[bytes.remaining() / Double.BYTES];
+                bytes.asDoubleBuffer().get(values);
+                JsonNode shape = tensor.path("shape");
+                tensors.put(tensor.path("name").asText(), values);
+                columns.put(tensor.path("name").asText(), shape.get(shape.size() - 1).asInt());
+            }
+            this.nodes = graph.path("nodes");
+        }
+
+        private double[] run(double[] inputs) {
+            Map<String, double[]> values = new HashMap<>(tensors);
+            values.put(ModelGraph.INPUT, inputs);
+            for (JsonNode node : nodes) {
+                JsonNode in = node.path("inputs");
+                double[] x = values.get(in.get(0).asText());
+                double[] y;
+                switch (node.path("op").asText()) {
+                    case "Gemm" -> {
+                        double[] w = values.get(in.get(1).asText());
+                        double[] b = values.get(in.get(2).asText());
+                        int k = columns.get(in.get(1).asText());
+                        y = new double[b.length];
+                        for (int j = 0; j < y.length; j++) {
+                            double sum = 0.0;
+                            for (int p = 0; p < k; p++) {
+                                sum += w[j * k + p] * x[p];
+                            }
+                            y[j] = sum + b[j];
+                        }
+                    }
+                    case "Sigmoid", "Tanh", "LeakyRelu" -> {
+                        String op = node.path("op").asText();
+                        double alpha = node.path("attributes").path("alpha").asDouble();
+                        y = new double[x.length];
+                        for (int j = 0; j < y.length; j++) {
+                            y[j] = switch (op) {
+                                case "Sigmoid" -> 1 / (1 + Math.exp(-x[j]));
+                                case "Tanh" -> Math.tanh(x[j]);
+                                default -> x[j] >= 0 ? x[j] : x[j] * alpha;
+                            };
+                        }
+                    }
+                    case "Mul" -> {
+                        double[] other = values.get(in.get(1).asText());
+                        y = new double[x.length];
+                        for (int j = 0; j < y.length; j++) {
+                            y[j] = x[j] * other[j];
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unsupported operator " + node.path("op").asText());
+                }
+                values.put(node.path("outputs").get(0).asText(), y);
+            }
+            return values.get(ModelGraph.OUTPUT);
+        }
+    }
+}
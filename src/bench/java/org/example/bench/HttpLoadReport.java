@@ -0,0 +1,210 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.data.MLDataSet;
+import org.example.network.Network;
+import org.example.server.MultiLayerNetworkView;
+import org.example.server.NetworkHttpServer;
+import org.example.server.PayloadCodec;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * HttpLoadReport - это нагрузочный тест POST /predict через локальное (loopback) соединение.
+ *
+ * Для каждого сервера (NetworkHttpServer с ограничением maxInFlight и MultiLayerNetworkView на NanoHTTPD)
+ * и каждого числа клиентов из CLIENTS клиенты в отдельных потоках без пауз отправляют запросы по keep-alive
+ * соединениям. После секунды прогрева в течение seconds секунд записывается время каждого ответа.
+ * Печатаются число ответов в секунду, число ответов 200 и 503, медиана (p50) и 99-й процентиль (p99) задержки
+ * успешных ответов и p99 задержки отказов 503.
+ *
+ * Сеть 128x256x10, в запросе одна строка JSON, окно микропакетирования 1 мс.
+ * Для сервера JDK включается TCP_NODELAY (NetworkHttpServer.enableTcpNoDelay), как рекомендуется в его описании.
+ * Аргументы (все необязательные): maxInFlight seconds.
+ * */
+public class HttpLoadReport {
+
+    private static final int INPUT_SIZE = 128;
+    private static final int HIDDEN_SIZE = 256;
+    private static final int OUTPUT_SIZE = 10;
+    private static final int[] CLIENTS = {1, 4, 16, 64, 256};
+    private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        int maxInFlight = arg(args, 0, 32);
+        int seconds = arg(args, 1, 3);
+        NetworkHttpServer.enableTcpNoDelay();
+
+        MLDataSet set = BenchmarkData.syntheticSet(64, INPUT_SIZE, OUTPUT_SIZE);
+        Network network = new Network(INPUT_SIZE, HIDDEN_SIZE, OUTPUT_SIZE);
+        network.setActivationFunction(ActivationFunction.SIGMOID);
+        network.setSeed(42);
+        network.train(set, 1, 32);
+        byte[] body = body(set.getInputs()[0]);
+
+        System.out.printf("Network %dx%dx%d, 1 row per request, %d s per level, %d cores%n",
+                INPUT_SIZE, HIDDEN_SIZE, OUTPUT_SIZE, seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-22s %8s %10s %9s %9s %10s %10s %12s%n",
+                "server", "clients", "req/s", "200", "503", "p50 ms", "p99 ms", "503 p99 ms");
+
+        int port = freePort();
+        NetworkHttpServer jdk = new NetworkHttpServer(port, network, null,
+                MultiLayerNetworkView.DEFAULT_BATCH_WINDOW_MICROS, MultiLayerNetworkView.DEFAULT_MAX_BATCH_SIZE, 0,
+                maxInFlight);
+        jdk.start();
+        try {
+            run("jdk maxInFlight=" + maxInFlight, port, body, seconds);
+        } finally {
+            jdk.stop();
+        }
+
+        port = freePort();
+        MultiLayerNetworkView nano = new MultiLayerNetworkView(port, network);
+        nano.start(MultiLayerNetworkView.SOCKET_READ_TIMEOUT, true);
+        try {
+            run("nanohttpd", port, body, seconds);
+        } finally {
+            nano.stop();
+        }
+    }
+
+    private static void run(String name, int port, byte[] body, int seconds) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/predict"))
+                .header("Content-Type", PayloadCodec.MIME_JSON)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        for (int clients : CLIENTS) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            Client[] workers = new Client[clients];
+            long measureFrom = System.nanoTime() + WARMUP_NANOS;
+            long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+            CountDownLatch done = new CountDownLatch(clients);
+            for (int i = 0; i < clients; i++) {
+                workers[i] = new Client(client, request, measureFrom, measureTo, done);
+                Thread thread = new Thread(workers[i], "load-client-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+
+            LongList ok = new LongList();
+            LongList rejected = new LongList();
+            long errors = 0;
+            for (Client worker : workers) {
+                ok.addAll(worker.ok);
+                rejected.addAll(worker.rejected);
+                errors += worker.errors;
+            }
+            System.out.printf("%-22s %8d %10.0f %9d %9d %10.2f %10.2f %12s%s%n", name, clients,
+                    (ok.size + rejected.size) / (double) seconds, ok.size, rejected.size,
+                    ok.percentile(0.50) / 1e6, ok.percentile(0.99) / 1e6,
+                    rejected.size > 0 ? String.format("%.2f", rejected.percentile(0.99) / 1e6) : "-",
+                    errors > 0 ? "  (" + errors + " failed)" : "");
+        }
+    }
+
+    //Client: Это один клиент нагрузочного теста. Время ответов до measureFrom не записывается (прогрев).
+    private static final class Client implements Runnable {
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final long measureFrom;
+        private final long measureTo;
+        private final CountDownLatch done;
+        private final LongList ok = new LongList();
+        private final LongList rejected = new LongList();
+        private long errors;
+
+        private Client(HttpClient client, HttpRequest request, long measureFrom, long measureTo, CountDownLatch done) {
+            this.client = client;
+            this.request = request;
+            this.measureFrom = measureFrom;
+            this.measureTo = measureTo;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long start;
+                while ((start = System.nanoTime()) < measureTo) {
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    if (start < measureFrom) {
+                        continue;
+                    }
+                    long nanos = System.nanoTime() - start;
+                    if (status == 200) {
+                        ok.add(nanos);
+                    } else if (status == 503) {
+                        rejected.add(nanos);
+                    } else {
+                        errors++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    //LongList: Это растущий массив задержек в наносекундах.
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void addAll(LongList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        private double percentile(double p) {
+            if (size == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted[Math.min(size - 1, (int) Math.ceil(p * size) - 1)];
+        }
+    }
+
+    private static byte[] body(double[] row) {
+        StringBuilder json = new StringBuilder("{\"inputs\": [[");
+        for (int k = 0; k < row.length; k++) {
+            json.append(k == 0 ? "" : ", ").append(row[k]);
+        }
+        return json.append("]]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.data.MLDataSet;
+import org.example.network.Network;
+import org.example.server.MultiLayerNetworkView;
+import org.example.server.PayloadCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * HttpPredictBenchmark - это JMH-бенчмарк обработки запроса POST /predict в MultiLayerNetworkView
+ * через локальное (loopback) соединение, включая разбор тела, микропакетирование и запись ответа.
+ *
+ * Параметры: rows - число строк входных данных в одном запросе, contentType - JSON или двоичный формат f64,
+ * batchWindowMicros - окно микропакетирования сервера (0 - без ожидания других запросов).
+ * Сеть средняя (128x256x10), тело запроса собирается один раз до измерений.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpPredictBenchmark {
+
+    private static final int INPUT_SIZE = 128;
+    private static final int HIDDEN_SIZE = 256;
+    private static final int OUTPUT_SIZE = 10;
+
+    @Param({"1", "16"})
+    public int rows;
+
+    @Param({PayloadCodec.MIME_JSON, PayloadCodec.MIME_BINARY_F64})
+    public String contentType;
+
+    @Param({"0", "1000"})
+    public long batchWindowMicros;
+
+    private MultiLayerNetworkView server;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MLDataSet set = BenchmarkData.syntheticSet(Math.max(rows, 64), INPUT_SIZE, OUTPUT_SIZE);
+        Network network = new Network(INPUT_SIZE, HIDDEN_SIZE, OUTPUT_SIZE);
+        network.setActivationFunction(ActivationFunction.SIGMOID);
+        network.setSeed(42);
+        network.train(set, 1, 32);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new MultiLayerNetworkView(port, network, batchWindowMicros, MultiLayerNetworkView.DEFAULT_MAX_BATCH_SIZE);
+        server.start(MultiLayerNetworkView.SOCKET_READ_TIMEOUT, true);
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/predict"))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body(set.getInputs())))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public byte[] predict() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private byte[] body(double[][] inputs) {
+        if (PayloadCodec.isBinary(contentType)) {
+            ByteBuffer buffer = ByteBuffer.allocate(12 + rows * INPUT_SIZE * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(rows).putInt(INPUT_SIZE).putInt(0);
+            for (int i = 0; i < rows; i++) {
+                for (double value : inputs[i]) {
+                    buffer.putDouble(value);
+                }
+            }
+            return buffer.array();
+        }
+        StringBuilder json = new StringBuilder("{\"inputs\": [");
+        for (int i = 0; i < rows; i++) {
+            json.append(i == 0 ? "[" : ", [");
+            for (int k = 0; k < INPUT_SIZE; k++) {
+                json.append(k == 0 ? "" : ", ").append(inputs[i][k]);
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
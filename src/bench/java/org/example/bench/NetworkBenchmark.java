@@ -0,0 +1,102 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.activation.IActivationFunction;
+import org.example.data.MLDataSet;
+import org.example.model.DenseLayer;
+import org.example.model.WeightInit;
+import org.example.network.Network;
+import org.example.optimizer.MomentumSgd;
+import org.example.optimizer.Optimizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * NetworkBenchmark - это JMH-бенчмарки вычислений сети для малой, средней и большой сети и каждой функции активации.
+ *
+ * predict: Один прогноз через Network.predict на обученной сети.
+ * forwardBackward: Один шаг обучения на одном примере: прямой проход, градиенты и обновление весов и смещений обоих слоев.
+ * trainEpoch: Одна эпоха Network.train мини-пакетами по TRAIN_BATCH_SIZE примеров на TRAIN_SAMPLES примерах,
+ * включая инициализацию слоев.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBenchmark {
+
+    static final int TRAIN_SAMPLES = 512;
+    static final int TRAIN_BATCH_SIZE = 32;
+    private static final Optimizer OPTIMIZER = new MomentumSgd(0.5);
+
+    @Param({"16x32x4", "128x256x10", "784x512x10"})
+    public String layers;
+
+    @Param({"SIGMOID", "TANH", "SWISH", "LEAKY_RELU"})
+    public ActivationFunction activation;
+
+    private MLDataSet set;
+    private Network network;
+    private DenseLayer hiddenLayer;
+    private DenseLayer outputLayer;
+    private double[] input;
+    private double[] target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] sizes = BenchmarkData.layerSizes(layers);
+        set = BenchmarkData.syntheticSet(TRAIN_SAMPLES, sizes[0], sizes[2]);
+        input = set.getInputs()[0];
+        target = set.getTargets()[0];
+
+        network = new Network(sizes[0], sizes[1], sizes[2]);
+        network.setActivationFunction(activation);
+        network.setSeed(42);
+        network.train(set, 1, TRAIN_BATCH_SIZE);
+
+        IActivationFunction function = BenchmarkData.activation(activation);
+        SplittableRandom random = new SplittableRandom(42);
+        hiddenLayer = new DenseLayer(sizes[0], sizes[1], function, WeightInit.UNIFORM, random);
+        outputLayer = new DenseLayer(sizes[1], sizes[2], function, WeightInit.UNIFORM, random);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double[] predict() {
+        return network.predict(input);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void forwardBackward(Blackhole blackhole) {
+        hiddenLayer.forward(input);
+        outputLayer.forward(hiddenLayer.getOutputs());
+        outputLayer.calculateGradients(target);
+        hiddenLayer.calculateGradients(outputLayer);
+        hiddenLayer.updateWeights(input, OPTIMIZER, 0.01);
+        outputLayer.updateWeights(hiddenLayer.getOutputs(), OPTIMIZER, 0.01);
+        blackhole.consume(outputLayer.getOutputs());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Network trainEpoch() {
+        network.train(set, 1, TRAIN_BATCH_SIZE);
+        return network;
+    }
+}
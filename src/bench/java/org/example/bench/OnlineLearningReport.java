@@ -0,0 +1,107 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.data.MLData;
+import org.example.data.MLDataSet;
+import org.example.network.Network;
+
+import java.util.List;
+
+/*
+ * OnlineLearningReport - это отчет о дообучении сети на потоке данных (Network.partialFit).
+ *
+ * Поток: Примеры набора BenchmarkData.teacherSet поступают порциями по chunk примеров, каждая порция
+ * один раз передается в partialFit. Через каждые REPORT_EVERY порций печатаются средняя ошибка partialFit
+ * (ошибка прогноза до обновления, то есть на еще не виденных примерах) и точность на отложенной выборке той же задачи,
+ * а также занятая память кучи после сборки мусора: она не должна расти с числом порций.
+ *
+ * Стоимость вызова: Для той же порции сравнивается время partialFit и время train(порция, 1 эпоха, chunk),
+ * который каждый раз заново инициализирует слои и забывает все выученное.
+ *
+ * Аргументы (все необязательные): inputSize hiddenSize outputSize samples chunk.
+ * */
+public class OnlineLearningReport {
+
+    private static final int REPORT_EVERY = 100;
+    private static final int TIMED_CALLS = 200;
+
+    public static void main(String[] args) {
+        int inputSize = arg(args, 0, 32);
+        int hiddenSize = arg(args, 1, 64);
+        int outputSize = arg(args, 2, 4);
+        int samples = arg(args, 3, 64_000);
+        int chunk = arg(args, 4, 32);
+
+        List<MLData> stream = BenchmarkData.teacherSet(samples, inputSize, outputSize, 1).getData();
+        MLDataSet test = BenchmarkData.teacherSet(2000, inputSize, outputSize, 2);
+        Network network = network(inputSize, hiddenSize, outputSize);
+
+        System.out.printf("Network %dx%dx%d, stream of %d samples in chunks of %d%n",
+                inputSize, hiddenSize, outputSize, samples, chunk);
+        System.out.printf("%8s %10s %12s %12s %10s%n", "chunks", "samples", "stream loss", "test acc", "heap MB");
+        double loss = 0;
+        int chunks = 0;
+        for (int start = 0; start + chunk <= stream.size(); start += chunk) {
+            loss += network.partialFit(stream.subList(start, start + chunk).toArray(new MLData[0]));
+            if (++chunks % REPORT_EVERY == 0) {
+                System.out.printf("%8d %10d %12.5f %12.3f %10.1f%n", chunks, chunks * chunk, loss / REPORT_EVERY,
+                        accuracy(network, test), usedHeapMegabytes());
+                loss = 0;
+            }
+        }
+
+        MLData[] portion = stream.subList(0, chunk).toArray(new MLData[0]);
+        double[][] portionInputs = new double[chunk][];
+        double[][] portionTargets = new double[chunk][];
+        for (int i = 0; i < chunk; i++) {
+            portionInputs[i] = portion[i].getInputs();
+            portionTargets[i] = portion[i].getTargets();
+        }
+        MLDataSet portionSet = new MLDataSet(portionInputs, portionTargets);
+        Network retrained = network(inputSize, hiddenSize, outputSize);
+        for (int i = 0; i < TIMED_CALLS; i++) {
+            network.partialFit(portion);
+            retrained.train(portionSet, 1, chunk);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_CALLS; i++) {
+            network.partialFit(portion);
+        }
+        double partialFitMicros = (System.nanoTime() - start) / 1e3 / TIMED_CALLS;
+        start = System.nanoTime();
+        for (int i = 0; i < TIMED_CALLS; i++) {
+            retrained.train(portionSet, 1, chunk);
+        }
+        double trainMicros = (System.nanoTime() - start) / 1e3 / TIMED_CALLS;
+        System.out.printf("%nPer chunk of %d: partialFit %.1f us, train (reinitializes layers) %.1f us%n",
+                chunk, partialFitMicros, trainMicros);
+    }
+
+    private static Network network(int inputSize, int hiddenSize, int outputSize) {
+        Network network = new Network(inputSize, hiddenSize, outputSize);
+        network.setActivationFunction(ActivationFunction.SIGMOID);
+        network.setLearningRate(0.01);
+        network.setSeed(42);
+        return network;
+    }
+
+    private static double accuracy(Network network, MLDataSet test) {
+        int correct = 0;
+        for (int i = 0; i < test.getInputs().length; i++) {
+            if (BenchmarkData.argmax(network.predict(test.getInputs()[i])) == BenchmarkData.argmax(test.getTargets()[i])) {
+                correct++;
+            }
+        }
+        return correct / (double) test.getInputs().length;
+    }
+
+    private static double usedHeapMegabytes() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0);
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.data.MLDataSet;
+import org.example.network.Network;
+
+/*
+ * ParallelScalingReport - это отчет о масштабировании параллельного обучения.
+ * Он обучает одну и ту же сеть на синтетическом наборе данных с 1, 2, 4, ... потоками (до числа ядер)
+ * и печатает время эпохи, число примеров в секунду и ускорение относительно одного потока.
+ *
+ * Аргументы (все необязательные): inputSize hiddenSize outputSize samples batchSize epochs.
+ * */
+public class ParallelScalingReport {
+
+    public static void main(String[] args) {
+        int inputSize = arg(args, 0, 784);
+        int hiddenSize = arg(args, 1, 512);
+        int outputSize = arg(args, 2, 10);
+        int samples = arg(args, 3, 4096);
+        int batchSize = arg(args, 4, 256);
+        int epochs = arg(args, 5, 2);
+        MLDataSet set = BenchmarkData.syntheticSet(samples, inputSize, outputSize);
+
+        System.out.printf("Network %dx%dx%d, %d samples, batch %d, %d epochs, %d cores%n",
+                inputSize, hiddenSize, outputSize, samples, batchSize, epochs, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %12s %14s %8s%n", "threads", "ms/epoch", "samples/s", "speedup");
+
+        // Прогрев JIT, чтобы первая строка отчета не включала компиляцию.
+        train(set, inputSize, hiddenSize, outputSize, batchSize, 1, 1);
+
+        double baseline = 0;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            long start = System.nanoTime();
+            train(set, inputSize, hiddenSize, outputSize, batchSize, epochs, threads);
+            double msPerEpoch = (System.nanoTime() - start) / 1e6 / epochs;
+            if (threads == 1) {
+                baseline = msPerEpoch;
+            }
+            System.out.printf("%8d %12.1f %14.0f %8.2f%n", threads, msPerEpoch, samples / (msPerEpoch / 1000), baseline / msPerEpoch);
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static void train(MLDataSet set, int inputSize, int hiddenSize, int outputSize, int batchSize, int epochs, int threads) {
+        Network network = new Network(inputSize, hiddenSize, outputSize);
+        network.setActivationFunction(ActivationFunction.SIGMOID);
+        network.train(set, epochs, batchSize, threads);
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.data.MLDataSet;
+import org.example.model.Precision;
+import org.example.model.WeightInit;
+import org.example.network.InferenceSession;
+import org.example.network.Network;
+
+/*
+ * PrecisionReport - это отчет о точности и скорости прогнозов в одинарной точности (Precision.FLOAT)
+ * по сравнению с двойной (Precision.DOUBLE) для каждой функции активации.
+ * Сеть инициализируется случайными весами (train на 0 эпох: при исходной инициализации весов обучение с LEAKY_RELU
+ * и SWISH расходится, а для сравнения точности важны только величины весов и выходов), затем из нее создаются снимки обеих точностей,
+ * и для каждого примера сравниваются выходы сети и класс с наибольшим выходом (argmax).
+ * argmax сравнивается только для примеров, у которых в double два наибольших выхода различаются больше чем на ARGMAX_MARGIN:
+ * насыщенные выходы (например, несколько значений, почти равных 1.0) во float становятся равными, и их порядок не определен.
+ * Относительная ошибка считается только для выходов не меньше REL_ERROR_FLOOR по модулю: очень малые значения во float обнуляются.
+ *
+ * Аргументы (все необязательные): inputSize hiddenSize outputSize samples.
+ * */
+public class PrecisionReport {
+
+    private static final int BATCH = 64;
+    private static final double ARGMAX_MARGIN = 1e-6;
+    private static final double REL_ERROR_FLOOR = 1e-3;
+
+    public static void main(String[] args) {
+        int inputSize = arg(args, 0, 784);
+        int hiddenSize = arg(args, 1, 512);
+        int outputSize = arg(args, 2, 10);
+        int samples = arg(args, 3, 512);
+        MLDataSet set = BenchmarkData.syntheticSet(samples, inputSize, outputSize);
+
+        System.out.printf("Network %dx%dx%d, %d samples%n", inputSize, hiddenSize, outputSize, samples);
+        System.out.printf("%-11s %14s %14s %14s %12s %12s %12s%n",
+                "activation", "max abs err", "mean abs err", "max rel err", "argmax", "f64 us/row", "f32 us/row");
+        for (ActivationFunction activation : ActivationFunction.values()) {
+            Network network = new Network(inputSize, hiddenSize, outputSize);
+            network.setActivationFunction(activation);
+            network.setWeightInit(WeightInit.UNIFORM);
+            network.setSeed(42);
+            network.train(set, 0, 32);
+            InferenceSession doubleSession = network.newInferenceSession(Precision.DOUBLE);
+            InferenceSession floatSession = network.newInferenceSession(Precision.FLOAT);
+
+            double maxAbs = 0;
+            double sumAbs = 0;
+            double maxRel = 0;
+            int argmaxMatches = 0;
+            int argmaxRows = 0;
+            double[] expected = new double[outputSize];
+            double[] actual = new double[outputSize];
+            for (double[] input : set.getInputs()) {
+                doubleSession.predict(input, expected);
+                floatSession.predict(input, actual);
+                for (int j = 0; j < outputSize; j++) {
+                    double error = Math.abs(actual[j] - expected[j]);
+                    maxAbs = Math.max(maxAbs, error);
+                    sumAbs += error;
+                    if (Math.abs(expected[j]) >= REL_ERROR_FLOOR) {
+                        maxRel = Math.max(maxRel, error / Math.abs(expected[j]));
+                    }
+                }
+                if (BenchmarkData.margin(expected) > ARGMAX_MARGIN) {
+                    argmaxRows++;
+                    if (BenchmarkData.argmax(expected) == BenchmarkData.argmax(actual)) {
+                        argmaxMatches++;
+                    }
+                }
+            }
+            System.out.printf("%-11s %14.3e %14.3e %14.3e %12s %12.2f %12.2f%n", activation, maxAbs,
+                    sumAbs / ((double) samples * outputSize), maxRel, argmaxMatches + "/" + argmaxRows,
+                    BenchmarkData.microsPerRow(doubleSession, set, BATCH), BenchmarkData.microsPerRow(floatSession, set, BATCH));
+        }
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.data.MLDataSet;
+import org.example.model.Precision;
+import org.example.model.WeightInit;
+import org.example.network.InferenceSession;
+import org.example.network.Network;
+
+/*
+ * QuantizationReport - это отчет о потере точности квантованных снимков (Precision.INT8) на отложенной выборке.
+ * Сеть обучается на наборе BenchmarkData.teacherSet, затем на отдельной отложенной выборке той же задачи
+ * для снимков DOUBLE, FLOAT и INT8 считаются доля верно предсказанных классов (accuracy),
+ * совпадение класса с прогнозом DOUBLE, максимальная и средняя абсолютная ошибка выходов относительно DOUBLE,
+ * объем весов снимка (InferenceSession.getParameterBytes) и время прогноза строки при пакетах по BATCH строк.
+ *
+ * Размер сети по умолчанию небольшой, потому что при исходной инициализации весов (равномерно в [-2, 2])
+ * более широкие слои насыщаются и сеть почти не обучается. Обучение с SWISH и LEAKY_RELU при этой инициализации расходится,
+ * для них отчет печатает "training diverged". Скорость прогноза удобнее сравнивать на большой сети с epochs = 0.
+ *
+ * Аргументы (все необязательные): inputSize hiddenSize outputSize trainSamples testSamples epochs learningRate.
+ * */
+public class QuantizationReport {
+
+    private static final int BATCH = 64;
+    private static final Precision[] PRECISIONS = {Precision.DOUBLE, Precision.FLOAT, Precision.INT8};
+
+    public static void main(String[] args) {
+        int inputSize = arg(args, 0, 32);
+        int hiddenSize = arg(args, 1, 64);
+        int outputSize = arg(args, 2, 4);
+        int trainSamples = arg(args, 3, 4096);
+        int testSamples = arg(args, 4, 1024);
+        int epochs = arg(args, 5, 50);
+        double learningRate = args.length > 6 ? Double.parseDouble(args[6]) : 0.01;
+        MLDataSet train = BenchmarkData.teacherSet(trainSamples, inputSize, outputSize, 1);
+        MLDataSet test = BenchmarkData.teacherSet(testSamples, inputSize, outputSize, 2);
+
+        System.out.printf("Network %dx%dx%d, %d train / %d held-out samples, %d epochs%n",
+                inputSize, hiddenSize, outputSize, trainSamples, testSamples, epochs);
+        System.out.printf("%-11s %-9s %10s %10s %14s %14s %12s %10s%n",
+                "activation", "precision", "accuracy", "agreement", "max abs err", "mean abs err", "bytes", "us/row");
+        for (ActivationFunction activation : ActivationFunction.values()) {
+            Network network = new Network(inputSize, hiddenSize, outputSize);
+            network.setActivationFunction(activation);
+            network.setWeightInit(WeightInit.UNIFORM);
+            network.setLearningRate(learningRate);
+            network.setSeed(42);
+            network.train(train, epochs, 32);
+            InferenceSession reference = network.newInferenceSession(Precision.DOUBLE);
+            if (Double.isNaN(reference.predict(test.getInputs()[0])[0])) {
+                System.out.printf("%-11s training diverged%n", activation);
+                continue;
+            }
+            for (Precision precision : PRECISIONS) {
+                InferenceSession session = network.newInferenceSession(precision);
+                report(activation, precision, reference, session, test);
+            }
+        }
+    }
+
+    private static void report(ActivationFunction activation, Precision precision,
+                               InferenceSession reference, InferenceSession session, MLDataSet test) {
+        int outputSize = session.getOutputSize();
+        double[][] inputs = test.getInputs();
+        double[][] targets = test.getTargets();
+        double[] expected = new double[outputSize];
+        double[] actual = new double[outputSize];
+        double maxAbs = 0;
+        double sumAbs = 0;
+        int correct = 0;
+        int agreements = 0;
+        for (int i = 0; i < inputs.length; i++) {
+            reference.predict(inputs[i], expected);
+            session.predict(inputs[i], actual);
+            for (int j = 0; j < outputSize; j++) {
+                double error = Math.abs(actual[j] - expected[j]);
+                maxAbs = Math.max(maxAbs, error);
+                sumAbs += error;
+            }
+            int predicted = BenchmarkData.argmax(actual);
+            if (predicted == BenchmarkData.argmax(targets[i])) {
+                correct++;
+            }
+            if (predicted == BenchmarkData.argmax(expected)) {
+                agreements++;
+            }
+        }
+        System.out.printf("%-11s %-9s %9.2f%% %9.2f%% %14.3e %14.3e %12d %10.2f%n", activation, precision,
+                100.0 * correct / inputs.length, 100.0 * agreements / inputs.length,
+                maxAbs, sumAbs / ((double) inputs.length * outputSize), session.getParameterBytes(),
+                BenchmarkData.microsPerRow(session, test, BATCH));
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.bench;
+
+import org.example.activation.ActivationFunction;
+import org.example.data.MLDataSet;
+import org.example.data.SparseMLDataSet;
+import org.example.network.Network;
+import org.example.optimizer.MomentumSgd;
+
+import java.util.Random;
+
+/*
+ * SparseInputReport - это отчет о скорости обучения на разреженных входах (SparseMLDataSet)
+ * по сравнению с обучением на тех же данных в плотном виде (MLDataSet).
+ *
+ * Данные: samples примеров шириной inputSize, в каждом nonZeros случайных ненулевых входов из (0, 1]
+ * и one-hot целевое значение; seed фиксирован.
+ * Обе сети (inputSize x hiddenSize x outputSize, SIGMOID) начинают с одинаковых весов и обучаются одну эпоху
+ * с MomentumSgd без момента, поэтому их веса должны совпасть с точностью до округлений:
+ * печатается наибольшее отличие прогнозов двух сетей на первых примерах.
+ * Печатается время эпохи для каждого варианта и ускорение.
+ *
+ * Аргументы (все необязательные): inputSize nonZeros hiddenSize outputSize samples batchSize.
+ * */
+public class SparseInputReport {
+
+    private static final int CHECKED_ROWS = 32;
+
+    public static void main(String[] args) {
+        int inputSize = arg(args, 0, 20_000);
+        int nonZeros = arg(args, 1, 200);
+        int hiddenSize = arg(args, 2, 256);
+        int outputSize = arg(args, 3, 10);
+        int samples = arg(args, 4, 512);
+        int batchSize = arg(args, 5, 64);
+
+        MLDataSet dense = sparseSet(samples, inputSize, nonZeros, outputSize);
+        SparseMLDataSet sparse = SparseMLDataSet.of(dense);
+        System.out.printf("Network %dx%dx%d, %d samples, %d non-zero inputs per sample (%.2f%%), batch %d%n",
+                inputSize, hiddenSize, outputSize, samples, nonZeros, 100.0 * nonZeros / inputSize, batchSize);
+
+        Network denseNetwork = network(inputSize, hiddenSize, outputSize);
+        Network sparseNetwork = network(inputSize, hiddenSize, outputSize);
+        // Прогрев JIT на тех же данных; train каждый раз начинает с одинаковых весов (seed).
+        denseNetwork.train(dense, 1, batchSize);
+        sparseNetwork.train(sparse, 1, batchSize);
+
+        long start = System.nanoTime();
+        denseNetwork.train(dense, 1, batchSize);
+        double denseMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        sparseNetwork.train(sparse, 1, batchSize);
+        double sparseMillis = (System.nanoTime() - start) / 1e6;
+
+        double maxDifference = 0;
+        for (int i = 0; i < Math.min(CHECKED_ROWS, samples); i++) {
+            double[] expected = denseNetwork.predict(dense.getInputs()[i]);
+            double[] actual = sparseNetwork.predict(sparse.getIndices()[i], sparse.getValues()[i]);
+            for (int j = 0; j < outputSize; j++) {
+                maxDifference = Math.max(maxDifference, Math.abs(expected[j] - actual[j]));
+            }
+        }
+        System.out.printf("%-8s %12s%n", "inputs", "ms/epoch");
+        System.out.printf("%-8s %12.1f%n", "dense", denseMillis);
+        System.out.printf("%-8s %12.1f%n", "sparse", sparseMillis);
+        System.out.printf("Speedup %.1fx, max abs prediction difference %.3e%n", denseMillis / sparseMillis, maxDifference);
+    }
+
+    private static Network network(int inputSize, int hiddenSize, int outputSize) {
+        Network network = new Network(inputSize, hiddenSize, outputSize);
+        network.setActivationFunction(ActivationFunction.SIGMOID);
+        network.setOptimizer(new MomentumSgd(0.0));
+        network.setSeed(42);
+        return network;
+    }
+
+    private static MLDataSet sparseSet(int samples, int inputSize, int nonZeros, int outputSize) {
+        Random random = new Random(42);
+        double[][] inputs = new double[samples][inputSize];
+        double[][] targets = new double[samples][outputSize];
+        for (int i = 0; i < samples; i++) {
+            for (int n = 0; n < nonZeros; n++) {
+                inputs[i][random.nextInt(inputSize)] = 1.0 - random.nextDouble();
+            }
+            targets[i][random.nextInt(outputSize)] = 1.0;
+        }
+        return new MLDataSet(inputs, targets);
+    }
+
+    private static int arg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
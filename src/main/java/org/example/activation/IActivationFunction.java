@@ -1,7 +1,40 @@
 package org.example.activation;
 
+/*
+ * IActivationFunction: Это интерфейс функции активации.
+ *
+ * output(double x) и outputDerivative(double x): Это значение функции и ее производная для одного числа.
+ * Производная вызывается от выхода нейрона (значения после активации).
+ *
+ * apply(double[] in, double[] out, int n): Этот метод применяет функцию к первым n элементам in и пишет результат в out
+ * (in и out могут быть одним массивом).
+ * multiplyDerivative(double[] outputs, double[] gradients, int n): Этот метод умножает каждый градиент на производную,
+ * вычисленную от соответствующего выхода: gradients[i] *= outputDerivative(outputs[i]).
+ * apply(float[] in, float[] out, int n): Это тот же apply для режима одинарной точности (Precision.FLOAT),
+ * который используется только при получении прогнозов.
+ *
+ * Реализации по умолчанию - скалярные циклы. Встроенные функции активации переопределяют их ядрами ActivationKernels,
+ * которые при запуске выбирают SIMD-реализацию (jdk.incubator.vector) или скалярную.
+ * */
 public interface IActivationFunction {
     double output(double x);
     double outputDerivative(double x);
 
+    default void apply(double[] in, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = output(in[i]);
+        }
+    }
+
+    default void multiplyDerivative(double[] outputs, double[] gradients, int n) {
+        for (int i = 0; i < n; i++) {
+            gradients[i] *= outputDerivative(outputs[i]);
+        }
+    }
+
+    default void apply(float[] in, float[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = (float) output(in[i]);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package org.example.activation.iml;
 
 import org.example.activation.IActivationFunction;
+import org.example.activation.kernel.ActivationKernels;
 
 //LeakyReLU - это вариант функции ReLU, который позволяет небольшим отрицательным значениям, когда x < 0.
 // Это делается для того, чтобы избежать проблемы “мертвых нейронов”,
@@ -23,4 +24,19 @@ public class LeakyReLU implements IActivationFunction {
 
     //Эти два метода важны для обучения нейронной сети, поскольку они используются при прямом и обратном распространении ошибки.
     // Производная функции активации используется при обратном распространении ошибки для обновления весов и смещений нейронов.
+
+    @Override
+    public void apply(double[] in, double[] out, int n) {
+        ActivationKernels.get().leakyRelu(in, out, n);
+    }
+
+    @Override
+    public void multiplyDerivative(double[] outputs, double[] gradients, int n) {
+        ActivationKernels.get().leakyReluDerivative(outputs, gradients, n);
+    }
+
+    @Override
+    public void apply(float[] in, float[] out, int n) {
+        ActivationKernels.get().leakyRelu(in, out, n);
+    }
 }
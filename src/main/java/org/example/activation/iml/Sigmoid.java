@@ -1,6 +1,7 @@
 package org.example.activation.iml;
 
 import org.example.activation.IActivationFunction;
+import org.example.activation.kernel.ActivationKernels;
 
 public class Sigmoid implements IActivationFunction {
     @Override
@@ -12,4 +13,19 @@ public class Sigmoid implements IActivationFunction {
     public double outputDerivative(double x) {
         return x * (1 - x);
     }
+
+    @Override
+    public void apply(double[] in, double[] out, int n) {
+        ActivationKernels.get().sigmoid(in, out, n);
+    }
+
+    @Override
+    public void multiplyDerivative(double[] outputs, double[] gradients, int n) {
+        ActivationKernels.get().sigmoidDerivative(outputs, gradients, n);
+    }
+
+    @Override
+    public void apply(float[] in, float[] out, int n) {
+        ActivationKernels.get().sigmoid(in, out, n);
+    }
 }
@@ -1,6 +1,7 @@
 package org.example.activation.iml;
 
 import org.example.activation.IActivationFunction;
+import org.example.activation.kernel.ActivationKernels;
 
 public class Swish implements IActivationFunction {
     @Override
@@ -10,6 +11,23 @@ public class Swish implements IActivationFunction {
 
     @Override
     public double outputDerivative(double x) {
-        return ((1+Math.exp(-x)) + x *Math.exp(-x))/Math.pow(1+Math.exp(-x),2);
+        double e = Math.exp(-x);
+        double d = 1 + e;
+        return (d + x * e) / (d * d);
+    }
+
+    @Override
+    public void apply(double[] in, double[] out, int n) {
+        ActivationKernels.get().swish(in, out, n);
+    }
+
+    @Override
+    public void multiplyDerivative(double[] outputs, double[] gradients, int n) {
+        ActivationKernels.get().swishDerivative(outputs, gradients, n);
+    }
+
+    @Override
+    public void apply(float[] in, float[] out, int n) {
+        ActivationKernels.get().swish(in, out, n);
     }
 }
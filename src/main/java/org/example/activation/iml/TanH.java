@@ -1,6 +1,7 @@
 package org.example.activation.iml;
 
 import org.example.activation.IActivationFunction;
+import org.example.activation.kernel.ActivationKernels;
 
 public class TanH implements IActivationFunction {
     @Override
@@ -10,6 +11,22 @@ public class TanH implements IActivationFunction {
 
     @Override
     public double outputDerivative(double x) {
-        return 1-Math.pow(Math.tanh(x),2);
+        double t = Math.tanh(x);
+        return 1 - t * t;
+    }
+
+    @Override
+    public void apply(double[] in, double[] out, int n) {
+        ActivationKernels.get().tanh(in, out, n);
+    }
+
+    @Override
+    public void multiplyDerivative(double[] outputs, double[] gradients, int n) {
+        ActivationKernels.get().tanhDerivative(outputs, gradients, n);
+    }
+
+    @Override
+    public void apply(float[] in, float[] out, int n) {
+        ActivationKernels.get().tanh(in, out, n);
     }
 }
@@ -0,0 +1,75 @@
+package org.example.activation.kernel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/*
+ * ActivationKernels - это ядра функций активации, работающие сразу с массивами.
+ * Их используют встроенные функции активации (Sigmoid, TanH, Swish, LeakyReLU) в apply и multiplyDerivative.
+ *
+ * Реализация выбирается один раз при запуске:
+ * VectorActivationKernels - SIMD-ядра на jdk.incubator.vector. Выбираются, если модуль подключен
+ * (--add-modules jdk.incubator.vector) и не запрещены свойством -Dneuron.activation.vector=false.
+ * ScalarActivationKernels - скалярные циклы, используются во всех остальных случаях.
+ *
+ * Свойство -Dneuron.activation.fastExp=true включает в обеих реализациях приближенную экспоненту FastMath.exp
+ * с относительной ошибкой не более FastMath.MAX_RELATIVE_ERROR. По умолчанию используется точная экспонента.
+ *
+ * Ядра для float[] используются в режиме одинарной точности (Precision.FLOAT) только при получении прогнозов,
+ * поэтому для них нет производных. Они всегда используют точную экспоненту: свойство fastExp к ним не относится.
+ *
+ * Производные, как и IActivationFunction.outputDerivative, вычисляются от выходов нейронов.
+ * Значение каждого элемента не зависит от его положения в массиве и от длины массива.
+ * */
+public abstract class ActivationKernels {
+
+    private static final Logger logger = LogManager.getLogger(ActivationKernels.class);
+    private static final ActivationKernels INSTANCE = select();
+
+    public static ActivationKernels get() {
+        return INSTANCE;
+    }
+
+    public abstract String getName();
+
+    public abstract void sigmoid(double[] in, double[] out, int n);
+
+    public abstract void sigmoidDerivative(double[] outputs, double[] gradients, int n);
+
+    public abstract void tanh(double[] in, double[] out, int n);
+
+    public abstract void tanhDerivative(double[] outputs, double[] gradients, int n);
+
+    public abstract void swish(double[] in, double[] out, int n);
+
+    public abstract void swishDerivative(double[] outputs, double[] gradients, int n);
+
+    public abstract void leakyRelu(double[] in, double[] out, int n);
+
+    public abstract void leakyReluDerivative(double[] outputs, double[] gradients, int n);
+
+    public abstract void sigmoid(float[] in, float[] out, int n);
+
+    public abstract void tanh(float[] in, float[] out, int n);
+
+    public abstract void swish(float[] in, float[] out, int n);
+
+    public abstract void leakyRelu(float[] in, float[] out, int n);
+
+    private static ActivationKernels select() {
+        boolean fastExp = Boolean.getBoolean("neuron.activation.fastExp");
+        boolean vector = Boolean.parseBoolean(System.getProperty("neuron.activation.vector", "true"));
+        ActivationKernels kernels = new ScalarActivationKernels(fastExp);
+        if (vector && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                kernels = (ActivationKernels) Class.forName("org.example.activation.kernel.VectorActivationKernels")
+                        .getDeclaredConstructor(boolean.class)
+                        .newInstance(fastExp);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Vector activation kernels are unavailable, using scalar kernels", e);
+            }
+        }
+        logger.info("Activation kernels: " + kernels.getName());
+        return kernels;
+    }
+}
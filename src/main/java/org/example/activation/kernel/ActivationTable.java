@@ -0,0 +1,177 @@
+package org.example.activation.kernel;
+
+import org.example.activation.ActivationFunction;
+import org.example.activation.IActivationFunction;
+
+/*
+ * ActivationTable - это функция активации SIGMOID, TANH или SWISH, вычисляемая по таблице с линейной интерполяцией.
+ * Она используется только при получении прогнозов (Network.setActivationTables): трансцендентная функция
+ * заменяется на одно умножение, одно сложение и одно чтение таблицы.
+ *
+ * Таблица: Отрезок [-range, range] делится на intervalsPerUnit интервалов на единицу аргумента.
+ * Для каждого интервала i хранятся значение функции в его левом конце (values[i]) и приращение до правого конца
+ * (slopes[i]), так что значение в точке t = i + f равно values[i] + f * slopes[i].
+ *
+ * Вне отрезка аргумент ограничивается: SIGMOID и TANH возвращают значение на границе,
+ * SWISH слева - значение на границе, а справа - сам аргумент (swish(x) = x * sigmoid(x) стремится к x).
+ *
+ * Гарантированная ошибка (getMaxError): внутри отрезка ошибка линейной интерполяции не больше h^2 / 8 * max|f''|,
+ * где h = 1 / intervalsPerUnit, а max|f''| равен 1 / (6 sqrt 3) для SIGMOID, 4 / (3 sqrt 3) для TANH и 1/2 для SWISH.
+ * Вне отрезка ошибка не больше e^-range для SIGMOID, 2 e^-2range для TANH и range * e^-range для SWISH (range >= 1).
+ * К большей из этих оценок прибавляется запас на округления.
+ * С таблицами по умолчанию (DEFAULT_INTERVALS_PER_UNIT) ошибка не больше 3e-6 для SIGMOID, 2.4e-5 для TANH
+ * и 1.6e-5 для SWISH, а таблица занимает 40 КБ (SIGMOID), 20 КБ (TANH) и 48 КБ (SWISH).
+ * Наибольшая ошибка, измеренная ActivationTableReport на 4 млн аргументов, совпадает с границей до трех знаков.
+ *
+ * Скорость (ActivationTableReport, apply на 4096 элементах, 64 интервала на единицу): около 2-3 нс на элемент.
+ * Скалярные ядра ActivationKernels тратят около 6.5 нс для SIGMOID и SWISH и около 90 нс для TANH (Math.tanh),
+ * поэтому без модуля jdk.incubator.vector таблицы ускоряют прогноз сети 64x256x10 с TANH примерно вдвое в DOUBLE
+ * и вчетверо во FLOAT. Векторные ядра (AVX-512) тратят 1.2-2.3 нс на элемент, и с ними таблицы не быстрее:
+ * в DOUBLE время прогноза почти то же, а во FLOAT, где векторное ядро обрабатывает вдвое больше элементов, медленнее.
+ * Векторный вариант таблицы со сбором значений по индексам (gather) в jdk.incubator.vector оказался медленнее скалярного.
+ *
+ * outputDerivative вычисляется точно: для обучения таблица не используется.
+ * */
+public final class ActivationTable implements IActivationFunction {
+
+    public static final int DEFAULT_INTERVALS_PER_UNIT = 64;
+
+    private final ActivationFunction function;
+    private final IActivationFunction exact;
+    private final double range;
+    private final int intervalsPerUnit;
+    private final int intervals;
+    private final double[] values;
+    private final double[] slopes;
+    private final boolean identityRightTail;
+    private final double maxError;
+
+    // function: Это функция активации (SIGMOID, TANH или SWISH), exact - ее точная реализация.
+    // range: Это граница отрезка [-range, range], на котором строится таблица (не меньше 1).
+    // Если 2 * range * intervalsPerUnit не целое, отрезок расширяется до целого числа интервалов.
+    // intervalsPerUnit: Это разрешение таблицы - число интервалов на единицу аргумента.
+    public ActivationTable(ActivationFunction function, IActivationFunction exact, double range, int intervalsPerUnit) {
+        if (function == ActivationFunction.LEAKY_RELU) {
+            throw new IllegalArgumentException("LEAKY_RELU is piecewise linear and needs no table");
+        }
+        if (range < 1.0 || intervalsPerUnit < 1 || range * intervalsPerUnit > 1 << 24) {
+            throw new IllegalArgumentException("Invalid table: range " + range + ", intervalsPerUnit " + intervalsPerUnit);
+        }
+        this.function = function;
+        this.exact = exact;
+        this.intervalsPerUnit = intervalsPerUnit;
+        this.intervals = (int) Math.ceil(2 * range * intervalsPerUnit);
+        this.range = intervals / (2.0 * intervalsPerUnit);
+        this.identityRightTail = function == ActivationFunction.SWISH;
+        // Последнее значение - в правом конце отрезка; последний наклон равен нулю.
+        this.values = new double[intervals + 1];
+        this.slopes = new double[intervals + 1];
+        double h = 1.0 / intervalsPerUnit;
+        for (int i = 0; i <= intervals; i++) {
+            values[i] = exact.output(-this.range + i * h);
+        }
+        for (int i = 0; i < intervals; i++) {
+            slopes[i] = values[i + 1] - values[i];
+        }
+        this.maxError = Math.max(h * h / 8 * maxSecondDerivative(function), tailError(function, this.range))
+                + 8 * Math.ulp(Math.max(1.0, maxAbsValue(function, this.range)));
+    }
+
+    //of(ActivationFunction function, IActivationFunction exact, int intervalsPerUnit): Этот метод создает таблицу
+    // на отрезке по умолчанию для функции (defaultRange).
+    public static ActivationTable of(ActivationFunction function, IActivationFunction exact, int intervalsPerUnit) {
+        return new ActivationTable(function, exact, defaultRange(function), intervalsPerUnit);
+    }
+
+    //defaultRange(ActivationFunction function): Этот метод возвращает отрезок, вне которого ошибка ограничения
+    // аргумента не больше 4.2e-9: 20 для SIGMOID, 10 для TANH и 24 для SWISH.
+    public static double defaultRange(ActivationFunction function) {
+        return switch (function) {
+            case SIGMOID -> 20.0;
+            case TANH -> 10.0;
+            case SWISH -> 24.0;
+            case LEAKY_RELU -> throw new IllegalArgumentException("LEAKY_RELU is piecewise linear and needs no table");
+        };
+    }
+
+    public ActivationFunction getFunction() {
+        return function;
+    }
+
+    public double getRange() {
+        return range;
+    }
+
+    public int getIntervalsPerUnit() {
+        return intervalsPerUnit;
+    }
+
+    //getMaxError(): Этот метод возвращает гарантированную границу абсолютной ошибки таблицы для любого аргумента.
+    public double getMaxError() {
+        return maxError;
+    }
+
+    //getTableBytes(): Этот метод возвращает объем таблицы в байтах.
+    public long getTableBytes() {
+        return (long) (values.length + slopes.length) * Double.BYTES;
+    }
+
+    // output(double x): Ограничение аргумента записано сравнениями, а не Math.min и Math.max:
+    // для double они обрабатывают NaN и -0.0 и компилируются в несколько ветвлений. NaN дает NaN.
+    @Override
+    public double output(double x) {
+        double t = (x + range) * intervalsPerUnit;
+        if (t <= 0.0) {
+            return values[0];
+        }
+        if (t >= intervals) {
+            return identityRightTail ? x : values[intervals];
+        }
+        int i = (int) t;
+        return values[i] + (t - i) * slopes[i];
+    }
+
+    @Override
+    public double outputDerivative(double x) {
+        return exact.outputDerivative(x);
+    }
+
+    @Override
+    public void apply(double[] in, double[] out, int n) {
+        for (int k = 0; k < n; k++) {
+            out[k] = output(in[k]);
+        }
+    }
+
+    @Override
+    public void multiplyDerivative(double[] outputs, double[] gradients, int n) {
+        exact.multiplyDerivative(outputs, gradients, n);
+    }
+
+    @Override
+    public void apply(float[] in, float[] out, int n) {
+        for (int k = 0; k < n; k++) {
+            out[k] = (float) output(in[k]);
+        }
+    }
+
+    private static double maxSecondDerivative(ActivationFunction function) {
+        return switch (function) {
+            case SIGMOID -> 1.0 / (6.0 * Math.sqrt(3.0));
+            case TANH -> 4.0 / (3.0 * Math.sqrt(3.0));
+            default -> 0.5;
+        };
+    }
+
+    private static double tailError(ActivationFunction function, double range) {
+        return switch (function) {
+            case SIGMOID -> Math.exp(-range);
+            case TANH -> 2.0 * Math.exp(-2.0 * range);
+            default -> range * Math.exp(-range);
+        };
+    }
+
+    private static double maxAbsValue(ActivationFunction function, double range) {
+        return function == ActivationFunction.SWISH ? range : 1.0;
+    }
+}
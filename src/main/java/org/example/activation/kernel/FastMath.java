@@ -0,0 +1,42 @@
+package org.example.activation.kernel;
+
+/*
+ * FastMath содержит быструю приближенную экспоненту, которая включается свойством -Dneuron.activation.fastExp=true.
+ *
+ * exp(x) = 2^k * e^r, где k = rint(x / ln 2), а |r| <= ln 2 / 2.
+ * e^r вычисляется многочленом Тейлора 7-й степени по схеме Горнера, а 2^k собирается прямо в битах показателя double.
+ * Относительная ошибка на [-708, 708] не превышает 1e-8 (остаточный член r^8 / 8! < 5.2e-9 плюс округления).
+ * Аргументы меньше -708 дают 0, больше 708 - +Infinity; NaN не поддерживается.
+ * Та же схема повторена в векторных ядрах, поэтому скалярный и SIMD-режимы дают одинаковую точность.
+ * */
+public final class FastMath {
+
+    public static final double MAX_RELATIVE_ERROR = 1e-8;
+    static final double LOG2E = 1.4426950408889634;
+    static final double LN2_HI = 0.6931471803691238;
+    static final double LN2_LO = 1.9082149292705877e-10;
+    static final double MIN_ARG = -708.0;
+    static final double MAX_ARG = 708.0;
+    static final double C2 = 1.0 / 2;
+    static final double C3 = 1.0 / 6;
+    static final double C4 = 1.0 / 24;
+    static final double C5 = 1.0 / 120;
+    static final double C6 = 1.0 / 720;
+    static final double C7 = 1.0 / 5040;
+
+    private FastMath() {
+    }
+
+    public static double exp(double x) {
+        if (x < MIN_ARG) {
+            return 0.0;
+        }
+        if (x > MAX_ARG) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double k = Math.rint(x * LOG2E);
+        double r = (x - k * LN2_HI) - k * LN2_LO;
+        double p = 1 + r * (1 + r * (C2 + r * (C3 + r * (C4 + r * (C5 + r * (C6 + r * C7))))));
+        return p * Double.longBitsToDouble(((long) k + 1023) << 52);
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.activation.kernel;
+
+/*
+ * ScalarActivationKernels - это скалярные ядра функций активации.
+ * В точном режиме каждое значение вычисляется по той же формуле, что и output/outputDerivative соответствующей функции,
+ * поэтому результат побитово совпадает с поэлементными вызовами.
+ * Ядра для float[] вычисляют значение в double и округляют его до float.
+ * */
+final class ScalarActivationKernels extends ActivationKernels {
+
+    private final boolean fastExp;
+
+    ScalarActivationKernels(boolean fastExp) {
+        this.fastExp = fastExp;
+    }
+
+    @Override
+    public String getName() {
+        return fastExp ? "scalar (fast exp)" : "scalar";
+    }
+
+    private double exp(double x) {
+        return fastExp ? FastMath.exp(x) : Math.exp(x);
+    }
+
+    private double tanh(double x) {
+        return fastExp ? 1 - 2 / (FastMath.exp(2 * x) + 1) : Math.tanh(x);
+    }
+
+    @Override
+    public void sigmoid(double[] in, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = 1 / (1 + exp(-in[i]));
+        }
+    }
+
+    @Override
+    public void sigmoidDerivative(double[] outputs, double[] gradients, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = outputs[i];
+            gradients[i] *= x * (1 - x);
+        }
+    }
+
+    @Override
+    public void tanh(double[] in, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = tanh(in[i]);
+        }
+    }
+
+    @Override
+    public void tanhDerivative(double[] outputs, double[] gradients, int n) {
+        for (int i = 0; i < n; i++) {
+            double t = tanh(outputs[i]);
+            gradients[i] *= 1 - t * t;
+        }
+    }
+
+    @Override
+    public void swish(double[] in, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = in[i];
+            out[i] = x * (1 / (1 + exp(-x)));
+        }
+    }
+
+    @Override
+    public void swishDerivative(double[] outputs, double[] gradients, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = outputs[i];
+            double e = exp(-x);
+            double d = 1 + e;
+            gradients[i] *= (d + x * e) / (d * d);
+        }
+    }
+
+    @Override
+    public void leakyRelu(double[] in, double[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = in[i];
+            out[i] = x >= 0 ? x : x * 0.01;
+        }
+    }
+
+    @Override
+    public void leakyReluDerivative(double[] outputs, double[] gradients, int n) {
+        for (int i = 0; i < n; i++) {
+            gradients[i] *= outputs[i] >= 0 ? 1 : 0.01;
+        }
+    }
+
+    @Override
+    public void sigmoid(float[] in, float[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = (float) (1 / (1 + Math.exp(-in[i])));
+        }
+    }
+
+    @Override
+    public void tanh(float[] in, float[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = (float) Math.tanh(in[i]);
+        }
+    }
+
+    @Override
+    public void swish(float[] in, float[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            double x = in[i];
+            out[i] = (float) (x * (1 / (1 + Math.exp(-x))));
+        }
+    }
+
+    @Override
+    public void leakyRelu(float[] in, float[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            float x = in[i];
+            out[i] = x >= 0 ? x : x * 0.01f;
+        }
+    }
+}
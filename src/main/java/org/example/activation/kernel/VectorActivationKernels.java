@@ -0,0 +1,273 @@
+package org.example.activation.kernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * VectorActivationKernels - это SIMD-ядра функций активации на jdk.incubator.vector.
+ * Класс загружается только через ActivationKernels.select(), когда модуль jdk.incubator.vector подключен.
+ *
+ * Основной цикл обрабатывает полные векторы, хвост массива - одним вектором с маской,
+ * поэтому каждый элемент вычисляется одними и теми же векторными операциями независимо от длины массива.
+ * В точном режиме экспонента и гиперболический тангенс берутся из VectorOperators.EXP и TANH,
+ * в режиме fastExp - по той же схеме, что и FastMath.exp.
+ * Ядра для float[] работают с FloatVector, в котором вдвое больше элементов, чем в DoubleVector той же ширины.
+ * */
+final class VectorActivationKernels extends ActivationKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int FLOAT_LANES = FLOAT_SPECIES.length();
+    // Прибавление и вычитание 1.5 * 2^52 округляет число до ближайшего целого так же, как Math.rint.
+    private static final double ROUND_MAGIC = 6755399441055744.0;
+    private static final long ROUND_MAGIC_BITS = Double.doubleToRawLongBits(ROUND_MAGIC);
+
+    private final boolean fastExp;
+
+    VectorActivationKernels(boolean fastExp) {
+        this.fastExp = fastExp;
+    }
+
+    @Override
+    public String getName() {
+        return "vector " + SPECIES + (fastExp ? " (fast exp)" : "");
+    }
+
+    private DoubleVector exp(DoubleVector x) {
+        if (!fastExp) {
+            return x.lanewise(VectorOperators.EXP);
+        }
+        DoubleVector clamped = x.max(FastMath.MIN_ARG).min(FastMath.MAX_ARG);
+        DoubleVector shifted = clamped.mul(FastMath.LOG2E).add(ROUND_MAGIC);
+        DoubleVector k = shifted.sub(ROUND_MAGIC);
+        DoubleVector r = clamped.sub(k.mul(FastMath.LN2_HI)).sub(k.mul(FastMath.LN2_LO));
+        DoubleVector p = r.mul(FastMath.C7).add(FastMath.C6);
+        p = r.mul(p).add(FastMath.C5);
+        p = r.mul(p).add(FastMath.C4);
+        p = r.mul(p).add(FastMath.C3);
+        p = r.mul(p).add(FastMath.C2);
+        p = r.mul(p).add(1);
+        p = r.mul(p).add(1);
+        // Младшие биты shifted содержат k как целое число, поэтому 2^k собирается без преобразования double -> long.
+        DoubleVector scale = shifted.reinterpretAsLongs()
+                .sub(ROUND_MAGIC_BITS - 1023)
+                .lanewise(VectorOperators.LSHL, 52)
+                .reinterpretAsDoubles();
+        return p.mul(scale)
+                .blend(0.0, x.lt(FastMath.MIN_ARG))
+                .blend(Double.POSITIVE_INFINITY, x.compare(VectorOperators.GT, FastMath.MAX_ARG));
+    }
+
+    private DoubleVector tanh(DoubleVector x) {
+        if (!fastExp) {
+            return x.lanewise(VectorOperators.TANH);
+        }
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        return one.sub(DoubleVector.broadcast(SPECIES, 2.0).div(exp(x.mul(2)).add(1)));
+    }
+
+    private DoubleVector sigmoid(DoubleVector x) {
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        return one.div(one.add(exp(x.neg())));
+    }
+
+    private DoubleVector swish(DoubleVector x) {
+        return x.mul(sigmoid(x));
+    }
+
+    private DoubleVector leakyRelu(DoubleVector x) {
+        return x.blend(x.mul(0.01), x.lt(0.0));
+    }
+
+    private DoubleVector sigmoidDerivative(DoubleVector x) {
+        return x.mul(DoubleVector.broadcast(SPECIES, 1.0).sub(x));
+    }
+
+    private DoubleVector tanhDerivative(DoubleVector x) {
+        DoubleVector t = tanh(x);
+        return DoubleVector.broadcast(SPECIES, 1.0).sub(t.mul(t));
+    }
+
+    private DoubleVector swishDerivative(DoubleVector x) {
+        DoubleVector e = exp(x.neg());
+        DoubleVector d = e.add(1);
+        return d.add(x.mul(e)).div(d.mul(d));
+    }
+
+    private DoubleVector leakyReluDerivative(DoubleVector x) {
+        return DoubleVector.broadcast(SPECIES, 1.0).blend(0.01, x.lt(0.0));
+    }
+
+    @Override
+    public void sigmoid(double[] in, double[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            sigmoid(DoubleVector.fromArray(SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            sigmoid(DoubleVector.fromArray(SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+
+    @Override
+    public void sigmoidDerivative(double[] outputs, double[] gradients, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i);
+            g.mul(sigmoidDerivative(DoubleVector.fromArray(SPECIES, outputs, i))).intoArray(gradients, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i, mask);
+            g.mul(sigmoidDerivative(DoubleVector.fromArray(SPECIES, outputs, i, mask))).intoArray(gradients, i, mask);
+        }
+    }
+
+    @Override
+    public void tanh(double[] in, double[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            tanh(DoubleVector.fromArray(SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            tanh(DoubleVector.fromArray(SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+
+    @Override
+    public void tanhDerivative(double[] outputs, double[] gradients, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i);
+            g.mul(tanhDerivative(DoubleVector.fromArray(SPECIES, outputs, i))).intoArray(gradients, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i, mask);
+            g.mul(tanhDerivative(DoubleVector.fromArray(SPECIES, outputs, i, mask))).intoArray(gradients, i, mask);
+        }
+    }
+
+    @Override
+    public void swish(double[] in, double[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            swish(DoubleVector.fromArray(SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            swish(DoubleVector.fromArray(SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+
+    @Override
+    public void swishDerivative(double[] outputs, double[] gradients, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i);
+            g.mul(swishDerivative(DoubleVector.fromArray(SPECIES, outputs, i))).intoArray(gradients, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i, mask);
+            g.mul(swishDerivative(DoubleVector.fromArray(SPECIES, outputs, i, mask))).intoArray(gradients, i, mask);
+        }
+    }
+
+    @Override
+    public void leakyRelu(double[] in, double[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            leakyRelu(DoubleVector.fromArray(SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            leakyRelu(DoubleVector.fromArray(SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+
+    @Override
+    public void leakyReluDerivative(double[] outputs, double[] gradients, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i);
+            g.mul(leakyReluDerivative(DoubleVector.fromArray(SPECIES, outputs, i))).intoArray(gradients, i);
+        }
+        if (i < n) {
+            VectorMask<Double> mask = SPECIES.indexInRange(i, n);
+            DoubleVector g = DoubleVector.fromArray(SPECIES, gradients, i, mask);
+            g.mul(leakyReluDerivative(DoubleVector.fromArray(SPECIES, outputs, i, mask))).intoArray(gradients, i, mask);
+        }
+    }
+
+    private static FloatVector sigmoid(FloatVector x) {
+        FloatVector one = FloatVector.broadcast(FLOAT_SPECIES, 1.0f);
+        return one.div(one.add(x.neg().lanewise(VectorOperators.EXP)));
+    }
+
+    private static FloatVector tanh(FloatVector x) {
+        return x.lanewise(VectorOperators.TANH);
+    }
+
+    private static FloatVector swish(FloatVector x) {
+        return x.mul(sigmoid(x));
+    }
+
+    private static FloatVector leakyRelu(FloatVector x) {
+        return x.blend(x.mul(0.01f), x.lt(0.0f));
+    }
+
+    @Override
+    public void sigmoid(float[] in, float[] out, int n) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(n); i < bound; i += FLOAT_LANES) {
+            sigmoid(FloatVector.fromArray(FLOAT_SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Float> mask = FLOAT_SPECIES.indexInRange(i, n);
+            sigmoid(FloatVector.fromArray(FLOAT_SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+
+    @Override
+    public void tanh(float[] in, float[] out, int n) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(n); i < bound; i += FLOAT_LANES) {
+            tanh(FloatVector.fromArray(FLOAT_SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Float> mask = FLOAT_SPECIES.indexInRange(i, n);
+            tanh(FloatVector.fromArray(FLOAT_SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+
+    @Override
+    public void swish(float[] in, float[] out, int n) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(n); i < bound; i += FLOAT_LANES) {
+            swish(FloatVector.fromArray(FLOAT_SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Float> mask = FLOAT_SPECIES.indexInRange(i, n);
+            swish(FloatVector.fromArray(FLOAT_SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+
+    @Override
+    public void leakyRelu(float[] in, float[] out, int n) {
+        int i = 0;
+        for (int bound = FLOAT_SPECIES.loopBound(n); i < bound; i += FLOAT_LANES) {
+            leakyRelu(FloatVector.fromArray(FLOAT_SPECIES, in, i)).intoArray(out, i);
+        }
+        if (i < n) {
+            VectorMask<Float> mask = FLOAT_SPECIES.indexInRange(i, n);
+            leakyRelu(FloatVector.fromArray(FLOAT_SPECIES, in, i, mask)).intoArray(out, i, mask);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.data;
+
+import org.example.model.Precision;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * BinaryRecordReader - это чтение примеров из упакованного двоичного файла.
+ *
+ * Формат (little-endian): заголовок из трех int32 - rows, inputSize, outputSize,
+ * затем rows записей, каждая - inputSize входов и outputSize целевых значений float64 (Precision.DOUBLE)
+ * или float32 (Precision.FLOAT). Это тот же формат, что и двоичное тело application/vnd.neuron.f64
+ * или application/vnd.neuron.f32 сервера. Файл float32 вдвое меньше; значения расширяются до double при чтении.
+ *
+ * Файл читается через FileChannel блоками в один переиспользуемый буфер.
+ * */
+public class BinaryRecordReader implements RecordReader {
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int inputSize;
+    private final int outputSize;
+    private final int valueBytes;
+    private final ByteBuffer buffer;
+    private int position;
+
+    public BinaryRecordReader(Path path) throws IOException {
+        this(path, Precision.DOUBLE);
+    }
+
+    // precision: Это формат значений в файле (float64 или float32).
+    public BinaryRecordReader(Path path, Precision precision) throws IOException {
+        if (precision == Precision.INT8) {
+            throw new IllegalArgumentException("Records are stored as float64 or float32, not " + precision);
+        }
+        this.valueBytes = precision == Precision.FLOAT ? Float.BYTES : Double.BYTES;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // читаем заголовок целиком
+        }
+        if (header.hasRemaining()) {
+            channel.close();
+            throw new IOException(path + ": truncated header");
+        }
+        header.flip();
+        this.rows = header.getInt();
+        this.inputSize = header.getInt();
+        this.outputSize = header.getInt();
+        long expected = HEADER_BYTES + (long) rows * (inputSize + outputSize) * valueBytes;
+        if (rows < 0 || inputSize < 1 || outputSize < 1 || channel.size() != expected) {
+            channel.close();
+            throw new IOException(path + ": header does not match file size");
+        }
+        int recordBytes = (inputSize + outputSize) * valueBytes;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(recordBytes, BUFFER_BYTES / recordBytes * recordBytes))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.limit(0);
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    @Override
+    public int read(double[] inputs, double[] targets, int maxRows) throws IOException {
+        int recordBytes = (inputSize + outputSize) * valueBytes;
+        int count = 0;
+        while (count < maxRows && position < rows) {
+            if (buffer.remaining() < recordBytes) {
+                buffer.compact();
+                while (buffer.position() < recordBytes && channel.read(buffer) >= 0) {
+                    // дочитываем хотя бы одну запись
+                }
+                buffer.flip();
+                if (buffer.remaining() < recordBytes) {
+                    throw new IOException("Unexpected end of record file");
+                }
+            }
+            if (valueBytes == Double.BYTES) {
+                DoubleBuffer values = buffer.asDoubleBuffer();
+                values.get(inputs, count * inputSize, inputSize);
+                values.get(targets, count * outputSize, outputSize);
+            } else {
+                FloatBuffer values = buffer.asFloatBuffer();
+                for (int i = count * inputSize, end = i + inputSize; i < end; i++) {
+                    inputs[i] = values.get();
+                }
+                for (int i = count * outputSize, end = i + outputSize; i < end; i++) {
+                    targets[i] = values.get();
+                }
+            }
+            buffer.position(buffer.position() + recordBytes);
+            count++;
+            position++;
+        }
+        return count;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        channel.position(HEADER_BYTES);
+        buffer.clear().limit(0);
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
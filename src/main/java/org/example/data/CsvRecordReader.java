@@ -0,0 +1,85 @@
+package org.example.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * CsvRecordReader - это чтение примеров из CSV-файла.
+ * Каждая непустая строка содержит inputSize входных значений, за которыми следуют outputSize целевых значений,
+ * разделенных запятыми. Строки разбираются по одной, поэтому в памяти никогда не находится весь файл.
+ * */
+public class CsvRecordReader implements RecordReader {
+    private final Path path;
+    private final int inputSize;
+    private final int outputSize;
+    private BufferedReader reader;
+    private long lineNumber;
+
+    public CsvRecordReader(Path path, int inputSize, int outputSize) throws IOException {
+        this.path = path;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    @Override
+    public int read(double[] inputs, double[] targets, int maxRows) throws IOException {
+        int rows = 0;
+        String line;
+        while (rows < maxRows && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            int start = 0;
+            for (int i = 0; i < inputSize + outputSize; i++) {
+                int end = line.indexOf(',', start);
+                if (end < 0) {
+                    end = line.length();
+                }
+                if (start > line.length() || (i == inputSize + outputSize - 1) != (end == line.length())) {
+                    throw new IOException(path + ":" + lineNumber + ": expected " + (inputSize + outputSize) + " values");
+                }
+                double value;
+                try {
+                    value = Double.parseDouble(line.substring(start, end).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException(path + ":" + lineNumber + ": " + e.getMessage());
+                }
+                if (i < inputSize) {
+                    inputs[rows * inputSize + i] = value;
+                } else {
+                    targets[rows * outputSize + i - inputSize] = value;
+                }
+                start = end + 1;
+            }
+            rows++;
+        }
+        return rows;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        reader.close();
+        reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        lineNumber = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
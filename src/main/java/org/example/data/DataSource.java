@@ -0,0 +1,26 @@
+package org.example.data;
+
+import java.io.IOException;
+
+/*
+ * DataSource - это источник обучающих данных, который читается последовательно, пакет за пакетом.
+ * В отличие от MLDataSet, источник не обязан держать весь набор данных в памяти.
+ *
+ * getInputSize() и getOutputSize(): Это число входных и целевых значений в одном примере.
+ * reset(): Этот метод начинает новую эпоху - следующий пакет будет прочитан с начала данных.
+ * nextBatch(double[] inputs, double[] targets, int maxRows): Этот метод записывает до maxRows примеров
+ * построчно в inputs и targets и возвращает их число. 0 означает, что эпоха закончилась.
+ * */
+public interface DataSource extends AutoCloseable {
+
+    int getInputSize();
+
+    int getOutputSize();
+
+    void reset() throws IOException;
+
+    int nextBatch(double[] inputs, double[] targets, int maxRows) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -3,9 +3,11 @@ package org.example.data;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.example.util.RandomGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /*
 * Класс MLDataSet представляет собой набор данных для машинного обучения.
@@ -18,6 +20,8 @@ import java.util.List;
 *
 * Класс MLDataSet также определяет конструктор, который принимает входные данные и целевые значения,
 * создает объекты MLData для каждой пары входных данных и целевых значений и добавляет их в список data.
+*
+* split(double validationFraction, long seed): Этот метод делит набор на обучающую и отложенную (валидационную) части.
 * */
 @Getter
 @Setter
@@ -34,4 +38,28 @@ public class MLDataSet {
             this.data.add(new MLData(inputs[i], targets[i]));
         }
     }
+
+    //split(double validationFraction, long seed): Этот метод перемешивает примеры с заданным seed
+    // и возвращает массив из двух наборов: обучающего и отложенного, в который попадает доля validationFraction примеров.
+    // Строки не копируются: новые наборы ссылаются на те же массивы inputs[i] и targets[i].
+    public MLDataSet[] split(double validationFraction, long seed) {
+        if (validationFraction <= 0.0 || validationFraction >= 1.0) {
+            throw new IllegalArgumentException("validationFraction must be in (0, 1): " + validationFraction);
+        }
+        int[] order = RandomGenerator.identity(inputs.length);
+        RandomGenerator.shuffle(order, new SplittableRandom(seed));
+        int validationSize = (int) Math.round(inputs.length * validationFraction);
+        int trainingSize = inputs.length - validationSize;
+        return new MLDataSet[]{subset(order, 0, trainingSize), subset(order, trainingSize, validationSize)};
+    }
+
+    private MLDataSet subset(int[] order, int start, int count) {
+        double[][] subsetInputs = new double[count][];
+        double[][] subsetTargets = new double[count][];
+        for (int i = 0; i < count; i++) {
+            subsetInputs[i] = inputs[order[start + i]];
+            subsetTargets[i] = targets[order[start + i]];
+        }
+        return new MLDataSet(subsetInputs, subsetTargets);
+    }
 }
@@ -0,0 +1,23 @@
+package org.example.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/*
+ * RecordReader - это последовательное чтение примеров из файла без перемешивания и предвыборки.
+ * Его использует StreamingDataSource, который добавляет к чтению фоновую предвыборку и перемешивание.
+ *
+ * read(double[] inputs, double[] targets, int maxRows): Этот метод читает до maxRows следующих примеров
+ * построчно в inputs и targets и возвращает их число. 0 означает конец файла.
+ * rewind(): Этот метод возвращает чтение к первому примеру.
+ * */
+public interface RecordReader extends Closeable {
+
+    int getInputSize();
+
+    int getOutputSize();
+
+    int read(double[] inputs, double[] targets, int maxRows) throws IOException;
+
+    void rewind() throws IOException;
+}
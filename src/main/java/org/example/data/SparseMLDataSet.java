@@ -0,0 +1,82 @@
+package org.example.data;
+
+import lombok.Getter;
+
+/*
+ * Класс SparseMLDataSet представляет собой набор данных с разреженными входами, например one-hot признаки
+ * или мешок слов, в которых из десятков тысяч входов ненулевые лишь единицы процентов.
+ *
+ * indices и values: Это ненулевые входы каждого примера: indices[i] - номера входов (строго по возрастанию,
+ * от 0 до inputSize - 1), values[i] - их значения. Входы, которых нет в indices[i], равны нулю.
+ * targets: Это целевые значения, как в MLDataSet.
+ *
+ * Обучение на таком наборе (Network.train(SparseMLDataSet, int, int)) в первом слое обходит только ненулевые входы,
+ * поэтому его стоимость пропорциональна их числу (getNonZeros), а не inputSize.
+ *
+ * of(MLDataSet set): Этот метод превращает плотный набор в разреженный, отбрасывая нулевые входы.
+ * */
+@Getter
+public class SparseMLDataSet {
+    private final int inputSize;
+    private final int[][] indices;
+    private final double[][] values;
+    private final double[][] targets;
+    private final long nonZeros;
+
+    // Массивы не копируются. Бросает IllegalArgumentException, если номера входов не возрастают
+    // или выходят за inputSize, либо длины массивов не совпадают.
+    public SparseMLDataSet(int inputSize, int[][] indices, double[][] values, double[][] targets) {
+        if (indices.length != values.length || indices.length != targets.length) {
+            throw new IllegalArgumentException("indices, values and targets must have the same number of rows");
+        }
+        long nonZeros = 0;
+        for (int i = 0; i < indices.length; i++) {
+            int[] row = indices[i];
+            if (row.length != values[i].length) {
+                throw new IllegalArgumentException("Row " + i + " has " + row.length + " indices and "
+                        + values[i].length + " values");
+            }
+            for (int k = 0; k < row.length; k++) {
+                if (row[k] < 0 || row[k] >= inputSize || (k > 0 && row[k] <= row[k - 1])) {
+                    throw new IllegalArgumentException("Row " + i + " indices must be increasing and below "
+                            + inputSize + ": " + row[k]);
+                }
+            }
+            nonZeros += row.length;
+        }
+        this.inputSize = inputSize;
+        this.indices = indices;
+        this.values = values;
+        this.targets = targets;
+        this.nonZeros = nonZeros;
+    }
+
+    public static SparseMLDataSet of(MLDataSet set) {
+        double[][] inputs = set.getInputs();
+        int inputSize = inputs.length > 0 ? inputs[0].length : 0;
+        int[][] indices = new int[inputs.length][];
+        double[][] values = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            double[] row = inputs[i];
+            int count = 0;
+            for (double value : row) {
+                if (value != 0.0) {
+                    count++;
+                }
+            }
+            indices[i] = new int[count];
+            values[i] = new double[count];
+            for (int k = 0, n = 0; k < row.length; k++) {
+                if (row[k] != 0.0) {
+                    indices[i][n] = k;
+                    values[i][n++] = row[k];
+                }
+            }
+        }
+        return new SparseMLDataSet(inputSize, indices, values, set.getTargets());
+    }
+
+    public int size() {
+        return indices.length;
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.data;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * StreamingDataSource - это потоковый источник данных поверх RecordReader для наборов данных, которые не помещаются в память.
+ *
+ * Данные читаются блоками (chunk) по chunkRows примеров. В памяти находятся только два блока:
+ * текущий, из которого берутся пакеты для обучения, и следующий, который в это время читается фоновым потоком.
+ * Поэтому чтение файла идет параллельно с обучением.
+ *
+ * Перемешивание: Порядок примеров внутри каждого блока перемешивается генератором с заданным seed,
+ * то есть перемешивание ограничено буфером в chunkRows примеров. При одинаковом seed порядок одинаков.
+ * */
+public class StreamingDataSource implements DataSource {
+    private final RecordReader reader;
+    private final int chunkRows;
+    private final Random random;
+    private final ExecutorService prefetcher;
+    private Chunk current;
+    private Chunk idle;
+    private Future<Chunk> next;
+    private int position;
+    private boolean started;
+
+    public StreamingDataSource(RecordReader reader, int chunkRows, long seed) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("chunkRows must be positive: " + chunkRows);
+        }
+        this.reader = reader;
+        this.chunkRows = chunkRows;
+        this.random = new Random(seed);
+        this.prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "data-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idle = new Chunk(chunkRows, reader.getInputSize(), reader.getOutputSize());
+        this.current = new Chunk(chunkRows, reader.getInputSize(), reader.getOutputSize());
+    }
+
+    @Override
+    public int getInputSize() {
+        return reader.getInputSize();
+    }
+
+    @Override
+    public int getOutputSize() {
+        return reader.getOutputSize();
+    }
+
+    //reset(): Этот метод дожидается текущей предвыборки, возвращает чтение к началу файла
+    // и сразу начинает читать первый блок в фоне.
+    @Override
+    public void reset() throws IOException {
+        if (next != null) {
+            await(next);
+        }
+        reader.rewind();
+        current.rows = 0;
+        position = 0;
+        started = true;
+        next = prefetcher.submit(() -> fill(idle));
+    }
+
+    @Override
+    public int nextBatch(double[] inputs, double[] targets, int maxRows) throws IOException {
+        if (!started) {
+            reset();
+        }
+        int inputSize = reader.getInputSize();
+        int outputSize = reader.getOutputSize();
+        int count = 0;
+        while (count < maxRows) {
+            if (position == current.rows) {
+                if (next == null) {
+                    break;
+                }
+                Chunk finished = current;
+                current = await(next);
+                idle = finished;
+                position = 0;
+                next = current.rows == chunkRows ? prefetcher.submit(() -> fill(finished)) : null;
+                if (current.rows == 0) {
+                    break;
+                }
+            }
+            int row = current.order[position++];
+            System.arraycopy(current.inputs, row * inputSize, inputs, count * inputSize, inputSize);
+            System.arraycopy(current.targets, row * outputSize, targets, count * outputSize, outputSize);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        prefetcher.shutdownNow();
+        reader.close();
+    }
+
+    // fill(Chunk chunk): Этот метод выполняется в фоновом потоке: читает следующий блок и перемешивает порядок его примеров.
+    private Chunk fill(Chunk chunk) throws IOException {
+        chunk.rows = reader.read(chunk.inputs, chunk.targets, chunkRows);
+        for (int i = 0; i < chunk.rows; i++) {
+            chunk.order[i] = i;
+        }
+        for (int i = chunk.rows - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = chunk.order[i];
+            chunk.order[i] = chunk.order[j];
+            chunk.order[j] = swap;
+        }
+        return chunk;
+    }
+
+    private Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while prefetching", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Prefetch failed", e.getCause());
+        } finally {
+            if (future == next) {
+                next = null;
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final double[] inputs;
+        private final double[] targets;
+        private final int[] order;
+        private int rows;
+
+        private Chunk(int capacity, int inputSize, int outputSize) {
+            this.inputs = new double[capacity * inputSize];
+            this.targets = new double[capacity * outputSize];
+            this.order = new int[capacity];
+        }
+    }
+}
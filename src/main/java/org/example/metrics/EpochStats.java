@@ -0,0 +1,33 @@
+package org.example.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * EpochStats - это итоги одной эпохи обучения.
+ *
+ * epoch: Это номер эпохи, начиная с 1.
+ * samples: Это число примеров, пройденных за эпоху.
+ * loss: Это средний квадрат ошибки выходного слоя (target - output)^2 по всем выходам и примерам эпохи.
+ * Ошибка берется из того же прямого прохода, по которому считаются градиенты, то есть до обновления весов пакета.
+ * elapsedNanos: Это время эпохи целиком, включая перемешивание и чтение данных.
+ * forwardNanos, backwardNanos, updateNanos: Это время прямого прохода, обратного прохода (градиенты и изменения весов)
+ * и обновления весов. При обучении на нескольких потоках forwardNanos и backwardNanos - это сумма по всем исполнителям,
+ * а updateNanos - время сведения изменений весов и обновления в вызывающем потоке.
+ * */
+@Getter
+@AllArgsConstructor
+public final class EpochStats {
+    private final int epoch;
+    private final long samples;
+    private final double loss;
+    private final long elapsedNanos;
+    private final long forwardNanos;
+    private final long backwardNanos;
+    private final long updateNanos;
+
+    //getSamplesPerSecond(): Этот метод возвращает скорость обучения в примерах в секунду за эту эпоху.
+    public double getSamplesPerSecond() {
+        return elapsedNanos > 0 ? samples * 1e9 / elapsedNanos : 0.0;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * LatencyHistogram - это гистограмма задержек с фиксированными корзинами для записи из многих потоков.
+ *
+ * Корзины: Верхняя граница корзины i равна 2^i микросекунд (1 мкс, 2 мкс, ... около 16.8 с),
+ * последняя корзина собирает все, что больше. Номер корзины вычисляется одной инструкцией (numberOfLeadingZeros),
+ * а счетчики - LongAdder, поэтому record не блокирует и почти не конкурирует за кэш-линии между потоками.
+ * Счетчики не кумулятивные: getBucketCount(i) - это число значений только в корзине i.
+ * */
+public final class LatencyHistogram {
+
+    // 25 конечных корзин (до 2^24 мкс) и корзина +Inf.
+    private static final int FINITE_BUCKETS = 25;
+
+    private final LongAdder[] buckets = new LongAdder[FINITE_BUCKETS + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    //record(long nanos): Этот метод добавляет одно значение задержки в наносекундах.
+    public void record(long nanos) {
+        // Микросекунды округляются вверх, чтобы значение не попало в корзину с границей меньше него.
+        long micros = (Math.max(0, nanos) + 999) / 1000;
+        int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+        buckets[Math.min(bucket, FINITE_BUCKETS)].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    public int getBuckets() {
+        return buckets.length;
+    }
+
+    //getBucketUpperBoundNanos(int bucket): Этот метод возвращает верхнюю границу корзины
+    // или Long.MAX_VALUE для последней корзины.
+    public long getBucketUpperBoundNanos(int bucket) {
+        return bucket < FINITE_BUCKETS ? (1L << bucket) * 1000 : Long.MAX_VALUE;
+    }
+
+    public long getBucketCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.metrics;
+
+/*
+ * TrainingListener - это слушатель обучения сети (Network.addTrainingListener).
+ * onEpoch вызывается в потоке, который вызвал train, после каждой эпохи, когда веса уже обновлены.
+ * Пока слушатель работает, следующая эпоха не начинается, поэтому долгую обработку лучше передавать другому потоку.
+ * */
+@FunctionalInterface
+public interface TrainingListener {
+
+    void onEpoch(EpochStats stats);
+}
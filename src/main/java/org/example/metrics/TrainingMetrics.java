@@ -0,0 +1,38 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * TrainingMetrics - это слушатель обучения, который хранит итоги последней эпохи и общие счетчики
+ * для чтения из других потоков (например, для /metrics сервера).
+ * Последняя эпоха публикуется одной volatile-ссылкой на неизменяемый EpochStats,
+ * поэтому читатель всегда видит согласованные значения одной эпохи.
+ * */
+public final class TrainingMetrics implements TrainingListener {
+
+    private final AtomicLong epochs = new AtomicLong();
+    private final AtomicLong samples = new AtomicLong();
+    private volatile EpochStats lastEpoch;
+
+    @Override
+    public void onEpoch(EpochStats stats) {
+        epochs.incrementAndGet();
+        samples.addAndGet(stats.getSamples());
+        lastEpoch = stats;
+    }
+
+    //getEpochs(): Этот метод возвращает число эпох, завершенных за все время.
+    public long getEpochs() {
+        return epochs.get();
+    }
+
+    //getSamples(): Этот метод возвращает число примеров, пройденных за все время.
+    public long getSamples() {
+        return samples.get();
+    }
+
+    //getLastEpoch(): Этот метод возвращает итоги последней эпохи или null, если обучения еще не было.
+    public EpochStats getLastEpoch() {
+        return lastEpoch;
+    }
+}
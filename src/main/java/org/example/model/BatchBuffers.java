@@ -0,0 +1,49 @@
+package org.example.model;
+
+import lombok.Getter;
+
+/*
+ * Класс BatchBuffers содержит рабочие массивы для обучения мини-пакетами.
+ * Буферы выделяются один раз на весь процесс обучения и переиспользуются для каждого пакета.
+ *
+ * inputs и targets: Это входные данные и целевые значения пакета, уложенные построчно (по одной строке на пример).
+ *
+ * outputs и gradients: Это выходы и градиенты каждого слоя для всех примеров пакета, capacity x size слоя.
+ *
+ * weightSteps и biasSteps: Это накопленные по пакету направления спуска каждого слоя (gradient * input для весов
+ * и gradient для смещений), массивы той же формы, что и матрица весов и смещения слоя.
+ *
+ * При обучении на разреженных входах (sparseInputs) входы пакета и направления первого слоя хранит SparseBatch,
+ * поэтому inputs и weightSteps[0] не выделяются (пустые массивы): для входа шириной в десятки тысяч
+ * они заняли бы больше памяти, чем сами веса.
+ * */
+@Getter
+public class BatchBuffers {
+    private final int capacity;
+    private final double[] inputs;
+    private final double[] targets;
+    private final double[][] outputs;
+    private final double[][] gradients;
+    private final double[][] weightSteps;
+    private final double[][] biasSteps;
+
+    public BatchBuffers(DenseLayer[] layers, int capacity) {
+        this(layers, capacity, false);
+    }
+
+    public BatchBuffers(DenseLayer[] layers, int capacity, boolean sparseInputs) {
+        this.capacity = capacity;
+        this.inputs = new double[sparseInputs ? 0 : capacity * layers[0].getInputSize()];
+        this.targets = new double[capacity * layers[layers.length - 1].getSize()];
+        this.outputs = new double[layers.length][];
+        this.gradients = new double[layers.length][];
+        this.weightSteps = new double[layers.length][];
+        this.biasSteps = new double[layers.length][];
+        for (int i = 0; i < layers.length; i++) {
+            this.outputs[i] = new double[capacity * layers[i].getSize()];
+            this.gradients[i] = new double[capacity * layers[i].getSize()];
+            this.weightSteps[i] = new double[sparseInputs && i == 0 ? 0 : layers[i].getWeights().length];
+            this.biasSteps[i] = new double[layers[i].getSize()];
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.util.UUID;
 * который представляет собой связь между двумя нейронами в нейронной сети.
 * Вот что делает каждый элемент этого класса:
 * connectionId: Это уникальный идентификатор для каждого объекта Connection.
-* Он генерируется с помощью UUID.randomUUID(), который создает случайный UUID.
+* Как и neuronId, он создается лениво, при первом вызове getConnectionId().
 * from и to: Это нейроны, которые связаны этим соединением.
 * from - это нейрон, который отправляет сигнал,
 * а to - это нейрон, который получает сигнал.
@@ -32,12 +32,18 @@ public class Connection {
     private double synapticWeightDelta;
 
     public Connection(Neuron from, Neuron to) {
-        this.connectionId = UUID.randomUUID();
         this.from = from;
         this.to = to;
         this.synapticWeight = RandomGenerator.random(-2, 2);
     }
 
+    public UUID getConnectionId() {
+        if (connectionId == null) {
+            connectionId = UUID.randomUUID();
+        }
+        return connectionId;
+    }
+
     //Данный метод обновляет вес синапса в нейронной сети.
     // Вес синапса - это значение,
     // которое определяет силу связи между двумя нейронами.
@@ -0,0 +1,374 @@
+package org.example.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.example.activation.IActivationFunction;
+import org.example.optimizer.MomentumSgd;
+import org.example.optimizer.Optimizer;
+import org.example.util.MatrixKernels;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * Класс DenseLayer представляет собой полносвязный слой нейронной сети.
+ * В отличие от графа объектов Neuron/Connection, все параметры слоя хранятся в непрерывных массивах double[]:
+ *
+ * weights: Это веса слоя, матрица size x inputSize, уложенная построчно (row-major).
+ * Строка j содержит веса всех входящих связей нейрона j, поэтому вес связи k -> j лежит в weights[j * inputSize + k].
+ * Начальные веса задает схема WeightInit (UNIFORM, XAVIER или HE) из переданного генератора SplittableRandom.
+ *
+ * weightDeltas: Это первый массив состояния оптимизатора для весов, параллельный массиву weights.
+ * Для оптимизатора по умолчанию (MomentumSgd) это последние изменения весов (synapticWeightDelta),
+ * которые используются моментом при следующем обновлении. Он сохраняется в контрольной точке.
+ *
+ * biases: Это смещения нейронов слоя. Как и в Neuron, они инициализируются значением 1.0,
+ * и обновляются тем же оптимизатором, что и веса (направление для смещения нейрона j - его градиент).
+ *
+ * Состояние оптимизатора: При первом обновлении оптимизатором слой создает getStateSlots() массивов состояния
+ * для весов (первый из них - weightDeltas) и столько же для смещений. Если слой начинают обновлять другим
+ * оптимизатором, состояние создается заново. Изменения весов в weightDeltas сохраняются только для MomentumSgd,
+ * если до него слой не обновлялся другим правилом (например, после загрузки контрольной точки): для Adam, RmsProp
+ * и Nesterov это другие величины в других единицах, поэтому для них weightDeltas обнуляется.
+ *
+ * outputs и gradients: Это выходы нейронов после функции активации и градиенты ошибки,
+ * вычисленные при последнем прямом и обратном проходе.
+ *
+ * Прямой и обратный проходы - это плотные циклы умножения матрицы на вектор без обращения к отдельным объектам,
+ * что избавляет от миллионов мелких объектов и промахов кэша.
+ *
+ * Разреженные входы: Для первого слоя с разреженными входами (SparseBatch или пары номер/значение) прямой проход
+ * и обновление весов обходят только столбцы ненулевых входов, поэтому их стоимость - size * nnz вместо size * inputSize.
+ * Веса и состояние оптимизатора остальных столбцов не меняются (см. Optimizer.updateIndexed).
+ * */
+@Getter
+public class DenseLayer {
+    private static final double[] NO_VALUES = new double[0];
+    private final int inputSize;
+    private final int size;
+    private final double[] weights;
+    private final double[] weightDeltas;
+    private final double[] biases;
+    private final double[] outputs;
+    private final double[] gradients;
+    private final IActivationFunction activationFunction;
+    @Getter(AccessLevel.NONE)
+    private Optimizer optimizer;
+    @Getter(AccessLevel.NONE)
+    private double[][] weightState;
+    @Getter(AccessLevel.NONE)
+    private double[][] biasState;
+    @Getter(AccessLevel.NONE)
+    private long updates;
+
+    // Этот конструктор создает слой со случайными весами по схеме weightInit из генератора random
+    // (одинаковое состояние random дает одинаковые веса).
+    public DenseLayer(int inputSize, int size, IActivationFunction activationFunction, WeightInit weightInit,
+                      SplittableRandom random) {
+        this.inputSize = inputSize;
+        this.size = size;
+        this.activationFunction = activationFunction;
+        this.weights = new double[size * inputSize];
+        this.weightDeltas = new double[size * inputSize];
+        this.biases = new double[size];
+        this.outputs = new double[size];
+        this.gradients = new double[size];
+        weightInit.fill(weights, inputSize, size, random);
+        Arrays.fill(biases, 1.0);
+    }
+
+    // Этот конструктор восстанавливает слой из сохраненных массивов (например, из контрольной точки) без их копирования.
+    public DenseLayer(int inputSize, int size, IActivationFunction activationFunction,
+                      double[] weights, double[] weightDeltas, double[] biases) {
+        if (weights.length != size * inputSize || weightDeltas.length != weights.length || biases.length != size) {
+            throw new IllegalArgumentException("Array lengths do not match a " + size + "x" + inputSize + " layer");
+        }
+        this.inputSize = inputSize;
+        this.size = size;
+        this.activationFunction = activationFunction;
+        this.weights = weights;
+        this.weightDeltas = weightDeltas;
+        this.biases = biases;
+        this.outputs = new double[size];
+        this.gradients = new double[size];
+    }
+
+    // trainable: Копия для обучения получает изменения весов, состояние оптимизатора и буферы выходов и градиентов.
+    // Копия только для прогнозов (trainable = false) хранит лишь веса и смещения: вместо остальных массивов -
+    // пустые, поэтому ее нельзя обучать (bind бросает IllegalStateException) и вызывать forward(double[]).
+    private DenseLayer(DenseLayer source, IActivationFunction activationFunction, boolean trainable) {
+        this.inputSize = source.inputSize;
+        this.size = source.size;
+        this.activationFunction = activationFunction;
+        this.weights = source.weights.clone();
+        this.biases = source.biases.clone();
+        if (!trainable) {
+            this.weightDeltas = NO_VALUES;
+            this.outputs = NO_VALUES;
+            this.gradients = NO_VALUES;
+            return;
+        }
+        this.weightDeltas = source.weightDeltas.clone();
+        this.outputs = new double[size];
+        this.gradients = new double[size];
+        if (source.optimizer != null) {
+            this.optimizer = source.optimizer;
+            this.weightState = new double[source.weightState.length][];
+            this.biasState = new double[source.biasState.length][];
+            this.weightState[0] = this.weightDeltas;
+            for (int s = 1; s < weightState.length; s++) {
+                this.weightState[s] = source.weightState[s].clone();
+            }
+            for (int s = 0; s < biasState.length; s++) {
+                this.biasState[s] = source.biasState[s].clone();
+            }
+            this.updates = source.updates;
+        }
+    }
+
+    // copy(): Этот метод создает независимую копию слоя с теми же весами, изменениями весов, смещениями
+    // и состоянием оптимизатора. Последующее обучение исходного слоя не меняет копию.
+    public DenseLayer copy() {
+        return new DenseLayer(this, activationFunction, true);
+    }
+
+    // inferenceCopy(IActivationFunction activationFunction): Этот метод создает копию слоя только для прогнозов
+    // пакетом (forward(double[], double[], int)) с другой реализацией той же функции активации
+    // (например, с таблицей ActivationTable). Копируются только веса и смещения, без изменений весов,
+    // состояния оптимизатора и буферов обучения, поэтому снимок занимает (size * inputSize + size) * 8 байт.
+    public DenseLayer inferenceCopy(IActivationFunction activationFunction) {
+        return new DenseLayer(this, activationFunction, false);
+    }
+
+    // forward(double[] inputs): Этот метод вычисляет выходы слоя.
+    // Для каждого нейрона j берется скалярное произведение строки весов j на вектор входов,
+    // к нему добавляется смещение, а затем функция активации применяется сразу ко всему слою (apply).
+    public void forward(double[] inputs) {
+        for (int j = 0; j < size; j++) {
+            int row = j * inputSize;
+            double sum = 0.0;
+            for (int k = 0; k < inputSize; k++) {
+                sum += weights[row + k] * inputs[k];
+            }
+            outputs[j] = sum + biases[j];
+        }
+        activationFunction.apply(outputs, outputs, size);
+    }
+
+    // calculateGradients(double[] targets): Этот метод вычисляет градиенты выходного слоя
+    // на основе ошибки между целевыми значениями и выходами нейронов.
+    // Он возвращает сумму квадратов этой ошибки, которая считается в том же цикле.
+    public double calculateGradients(double[] targets) {
+        double squaredError = 0.0;
+        for (int j = 0; j < size; j++) {
+            double error = targets[j] - outputs[j];
+            gradients[j] = error;
+            squaredError += error * error;
+        }
+        activationFunction.multiplyDerivative(outputs, gradients, size);
+        return squaredError;
+    }
+
+    // calculateGradients(DenseLayer next): Этот метод вычисляет градиенты скрытого слоя.
+    // Градиенты следующего слоя умножаются на транспонированную матрицу его весов.
+    // Матрица обходится построчно, поэтому чтение весов остается последовательным.
+    public void calculateGradients(DenseLayer next) {
+        double[] nextWeights = next.weights;
+        double[] nextGradients = next.gradients;
+        int nextInputSize = next.inputSize;
+        Arrays.fill(gradients, 0.0);
+        for (int j = 0; j < next.size; j++) {
+            int row = j * nextInputSize;
+            double gradient = nextGradients[j];
+            for (int i = 0; i < size; i++) {
+                gradients[i] += gradient * nextWeights[row + i];
+            }
+        }
+        activationFunction.multiplyDerivative(outputs, gradients, size);
+    }
+
+    // updateWeights(double[] inputs, Optimizer optimizer, double lr): Этот метод обновляет веса и смещения слоя
+    // по градиентам последнего обратного прохода. Направление для веса k -> j - это gradient[j] * inputs[k],
+    // поэтому строка весов нейрона j обновляется одним вызовом optimizer.update с directions = inputs и scale = gradient[j].
+    // С MomentumSgd правило для весов то же, что и в Neuron.updateConnections.
+    public void updateWeights(double[] inputs, Optimizer optimizer, double lr) {
+        bind(optimizer);
+        long step = ++updates;
+        for (int j = 0; j < size; j++) {
+            optimizer.update(weights, weightState, j * inputSize, inputs, 0, gradients[j], inputSize, lr, step);
+        }
+        optimizer.update(biases, biasState, 0, gradients, 0, 1.0, size, lr, step);
+    }
+
+    // forward(double[] inputs, double[] outputs, int batch): Этот метод вычисляет выходы слоя сразу для пакета примеров.
+    // inputs - матрица batch x inputSize, outputs - матрица batch x size.
+    // Взвешенные суммы вычисляются одним блочным умножением матриц, после чего добавляется смещение и применяется функция активации.
+    public void forward(double[] inputs, double[] outputs, int batch) {
+        int length = batch * size;
+        Arrays.fill(outputs, 0, length, 0.0);
+        MatrixKernels.multiplyTransposed(inputs, weights, outputs, batch, size, inputSize);
+        for (int b = 0; b < batch; b++) {
+            int row = b * size;
+            for (int j = 0; j < size; j++) {
+                outputs[row + j] += biases[j];
+            }
+        }
+        activationFunction.apply(outputs, outputs, length);
+    }
+
+    // calculateGradients(double[] outputs, double[] targets, double[] gradients, int batch):
+    // Этот метод вычисляет градиенты выходного слоя для каждого примера пакета
+    // и возвращает сумму квадратов ошибки по всему пакету.
+    public double calculateGradients(double[] outputs, double[] targets, double[] gradients, int batch) {
+        int length = batch * size;
+        double squaredError = 0.0;
+        for (int i = 0; i < length; i++) {
+            double error = targets[i] - outputs[i];
+            gradients[i] = error;
+            squaredError += error * error;
+        }
+        activationFunction.multiplyDerivative(outputs, gradients, length);
+        return squaredError;
+    }
+
+    // calculateGradients(double[] outputs, DenseLayer next, double[] nextGradients, double[] gradients, int batch):
+    // Этот метод вычисляет градиенты скрытого слоя для каждого примера пакета.
+    // Градиенты следующего слоя (batch x next.size) умножаются на его матрицу весов (next.size x size).
+    public void calculateGradients(double[] outputs, DenseLayer next, double[] nextGradients, double[] gradients, int batch) {
+        int length = batch * size;
+        Arrays.fill(gradients, 0, length, 0.0);
+        MatrixKernels.multiply(nextGradients, next.weights, gradients, batch, size, next.size);
+        activationFunction.multiplyDerivative(outputs, gradients, length);
+    }
+
+    // accumulateWeightSteps(double[] inputs, double[] gradients, int batch, double[] weightSteps, double[] biasSteps):
+    // Этот метод суммирует по пакету направления спуска: gradient * input для весов (weightSteps)
+    // и gradient для смещений (biasSteps), и добавляет их к этим массивам.
+    public void accumulateWeightSteps(double[] inputs, double[] gradients, int batch, double[] weightSteps, double[] biasSteps) {
+        MatrixKernels.multiplyTransposedLeft(gradients, inputs, weightSteps, size, inputSize, batch);
+        for (int b = 0; b < batch; b++) {
+            int row = b * size;
+            for (int j = 0; j < size; j++) {
+                biasSteps[j] += gradients[row + j];
+            }
+        }
+    }
+
+    // applyWeightSteps(double[] weightSteps, double[] biasSteps, Optimizer optimizer, double lr):
+    // Этот метод выполняет одно обновление весов и смещений за пакет: по одному слитому проходу optimizer.update
+    // по всей матрице весов и по смещениям. Для пакета из одного примера правило то же, что и в updateWeights.
+    public void applyWeightSteps(double[] weightSteps, double[] biasSteps, Optimizer optimizer, double lr) {
+        bind(optimizer);
+        long step = ++updates;
+        optimizer.update(weights, weightState, 0, weightSteps, 0, 1.0, weights.length, lr, step);
+        optimizer.update(biases, biasState, 0, biasSteps, 0, 1.0, size, lr, step);
+    }
+
+    // forward(int[] indices, double[] values): Этот метод вычисляет выходы слоя для разреженного входа:
+    // ненулевые входы - это values[i] с номерами indices[i], остальные равны нулю.
+    public void forward(int[] indices, double[] values) {
+        for (int j = 0; j < size; j++) {
+            int row = j * inputSize;
+            double sum = 0.0;
+            for (int e = 0; e < indices.length; e++) {
+                sum += weights[row + indices[e]] * values[e];
+            }
+            outputs[j] = sum + biases[j];
+        }
+        activationFunction.apply(outputs, outputs, size);
+    }
+
+    // forward(SparseBatch batch, double[] outputs): Этот метод вычисляет выходы слоя для пакета разреженных входов
+    // (outputs - матрица batch.getRows() x size). Для каждого нейрона j его строка весов читается только
+    // в столбцах ненулевых входов каждого примера.
+    public void forward(SparseBatch batch, double[] outputs) {
+        int rows = batch.getRows();
+        int[] offsets = batch.getRowOffsets();
+        int[] indices = batch.getIndices();
+        double[] values = batch.getValues();
+        for (int j = 0; j < size; j++) {
+            int row = j * inputSize;
+            double bias = biases[j];
+            for (int b = 0; b < rows; b++) {
+                double sum = 0.0;
+                for (int e = offsets[b], end = offsets[b + 1]; e < end; e++) {
+                    sum += weights[row + indices[e]] * values[e];
+                }
+                outputs[b * size + j] = sum + bias;
+            }
+        }
+        activationFunction.apply(outputs, outputs, rows * size);
+    }
+
+    // accumulateWeightSteps(SparseBatch batch, double[] gradients, double[] biasSteps): Этот метод суммирует по пакету
+    // направления спуска активных столбцов (gradient * input) в batch.getColumnSteps() и направления смещений
+    // в biasSteps. В отличие от плотного варианта, массив направлений столбцов заполняется заново, а не дополняется.
+    public void accumulateWeightSteps(SparseBatch batch, double[] gradients, double[] biasSteps) {
+        int rows = batch.getRows();
+        int columnCount = batch.getColumnCount();
+        int[] offsets = batch.getRowOffsets();
+        int[] slots = batch.getEntrySlots();
+        double[] values = batch.getValues();
+        double[] steps = batch.columnSteps(size * columnCount);
+        for (int j = 0; j < size; j++) {
+            int row = j * columnCount;
+            for (int b = 0; b < rows; b++) {
+                double gradient = gradients[b * size + j];
+                for (int e = offsets[b], end = offsets[b + 1]; e < end; e++) {
+                    steps[row + slots[e]] += gradient * values[e];
+                }
+            }
+        }
+        for (int b = 0; b < rows; b++) {
+            int row = b * size;
+            for (int j = 0; j < size; j++) {
+                biasSteps[j] += gradients[row + j];
+            }
+        }
+    }
+
+    // applyWeightSteps(SparseBatch batch, double[] biasSteps, Optimizer optimizer, double lr): Этот метод выполняет
+    // одно обновление за пакет разреженных входов: в каждой строке весов обновляются только активные столбцы пакета.
+    public void applyWeightSteps(SparseBatch batch, double[] biasSteps, Optimizer optimizer, double lr) {
+        bind(optimizer);
+        long step = ++updates;
+        int columnCount = batch.getColumnCount();
+        int[] columns = batch.getColumns();
+        double[] steps = batch.getColumnSteps();
+        for (int j = 0; j < size; j++) {
+            optimizer.updateIndexed(weights, weightState, j * inputSize, columns, steps, j * columnCount, 1.0,
+                    columnCount, lr, step);
+        }
+        optimizer.update(biases, biasState, 0, biasSteps, 0, 1.0, size, lr, step);
+    }
+
+    // hasMomentumDeltas(): Этот метод проверяет, содержит ли weightDeltas изменения весов MomentumSgd
+    // (или нули), а не состояние другого оптимизатора. Только такие изменения записываются в контрольную точку.
+    public boolean hasMomentumDeltas() {
+        return optimizer == null || optimizer instanceof MomentumSgd;
+    }
+
+    // bind: Этот метод создает массивы состояния для optimizer, если слой еще не обновлялся им.
+    private void bind(Optimizer optimizer) {
+        if (this.optimizer == optimizer) {
+            return;
+        }
+        if (weightDeltas.length != weights.length) {
+            throw new IllegalStateException("Inference copy of a layer cannot be trained");
+        }
+        int slots = optimizer.getStateSlots();
+        double[][] weightState = new double[slots][];
+        double[][] biasState = new double[slots][];
+        for (int s = 0; s < slots; s++) {
+            weightState[s] = s == 0 ? weightDeltas : new double[weights.length];
+            biasState[s] = new double[size];
+        }
+        if (!(optimizer instanceof MomentumSgd) || !hasMomentumDeltas()) {
+            Arrays.fill(weightDeltas, 0.0);
+        }
+        this.optimizer = optimizer;
+        this.weightState = weightState;
+        this.biasState = biasState;
+        this.updates = 0;
+    }
+}
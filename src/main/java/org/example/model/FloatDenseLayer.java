@@ -0,0 +1,67 @@
+package org.example.model;
+
+import lombok.Getter;
+import org.example.activation.IActivationFunction;
+import org.example.util.MatrixKernels;
+
+import java.util.Arrays;
+
+/*
+ * Класс FloatDenseLayer - это полносвязный слой в одинарной точности (Precision.FLOAT), только для прямого прохода.
+ * Он создается из обученного DenseLayer: веса и смещения округляются до float,
+ * а изменения весов (weightDeltas), выходы и градиенты не хранятся, так как для прогнозов они не нужны.
+ *
+ * weights: Это транспонированная матрица весов DenseLayer, inputSize x size, уложенная построчно:
+ * вес связи k -> j лежит в weights[k * size + j]. Поэтому прямой проход - это умножение матриц MatrixKernels.multiply,
+ * внутренний цикл которого векторизуется JIT-компилятором.
+ * */
+@Getter
+public class FloatDenseLayer {
+    private final int inputSize;
+    private final int size;
+    private final float[] weights;
+    private final float[] biases;
+    private final IActivationFunction activationFunction;
+
+    public FloatDenseLayer(DenseLayer layer) {
+        this(layer, layer.getActivationFunction());
+    }
+
+    // Этот конструктор заменяет функцию активации слоя другой реализацией той же функции (например, ActivationTable).
+    public FloatDenseLayer(DenseLayer layer, IActivationFunction activationFunction) {
+        this.inputSize = layer.getInputSize();
+        this.size = layer.getSize();
+        this.activationFunction = activationFunction;
+        this.weights = transpose(layer.getWeights(), size, inputSize);
+        this.biases = new float[size];
+        for (int j = 0; j < size; j++) {
+            biases[j] = (float) layer.getBiases()[j];
+        }
+    }
+
+    // forward(float[] inputs, float[] outputs, int batch): Этот метод вычисляет выходы слоя для пакета примеров,
+    // так же как DenseLayer.forward(double[], double[], int).
+    public void forward(float[] inputs, float[] outputs, int batch) {
+        int length = batch * size;
+        Arrays.fill(outputs, 0, length, 0.0f);
+        MatrixKernels.multiply(inputs, weights, outputs, batch, size, inputSize);
+        for (int b = 0; b < batch; b++) {
+            int row = b * size;
+            for (int j = 0; j < size; j++) {
+                outputs[row + j] += biases[j];
+            }
+        }
+        activationFunction.apply(outputs, outputs, length);
+    }
+
+    // transpose: Этот метод округляет матрицу rows x columns до float и транспонирует ее в columns x rows.
+    private static float[] transpose(double[] values, int rows, int columns) {
+        float[] transposed = new float[values.length];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                transposed[c * rows + r] = (float) values[r * columns + c];
+            }
+        }
+        return transposed;
+    }
+}
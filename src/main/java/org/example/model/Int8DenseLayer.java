@@ -0,0 +1,98 @@
+package org.example.model;
+
+import lombok.Getter;
+import org.example.activation.IActivationFunction;
+import org.example.util.MatrixKernels;
+
+import java.util.Arrays;
+
+/*
+ * Класс Int8DenseLayer - это квантованный полносвязный слой (Precision.INT8), только для прямого прохода.
+ * Он создается из обученного DenseLayer без дообучения (post-training quantization).
+ *
+ * weights: Это транспонированная матрица весов, inputSize x size, как в FloatDenseLayer, но в int8:
+ * вес связи k -> j хранится как weights[k * size + j] = round(w / weightScales[j]) в диапазоне [-127, 127].
+ *
+ * weightScales: Это масштаб каждого нейрона (строки исходной матрицы): max |w| по его входящим связям, деленный на 127.
+ * Отдельный масштаб на нейрон, а не на весь слой, не дает одному большому весу огрубить веса остальных нейронов.
+ *
+ * Прямой проход: Входы каждого примера квантуются так же, с одним масштабом на пример (max |x| / 127).
+ * Скалярные произведения int8 накапливаются в int32 (MatrixKernels.multiply для byte[]),
+ * затем сумма умножается на оба масштаба, к ней добавляется смещение во float,
+ * и функция активации применяется уже к float-значениям, как в FloatDenseLayer.
+ * */
+@Getter
+public class Int8DenseLayer {
+    private static final float MAX_QUANTIZED = 127.0f;
+
+    private final int inputSize;
+    private final int size;
+    private final byte[] weights;
+    private final float[] weightScales;
+    private final float[] biases;
+    private final IActivationFunction activationFunction;
+
+    public Int8DenseLayer(DenseLayer layer) {
+        this(layer, layer.getActivationFunction());
+    }
+
+    // Этот конструктор заменяет функцию активации слоя другой реализацией той же функции (например, ActivationTable).
+    public Int8DenseLayer(DenseLayer layer, IActivationFunction activationFunction) {
+        this.inputSize = layer.getInputSize();
+        this.size = layer.getSize();
+        this.activationFunction = activationFunction;
+        this.weights = new byte[inputSize * size];
+        this.weightScales = new float[size];
+        this.biases = new float[size];
+        double[] source = layer.getWeights();
+        for (int j = 0; j < size; j++) {
+            int row = j * inputSize;
+            double max = 0.0;
+            for (int k = 0; k < inputSize; k++) {
+                max = Math.max(max, Math.abs(source[row + k]));
+            }
+            double scale = max / MAX_QUANTIZED;
+            double inverse = scale == 0.0 ? 0.0 : 1.0 / scale;
+            for (int k = 0; k < inputSize; k++) {
+                weights[k * size + j] = (byte) Math.round(source[row + k] * inverse);
+            }
+            weightScales[j] = (float) scale;
+            biases[j] = (float) layer.getBiases()[j];
+        }
+    }
+
+    // forward(float[] inputs, float[] outputs, int batch, byte[] quantized, float[] inputScales, int[] sums):
+    // Этот метод вычисляет выходы слоя для пакета примеров.
+    // quantized (batch x inputSize), inputScales (batch) и sums (batch x size) - рабочие буферы вызывающего кода.
+    public void forward(float[] inputs, float[] outputs, int batch, byte[] quantized, float[] inputScales, int[] sums) {
+        quantize(inputs, quantized, inputScales, batch, inputSize);
+        int length = batch * size;
+        Arrays.fill(sums, 0, length, 0);
+        MatrixKernels.multiply(quantized, weights, sums, batch, size, inputSize);
+        for (int b = 0; b < batch; b++) {
+            int row = b * size;
+            float inputScale = inputScales[b];
+            for (int j = 0; j < size; j++) {
+                outputs[row + j] = sums[row + j] * inputScale * weightScales[j] + biases[j];
+            }
+        }
+        activationFunction.apply(outputs, outputs, length);
+    }
+
+    // quantize: Этот метод квантует каждую из rows строк values в int8 с собственным масштабом max |x| / 127.
+    private static void quantize(float[] values, byte[] quantized, float[] scales, int rows, int columns) {
+        for (int r = 0; r < rows; r++) {
+            int row = r * columns;
+            float max = 0.0f;
+            for (int c = 0; c < columns; c++) {
+                max = Math.max(max, Math.abs(values[row + c]));
+            }
+            float scale = max / MAX_QUANTIZED;
+            float inverse = scale == 0.0f ? 0.0f : 1.0f / scale;
+            for (int c = 0; c < columns; c++) {
+                quantized[row + c] = (byte) Math.round(values[row + c] * inverse);
+            }
+            scales[r] = scale;
+        }
+    }
+}
@@ -10,7 +10,8 @@ import java.util.UUID;
 /*
 * Класс Neuron представляет собой нейрон в нейронной сети. Вот что делает каждый элемент этого класса:
 * neuronId: Это уникальный идентификатор для каждого объекта Neuron.
-* Он генерируется с помощью UUID.randomUUID(), который создает случайный UUID.
+* Он создается лениво, при первом вызове getNeuronId(): UUID.randomUUID() использует SecureRandom,
+* который медленный и может ждать энтропию, а большинству нейронов идентификатор не нужен.
 *
 * incomingConnections и outgoingConnections: Это списки входящих и исходящих соединений для этого нейрона.
 * Входящие соединения - это соединения от других нейронов к этому нейрону, а исходящие соединения - это соединения от этого нейрона к другим нейронам.
@@ -45,7 +46,6 @@ public class Neuron {
     private IActivationFunction activationFunction;
 
     public Neuron() {
-        this.neuronId = UUID.randomUUID();
         this.incomingConnections = new ArrayList<>();
         this.outgoingConnections = new ArrayList<>();
         this.bias = 1.0;
@@ -61,6 +61,13 @@ public class Neuron {
         }
     }
 
+    public UUID getNeuronId() {
+        if (neuronId == null) {
+            neuronId = UUID.randomUUID();
+        }
+        return neuronId;
+    }
+
     public void calculateOutput() {
         this.outputBeforeActivation = 0.0;
         for (Connection connection : incomingConnections) {
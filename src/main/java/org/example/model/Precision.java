@@ -0,0 +1,38 @@
+package org.example.model;
+
+/*
+ * Precision - это точность чисел, в которой хранятся веса и вычисляются прогнозы.
+ *
+ * DOUBLE: Это float64. Обучение всегда выполняется в этой точности.
+ * FLOAT: Это float32. Снимок сети для прогнозов (InferenceSession) хранит веса, смещения и промежуточные выходы
+ * в float[], поэтому занимает вдвое меньше памяти, чем снимок DOUBLE (оба хранят только веса и смещения).
+ * Векторные ядра умножения матриц (VectorMatrixKernels) и функций активации обрабатывают во float вдвое больше элементов за операцию.
+ * Входы и выходы прогноза остаются double[], поэтому вызывающий код не меняется.
+ *
+ * Точность FLOAT относительно DOUBLE (PrecisionReport: сеть 784x512x10 с исходной инициализацией весов, 512 примеров).
+ * Относительная ошибка - для выходов не меньше 1e-3 по модулю; argmax - совпадение класса с наибольшим выходом
+ * среди примеров, у которых два наибольших выхода в double различаются больше чем на 1e-6.
+ * функция       max |float - double|   среднее |float - double|   max отн. ошибка   argmax
+ * SIGMOID       5.4e-6                 1.3e-7                     2.6e-5            все
+ * TANH          5.5e-5                 5.1e-7                     2.9e-3            все
+ * SWISH         9.5e-4                 4.8e-5                     4.3e-4            все
+ * LEAKY_RELU    1.3e-3                 1.1e-4                     7.3e-4            все
+ * Выходы SWISH и LEAKY_RELU при этой инициализации достигают сотен, поэтому их абсолютная ошибка больше.
+ * Прогноз пакета из 64 строк с jdk.incubator.vector: около 300 мкс на строку в DOUBLE и около 50 мкс во FLOAT.
+ *
+ * INT8: Это квантование обученной сети после обучения (Int8DenseLayer): веса хранятся в int8 с масштабом на каждый нейрон,
+ * входы слоя квантуются с масштабом на каждый пример, скалярные произведения накапливаются в int32,
+ * а перед функцией активации результат переводится обратно во float. Веса занимают в восемь раз меньше памяти,
+ * чем double[] весов снимка DOUBLE, и вчетверо меньше, чем float[] снимка FLOAT.
+ * Сеть 784x512x10 (InferenceSession.getParameterBytes): снимок DOUBLE занимает 3.3 МБ, FLOAT - 1.6 МБ, INT8 - 0.41 МБ.
+ * Прогноз пакета из 64 строк с jdk.incubator.vector - около 45 мкс на строку против 50-55 во FLOAT
+ * (квантование входов слоев тоже занимает время).
+ *
+ * Потеря точности на отложенной выборке (QuantizationReport: сеть 32x64x4, 50 эпох, 4096 обучающих и 1024 отложенных примера).
+ * функция    accuracy DOUBLE   accuracy INT8   совпадение класса с DOUBLE   max |int8 - double|
+ * SIGMOID    90.5%             90.4%           99.1%                        4.8e-2
+ * TANH       78.1%             77.9%           99.0%                        4.0e-2
+ * */
+public enum Precision {
+    DOUBLE, FLOAT, INT8
+}
@@ -0,0 +1,107 @@
+package org.example.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/*
+ * Класс SparseBatch содержит разреженные входы одного мини-пакета и рабочие массивы первого слоя для них.
+ * Как и BatchBuffers, он создается один раз на обучение и переиспользуется для каждого пакета.
+ *
+ * rowOffsets, indices и values: Это входы пакета в формате CSR: ненулевые входы примера b - это
+ * indices[e] и values[e] для e от rowOffsets[b] до rowOffsets[b + 1] - 1.
+ *
+ * columns: Это номера входов, которые ненулевые хотя бы в одном примере пакета (активные столбцы), по возрастанию;
+ * их columnCount. entrySlots[e] - позиция входа indices[e] в columns.
+ * Только эти столбцы матрицы весов первого слоя участвуют в прямом проходе и обновляются.
+ *
+ * columnSteps: Это направления спуска активных столбцов, матрица size x columnCount (строка j - нейрон j).
+ *
+ * Подготовка пакета (finish) стоит O(nnz log nnz) и не зависит от inputSize: отметки столбцов (slots) после пакета
+ * сбрасываются только для активных столбцов.
+ * */
+@Getter
+public class SparseBatch {
+    private final int capacity;
+    private final int[] rowOffsets;
+    private int rows;
+    private int[] indices;
+    private double[] values;
+    private int[] entrySlots;
+    private int[] columns;
+    private int columnCount;
+    @Getter(AccessLevel.PACKAGE)
+    private double[] columnSteps = new double[0];
+    @Getter(AccessLevel.NONE)
+    private final int[] slots;
+
+    public SparseBatch(int inputSize, int capacity) {
+        this.capacity = capacity;
+        this.rowOffsets = new int[capacity + 1];
+        this.indices = new int[capacity * 16];
+        this.values = new double[indices.length];
+        this.entrySlots = new int[indices.length];
+        this.columns = new int[indices.length];
+        this.slots = new int[inputSize];
+        Arrays.fill(slots, -1);
+    }
+
+    //clear(): Этот метод начинает новый пакет.
+    public void clear() {
+        for (int c = 0; c < columnCount; c++) {
+            slots[columns[c]] = -1;
+        }
+        rows = 0;
+        columnCount = 0;
+    }
+
+    //addRow(int[] rowIndices, double[] rowValues): Этот метод добавляет в пакет пример с ненулевыми входами
+    // rowIndices и значениями rowValues.
+    public void addRow(int[] rowIndices, double[] rowValues) {
+        if (rows == capacity) {
+            throw new IllegalStateException("Batch is full: " + capacity + " rows");
+        }
+        int start = rowOffsets[rows];
+        int end = start + rowIndices.length;
+        if (end > indices.length) {
+            int length = Math.max(end, indices.length * 2);
+            indices = Arrays.copyOf(indices, length);
+            values = Arrays.copyOf(values, length);
+            entrySlots = Arrays.copyOf(entrySlots, length);
+            columns = Arrays.copyOf(columns, length);
+        }
+        System.arraycopy(rowIndices, 0, indices, start, rowIndices.length);
+        System.arraycopy(rowValues, 0, values, start, rowValues.length);
+        for (int k : rowIndices) {
+            if (slots[k] < 0) {
+                slots[k] = 0;
+                columns[columnCount++] = k;
+            }
+        }
+        rowOffsets[++rows] = end;
+    }
+
+    //finish(): Этот метод упорядочивает активные столбцы и находит позицию каждого ненулевого входа среди них.
+    // Столбцы по возрастанию дают последовательный проход по строке весов при обновлении.
+    public void finish() {
+        Arrays.sort(columns, 0, columnCount);
+        for (int c = 0; c < columnCount; c++) {
+            slots[columns[c]] = c;
+        }
+        int nonZeros = rowOffsets[rows];
+        for (int e = 0; e < nonZeros; e++) {
+            entrySlots[e] = slots[indices[e]];
+        }
+    }
+
+    //columnSteps(int length): Этот метод возвращает обнуленный массив направлений активных столбцов не короче length.
+    double[] columnSteps(int length) {
+        if (columnSteps.length < length) {
+            columnSteps = new double[Math.max(length, columnSteps.length * 2)];
+        } else {
+            Arrays.fill(columnSteps, 0, length, 0.0);
+        }
+        return columnSteps;
+    }
+}
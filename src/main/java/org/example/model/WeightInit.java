@@ -0,0 +1,53 @@
+package org.example.model;
+
+import org.example.activation.ActivationFunction;
+
+import java.util.SplittableRandom;
+
+/*
+ * WeightInit - это схема начальной инициализации весов слоя.
+ * Веса заполняются одним проходом по массиву слоя из переданного SplittableRandom, поэтому при одинаковом
+ * состоянии генератора слой получает одинаковые веса, а заполнение миллионов весов занимает миллисекунды.
+ * Смещения всегда инициализируются значением 1.0 (см. DenseLayer).
+ *
+ * UNIFORM: Это равномерное распределение на [-2, 2), исходная инициализация сети.
+ * XAVIER: Это равномерная инициализация Глоро (Glorot, Bengio, 2010) на [-a, a), a = sqrt(6 / (fanIn + fanOut)).
+ * Подходит для насыщающихся функций активации SIGMOID и TANH.
+ * HE: Это равномерная инициализация Хе (He et al., 2015) на [-a, a), a = sqrt(6 / fanIn).
+ * Подходит для LEAKY_RELU и SWISH, которые пропускают примерно половину сигнала.
+ *
+ * forActivation(ActivationFunction function) выбирает XAVIER или HE по функции активации слоя;
+ * так сеть инициализирует слои, если схема не задана явно (Network.setWeightInit).
+ * */
+public enum WeightInit {
+    UNIFORM, XAVIER, HE;
+
+    //forActivation(ActivationFunction function): Этот метод возвращает схему, подходящую для функции активации.
+    public static WeightInit forActivation(ActivationFunction function) {
+        return switch (function) {
+            case SIGMOID, TANH -> XAVIER;
+            case LEAKY_RELU, SWISH -> HE;
+        };
+    }
+
+    //limit(int fanIn, int fanOut): Этот метод возвращает границу a интервала [-a, a), из которого выбираются веса.
+    public double limit(int fanIn, int fanOut) {
+        return switch (this) {
+            case UNIFORM -> 2.0;
+            case XAVIER -> Math.sqrt(6.0 / (fanIn + fanOut));
+            case HE -> Math.sqrt(6.0 / fanIn);
+        };
+    }
+
+    //fill(double[] weights, int fanIn, int fanOut, SplittableRandom random): Этот метод заполняет массив весов слоя
+    // с fanIn входами и fanOut нейронами.
+    // Веса получаются как nextDouble() * 2a - a: это заметно быстрее nextDouble(-a, a), который проверяет границы
+    // на каждый вызов.
+    public void fill(double[] weights, int fanIn, int fanOut, SplittableRandom random) {
+        double limit = limit(fanIn, fanOut);
+        double width = 2.0 * limit;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextDouble() * width - limit;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.data.MLDataSet;
+import org.example.metrics.EpochStats;
+import org.example.metrics.TrainingListener;
+import org.example.model.DenseLayer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * EarlyStopping - это ранняя остановка обучения по ошибке на отложенной (валидационной) выборке.
+ *
+ * Снимок весов: После каждой эпохи (onEpoch, в потоке обучения) слои сети копируются (Network.copyLayers),
+ * и обучение сразу продолжается. Ошибка на validation считается по этой копии в отдельном фоновом потоке,
+ * поэтому оценка не задерживает обучение. Если фоновый поток не успевает, в очереди держится только последний снимок:
+ * непроверенный снимок более ранней эпохи заменяется новым, так что память не растет.
+ *
+ * Ошибка: Это средний квадрат ошибки (target - output)^2 по всем выходам и примерам validation, как loss в EpochStats.
+ * Прямой проход выполняется пакетами по EVALUATION_BATCH примеров блочным умножением матриц (DenseLayer.forward).
+ *
+ * Остановка: Ошибка считается улучшенной, если она меньше лучшей хотя бы на minDelta. Тогда снимок этой эпохи
+ * сохраняется как лучший. Если с эпохи лучшего снимка прошло patience эпох без улучшения, вызывается
+ * Network.stopTraining(), и обучение заканчивается на ближайшей границе эпохи.
+ * Так как оценка идет параллельно, к этому моменту сеть может успеть пройти еще одну-две эпохи.
+ *
+ * Лучшие веса: После обучения нужно дождаться оценок (awaitEvaluations), после чего лучшие веса можно вернуть в сеть
+ * (restoreBestWeights) или записать в контрольную точку (saveBest).
+ * Номера эпох и лучшая ошибка относятся к одному вызову train, поэтому для каждого обучения нужен новый объект.
+ *
+ * Пример:
+ * MLDataSet[] parts = set.split(0.1, 42);
+ * try (EarlyStopping stopping = new EarlyStopping(network, parts[1], 5, 1e-4)) {
+ *     network.train(parts[0], 1000, 32);
+ *     stopping.awaitEvaluations();
+ *     stopping.restoreBestWeights();
+ * }
+ * */
+public final class EarlyStopping implements TrainingListener, AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(EarlyStopping.class);
+    private static final int EVALUATION_BATCH = 256;
+
+    private final Network network;
+    private final MLDataSet validation;
+    private final int patience;
+    private final double minDelta;
+    private final ExecutorService evaluator;
+    private final AtomicReference<Snapshot> queued = new AtomicReference<>();
+    private double[] batchInputs;
+    private double[][] batchOutputs;
+    private DenseLayer[] bestLayers;
+    private int bestEpoch;
+    private double bestLoss = Double.POSITIVE_INFINITY;
+    private int lastEpoch;
+    private double lastLoss = Double.NaN;
+
+    //EarlyStopping: Этот конструктор подписывает раннюю остановку на эпохи network (addTrainingListener).
+    // patience: Это число эпох без улучшения, после которого обучение останавливается.
+    // minDelta: Это минимальное уменьшение ошибки, которое считается улучшением.
+    public EarlyStopping(Network network, MLDataSet validation, int patience, double minDelta) {
+        if (patience < 1) {
+            throw new IllegalArgumentException("patience must be positive: " + patience);
+        }
+        if (minDelta < 0.0) {
+            throw new IllegalArgumentException("minDelta must not be negative: " + minDelta);
+        }
+        if (validation.getInputs().length == 0) {
+            throw new IllegalArgumentException("Validation set is empty");
+        }
+        this.network = network;
+        this.validation = validation;
+        this.patience = patience;
+        this.minDelta = minDelta;
+        this.evaluator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "early-stopping-evaluator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        network.addTrainingListener(this);
+    }
+
+    @Override
+    public void onEpoch(EpochStats stats) {
+        Snapshot snapshot = new Snapshot(stats.getEpoch(), network.copyLayers());
+        // Задача оценки ставится, только если очередь была пуста: иначе уже поставленная задача возьмет новый снимок.
+        if (queued.getAndSet(snapshot) == null) {
+            evaluator.execute(this::evaluateQueued);
+        }
+    }
+
+    //awaitEvaluations(): Этот метод ждет, пока будут оценены все снимки, поставленные в очередь до его вызова.
+    public void awaitEvaluations() throws InterruptedException {
+        try {
+            evaluator.submit(() -> {
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation failed", e.getCause());
+        }
+    }
+
+    public synchronized int getBestEpoch() {
+        return bestEpoch;
+    }
+
+    public synchronized double getBestLoss() {
+        return bestLoss;
+    }
+
+    public synchronized int getLastEpoch() {
+        return lastEpoch;
+    }
+
+    public synchronized double getLastLoss() {
+        return lastLoss;
+    }
+
+    //restoreBestWeights(): Этот метод заменяет веса сети лучшими сохраненными весами.
+    // Вызывать его нужно после окончания обучения и awaitEvaluations.
+    public synchronized void restoreBestWeights() {
+        network.restoreLayers(requireBest());
+    }
+
+    //saveBest(Path path): Этот метод записывает лучшие веса в контрольную точку (см. ModelCheckpoint).
+    public synchronized void saveBest(Path path) throws IOException {
+        ModelCheckpoint.write(path, network.checkpoint(requireBest()));
+    }
+
+    //close(): Этот метод отписывается от эпох сети и останавливает фоновый поток.
+    // Оценки, которые еще не начались, отменяются.
+    @Override
+    public void close() {
+        network.removeTrainingListener(this);
+        evaluator.shutdownNow();
+    }
+
+    private DenseLayer[] requireBest() {
+        if (bestLayers == null) {
+            throw new IllegalStateException("No epoch has been evaluated");
+        }
+        return bestLayers;
+    }
+
+    private void evaluateQueued() {
+        Snapshot snapshot = queued.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        double loss;
+        try {
+            loss = validationLoss(snapshot.layers);
+        } catch (RuntimeException e) {
+            logger.error("Validation of epoch " + snapshot.epoch + " failed", e);
+            return;
+        }
+        boolean stop;
+        String message;
+        synchronized (this) {
+            lastEpoch = snapshot.epoch;
+            lastLoss = loss;
+            if (loss < bestLoss - minDelta) {
+                bestLoss = loss;
+                bestEpoch = snapshot.epoch;
+                bestLayers = snapshot.layers;
+            }
+            stop = snapshot.epoch - bestEpoch >= patience;
+            message = "Epoch " + snapshot.epoch + " validation loss " + loss
+                    + " (best " + bestLoss + " at epoch " + bestEpoch + ")";
+        }
+        logger.info(message);
+        if (stop) {
+            network.stopTraining();
+        }
+    }
+
+    // validationLoss: Этот метод считает средний квадрат ошибки слоев layers на validation.
+    // Буферы пакета создаются при первой оценке и затем переиспользуются (оценки идут в одном потоке).
+    private double validationLoss(DenseLayer[] layers) {
+        if (batchInputs == null) {
+            batchInputs = new double[EVALUATION_BATCH * layers[0].getInputSize()];
+            batchOutputs = new double[layers.length][];
+            for (int i = 0; i < layers.length; i++) {
+                batchOutputs[i] = new double[EVALUATION_BATCH * layers[i].getSize()];
+            }
+        }
+        double[][] inputs = validation.getInputs();
+        double[][] targets = validation.getTargets();
+        double[][] outputs = batchOutputs;
+        int inputSize = layers[0].getInputSize();
+        int outputSize = layers[layers.length - 1].getSize();
+        double squaredError = 0.0;
+        for (int start = 0; start < inputs.length; start += EVALUATION_BATCH) {
+            int count = Math.min(EVALUATION_BATCH, inputs.length - start);
+            for (int b = 0; b < count; b++) {
+                System.arraycopy(inputs[start + b], 0, batchInputs, b * inputSize, inputSize);
+            }
+            double[] current = batchInputs;
+            for (int i = 0; i < layers.length; i++) {
+                layers[i].forward(current, outputs[i], count);
+                current = outputs[i];
+            }
+            for (int b = 0; b < count; b++) {
+                double[] target = targets[start + b];
+                int row = b * outputSize;
+                for (int j = 0; j < outputSize; j++) {
+                    double error = target[j] - current[row + j];
+                    squaredError += error * error;
+                }
+            }
+        }
+        return squaredError / ((double) inputs.length * outputSize);
+    }
+
+    private static final class Snapshot {
+        private final int epoch;
+        private final DenseLayer[] layers;
+
+        private Snapshot(int epoch, DenseLayer[] layers) {
+            this.epoch = epoch;
+            this.layers = layers;
+        }
+    }
+}
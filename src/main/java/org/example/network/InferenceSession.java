@@ -0,0 +1,290 @@
+package org.example.network;
+
+import org.example.activation.IActivationFunction;
+import org.example.activation.kernel.ActivationTable;
+import org.example.model.DenseLayer;
+import org.example.model.FloatDenseLayer;
+import org.example.model.Int8DenseLayer;
+import org.example.model.Precision;
+
+import java.util.Arrays;
+
+/*
+ * InferenceSession: Это неизменяемый снимок обученной сети, предназначенный только для получения прогнозов.
+ * Снимок создается методом Network.newInferenceSession() и содержит собственные копии весов и смещений,
+ * поэтому дальнейшее обучение сети на него не влияет.
+ *
+ * Точность: Снимок в точности Precision.DOUBLE хранит копии весов и смещений слоев (DenseLayer.inferenceCopy)
+ * без изменений весов, состояния оптимизатора и буферов обучения. Снимок в точности Precision.FLOAT
+ * хранит только веса и смещения в float[] (FloatDenseLayer) и вычисляет прямой проход в одинарной точности.
+ * Входы и выходы predict в обоих случаях - double[]: входы округляются до float в рабочих буферах,
+ * а выходы последнего слоя расширяются обратно до double.
+ * Снимок в точности Precision.INT8 хранит квантованные веса (Int8DenseLayer) и вычисляет скалярные произведения в int8
+ * с накоплением в int32. Выходы слоев между ними хранятся во float[], как в снимке FLOAT.
+ * getParameterBytes() возвращает объем весов и смещений снимка в байтах, а getRetainedBytes() - весь объем массивов,
+ * которые снимок удерживает в памяти (вместе с таблицами ActivationTable).
+ *
+ * Таблицы активации: Если сеть создает снимок с таблицами (Network.setActivationTables), функции SIGMOID, TANH и SWISH
+ * слоев снимка вычисляются по таблицам ActivationTable в любой точности; ошибка каждого выхода слоя
+ * ограничена ActivationTable.getMaxError.
+ *
+ * Потокобезопасность: Веса снимка только читаются, а промежуточные выходы слоев хранятся не в слоях,
+ * а в рабочих буферах (Scratch), у каждого вызова или потока своих.
+ * Поэтому один снимок можно вызывать одновременно из любого числа потоков без блокировок.
+ *
+ * predict(double… inputs): Этот метод выделяет буферы на каждый вызов. Он подходит для любых потоков, в том числе виртуальных.
+ * predict(double[] inputs, double[] outputs): Этот метод использует буферы текущего потока (ThreadLocal)
+ * и ничего не выделяет после первого вызова в потоке.
+ * predict(double[] inputs, double[] outputs, Scratch scratch): Этот метод использует буферы вызывающего кода.
+ * Его стоит использовать с виртуальными потоками, где ThreadLocal создавался бы заново для каждого потока.
+ * predict(double[] inputs, double[] outputs, int count, Scratch scratch): Этот метод выполняет прямой проход сразу
+ * для count примеров, уложенных построчно, блочным умножением матриц.
+ * */
+public final class InferenceSession {
+
+    private final Precision precision;
+    private final DenseLayer[] layers;
+    private final FloatDenseLayer[] floatLayers;
+    private final Int8DenseLayer[] int8Layers;
+    private final int[] layerSizes;
+    private final long tableBytes;
+    private final ThreadLocal<Scratch> threadScratch;
+
+    InferenceSession(DenseLayer[] layers, Precision precision) {
+        this(layers, precision, activationFunctions(layers));
+    }
+
+    // activationFunctions: Это функции активации слоев снимка, по одной на слой
+    // (например, таблицы ActivationTable вместо точных функций слоев).
+    InferenceSession(DenseLayer[] layers, Precision precision, IActivationFunction[] activationFunctions) {
+        this.precision = precision;
+        this.layerSizes = new int[layers.length + 1];
+        this.layerSizes[0] = layers[0].getInputSize();
+        for (int i = 0; i < layers.length; i++) {
+            this.layerSizes[i + 1] = layers[i].getSize();
+        }
+        if (precision == Precision.FLOAT) {
+            this.layers = null;
+            this.int8Layers = null;
+            this.floatLayers = new FloatDenseLayer[layers.length];
+            for (int i = 0; i < layers.length; i++) {
+                this.floatLayers[i] = new FloatDenseLayer(layers[i], activationFunctions[i]);
+            }
+        } else if (precision == Precision.INT8) {
+            this.layers = null;
+            this.floatLayers = null;
+            this.int8Layers = new Int8DenseLayer[layers.length];
+            for (int i = 0; i < layers.length; i++) {
+                this.int8Layers[i] = new Int8DenseLayer(layers[i], activationFunctions[i]);
+            }
+        } else {
+            this.floatLayers = null;
+            this.int8Layers = null;
+            this.layers = new DenseLayer[layers.length];
+            for (int i = 0; i < layers.length; i++) {
+                this.layers[i] = layers[i].inferenceCopy(activationFunctions[i]);
+            }
+        }
+        long tableBytes = 0;
+        for (IActivationFunction function : activationFunctions) {
+            if (function instanceof ActivationTable table) {
+                tableBytes += table.getTableBytes();
+            }
+        }
+        this.tableBytes = tableBytes;
+        this.threadScratch = ThreadLocal.withInitial(this::newScratch);
+    }
+
+    private static IActivationFunction[] activationFunctions(DenseLayer[] layers) {
+        IActivationFunction[] functions = new IActivationFunction[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            functions[i] = layers[i].getActivationFunction();
+        }
+        return functions;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    public int getInputSize() {
+        return layerSizes[0];
+    }
+
+    public int getOutputSize() {
+        return layerSizes[layerSizes.length - 1];
+    }
+
+    //getParameterBytes(): Этот метод возвращает объем весов и смещений снимка в байтах
+    // (для INT8 - вместе с масштабами строк весов).
+    public long getParameterBytes() {
+        long bytes = 0;
+        for (int i = 1; i < layerSizes.length; i++) {
+            long weights = (long) layerSizes[i - 1] * layerSizes[i];
+            long biases = layerSizes[i];
+            if (precision == Precision.FLOAT) {
+                bytes += (weights + biases) * Float.BYTES;
+            } else if (precision == Precision.INT8) {
+                bytes += weights + 2 * biases * Float.BYTES;
+            } else {
+                bytes += (weights + biases) * Double.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    //getRetainedBytes(): Этот метод возвращает объем массивов, которые снимок удерживает в памяти: весов и смещений
+    // (getParameterBytes) и таблиц функций активации, если снимок создан с ними (Network.setActivationTables).
+    // Таблицы создаются для каждого снимка заново, поэтому тоже считаются. Рабочие буферы Scratch принадлежат вызовам
+    // и потокам и не считаются; заголовки объектов и массивов (десятки байт на слой) тоже.
+    public long getRetainedBytes() {
+        return getParameterBytes() + tableBytes;
+    }
+
+    //newScratch(): Этот метод создает рабочие буферы для выходов промежуточных слоев этого снимка.
+    // Буферы можно переиспользовать между вызовами, но не между одновременно работающими потоками.
+    public Scratch newScratch() {
+        return new Scratch(layerSizes, precision, 1);
+    }
+
+    //newScratch(int capacity): Этот метод создает рабочие буферы для пакетов до capacity примеров.
+    public Scratch newScratch(int capacity) {
+        return new Scratch(layerSizes, precision, capacity);
+    }
+
+    public double[] predict(double... inputs) {
+        double[] outputs = new double[getOutputSize()];
+        predict(inputs, outputs, newScratch());
+        return outputs;
+    }
+
+    public void predict(double[] inputs, double[] outputs) {
+        predict(inputs, outputs, threadScratch.get());
+    }
+
+    public void predict(double[] inputs, double[] outputs, Scratch scratch) {
+        checkScratch(scratch);
+        if (inputs.length != getInputSize() || outputs.length != getOutputSize()) {
+            throw new IllegalArgumentException("Expected " + getInputSize() + " inputs and " + getOutputSize()
+                    + " outputs, got " + inputs.length + " and " + outputs.length);
+        }
+        forward(inputs, outputs, 1, scratch);
+    }
+
+    public void predict(double[] inputs, double[] outputs, int count, Scratch scratch) {
+        checkScratch(scratch);
+        if (count < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + count);
+        }
+        if (count > scratch.capacity) {
+            throw new IllegalArgumentException("Batch of " + count + " exceeds scratch capacity " + scratch.capacity);
+        }
+        if (inputs.length < count * getInputSize() || outputs.length < count * getOutputSize()) {
+            throw new IllegalArgumentException("Buffers are too small for a batch of " + count);
+        }
+        forward(inputs, outputs, count, scratch);
+    }
+
+    // checkScratch: Этот метод проверяет, что буферы созданы для снимка с теми же размерами слоев и точностью
+    // (например, этим снимком). Иначе чужие буферы привели бы к NullPointerException или выходу за границы в ядрах.
+    private void checkScratch(Scratch scratch) {
+        if (scratch.precision != precision
+                || (scratch.layerSizes != layerSizes && !Arrays.equals(scratch.layerSizes, layerSizes))) {
+            throw new IllegalArgumentException("Scratch was created for a " + scratch.precision + " session "
+                    + Arrays.toString(scratch.layerSizes) + ", not for this " + precision + " session "
+                    + Arrays.toString(layerSizes));
+        }
+    }
+
+    private void forward(double[] inputs, double[] outputs, int count, Scratch scratch) {
+        if (layers == null) {
+            forwardFloat(inputs, outputs, count, scratch);
+            return;
+        }
+        double[] current = inputs;
+        int last = layers.length - 1;
+        for (int i = 0; i < last; i++) {
+            layers[i].forward(current, scratch.outputs[i], count);
+            current = scratch.outputs[i];
+        }
+        layers[last].forward(current, outputs, count);
+    }
+
+    private void forwardFloat(double[] inputs, double[] outputs, int count, Scratch scratch) {
+        float[] current = scratch.floatInputs;
+        int inputLength = count * getInputSize();
+        for (int i = 0; i < inputLength; i++) {
+            current[i] = (float) inputs[i];
+        }
+        for (int i = 0; i < scratch.floatOutputs.length; i++) {
+            if (int8Layers != null) {
+                int8Layers[i].forward(current, scratch.floatOutputs[i], count,
+                        scratch.quantizedInputs, scratch.inputScales, scratch.sums);
+            } else {
+                floatLayers[i].forward(current, scratch.floatOutputs[i], count);
+            }
+            current = scratch.floatOutputs[i];
+        }
+        int outputLength = count * getOutputSize();
+        for (int i = 0; i < outputLength; i++) {
+            outputs[i] = current[i];
+        }
+    }
+
+    //Scratch: Это рабочие буферы одного вызова predict, рассчитанные на пакет до capacity примеров.
+    // В точности DOUBLE - по массиву выходов на каждый промежуточный слой,
+    // в точности FLOAT - входы и выходы каждого слоя во float[],
+    // в точности INT8 - те же float[] и, кроме них, квантованные входы слоя, их масштабы и суммы int32.
+    public static final class Scratch {
+        private final int[] layerSizes;
+        private final Precision precision;
+        private final int capacity;
+        private final double[][] outputs;
+        private final float[] floatInputs;
+        private final float[][] floatOutputs;
+        private final byte[] quantizedInputs;
+        private final float[] inputScales;
+        private final int[] sums;
+
+        private Scratch(int[] layerSizes, Precision precision, int capacity) {
+            this.layerSizes = layerSizes;
+            this.precision = precision;
+            this.capacity = capacity;
+            int layerCount = layerSizes.length - 1;
+            if (precision == Precision.INT8) {
+                int maxInputSize = 0;
+                int maxSize = 0;
+                for (int i = 0; i < layerCount; i++) {
+                    maxInputSize = Math.max(maxInputSize, layerSizes[i]);
+                    maxSize = Math.max(maxSize, layerSizes[i + 1]);
+                }
+                this.quantizedInputs = new byte[capacity * maxInputSize];
+                this.inputScales = new float[capacity];
+                this.sums = new int[capacity * maxSize];
+            } else {
+                this.quantizedInputs = null;
+                this.inputScales = null;
+                this.sums = null;
+            }
+            if (precision != Precision.DOUBLE) {
+                this.outputs = null;
+                this.floatInputs = new float[capacity * layerSizes[0]];
+                this.floatOutputs = new float[layerCount][];
+                for (int i = 0; i < layerCount; i++) {
+                    floatOutputs[i] = new float[capacity * layerSizes[i + 1]];
+                }
+            } else {
+                this.floatInputs = null;
+                this.floatOutputs = null;
+                this.outputs = new double[layerCount - 1][];
+                for (int i = 0; i < outputs.length; i++) {
+                    outputs[i] = new double[capacity * layerSizes[i + 1]];
+                }
+            }
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.example.network;
+
+import org.example.activation.ActivationFunction;
+
+import javax.lang.model.SourceVersion;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/*
+ * InferenceSourceGenerator - это генератор исходного кода Java-класса прогнозов для одной обученной сети.
+ * Сгенерированный класс зависит только от JDK: его можно скопировать в другой сервис и вызывать без этой библиотеки.
+ *
+ * Устройство класса: Размеры слоев - константы, поэтому у каждого слоя свой метод layer{i} с циклами постоянной длины,
+ * а функции активации - статические методы, которые вызываются напрямую, без виртуального вызова IActivationFunction.
+ * Границы циклов и ссылки на массивы весов известны JIT при компиляции, поэтому он разворачивает циклы
+ * и убирает из них проверки границ массивов.
+ * Нейроны слоя считаются блоками по BLOCK_NEURONS с независимыми суммами (см. appendLayer), а для слоев
+ * не шире UNROLL_INPUTS входов скалярное произведение развернуто полностью. Более широкие слои остаются циклами:
+ * метод больше 8000 байт байт-кода JIT не компилирует вовсе (HugeMethodLimit).
+ * Взвешенные суммы накапливаются в том же порядке, что в DenseLayer.forward. SIGMOID, SWISH и LEAKY_RELU вычисляются
+ * по тем же формулам, что IActivationFunction.output, а TANH - как 1 - 2 / (e^2x + 1) через встроенную в JIT Math.exp:
+ * Math.tanh в JDK 17 не встроена и стоит как десяток экспонент. Поэтому прогнозы совпадают с Network.predict
+ * с точностью до последних разрядов (векторные ядра ActivationKernels тоже могут округлять иначе).
+ *
+ * Веса: Параметры всех слоев записываются в класс как float64 little-endian в base64 (см. ModelGraph)
+ * кусками по CHUNK_CHARS символов (строковая константа class-файла ограничена 65535 байтами)
+ * и декодируются один раз при загрузке класса. Инициализатор массива из литералов double
+ * уперся бы в ограничение 64 КБ байт-кода на метод уже на нескольких тысячах весов.
+ *
+ * Экземпляр сгенерированного класса хранит выходы скрытых слоев и поэтому не потокобезопасен
+ * (по экземпляру на поток); веса общие для всех экземпляров. Класс реализует BiConsumer<double[], double[]>
+ * (входы, выходы), чтобы его можно было вызывать через интерфейс JDK.
+ * */
+public final class InferenceSourceGenerator {
+
+    public static final int UNROLL_INPUTS = 16;
+    public static final int BLOCK_NEURONS = 8;
+    static final int CHUNK_CHARS = 60_000;
+    // Каждый кусок стоит 8 байт байт-кода в методе parameters(), который ограничен 64 КБ.
+    static final int MAX_CHUNKS = 8000;
+
+    private InferenceSourceGenerator() {
+    }
+
+    //write(Path sourceRoot, ModelCheckpoint checkpoint, String className): Этот метод записывает исходный код класса
+    // className (полное имя, например com.acme.ScoringModel) в каталог пакета под sourceRoot и возвращает путь к файлу.
+    public static Path write(Path sourceRoot, ModelCheckpoint checkpoint, String className) throws IOException {
+        String source = generate(checkpoint, className);
+        Path file = sourceRoot.resolve(className.replace('.', '/') + ".java");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    //generate(ModelCheckpoint checkpoint, String className): Этот метод возвращает исходный код класса прогнозов.
+    // Бросает IllegalArgumentException, если className - не допустимое имя класса Java
+    // или параметров слишком много, чтобы поместить их в один class-файл.
+    public static String generate(ModelCheckpoint checkpoint, String className) {
+        if (!SourceVersion.isName(className)) {
+            throw new IllegalArgumentException("Not a valid Java class name: " + className);
+        }
+        int[] sizes = checkpoint.getLayerSizes();
+        ActivationFunction[] functions = checkpoint.getActivationFunctions();
+        int layerCount = sizes.length - 1;
+        if (functions.length != layerCount) {
+            throw new IllegalArgumentException("Expected " + layerCount + " activation functions, got " + functions.length);
+        }
+        String parameters = ModelGraph.encode(parameters(checkpoint));
+        int dot = className.lastIndexOf('.');
+        String packageName = dot < 0 ? null : className.substring(0, dot);
+        String simpleName = className.substring(dot + 1);
+
+        StringBuilder out = new StringBuilder();
+        if (packageName != null) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import java.nio.ByteBuffer;\n");
+        out.append("import java.nio.ByteOrder;\n");
+        out.append("import java.nio.DoubleBuffer;\n");
+        out.append("import java.util.Base64;\n");
+        out.append("import java.util.function.BiConsumer;\n\n");
+        out.append("/**\n");
+        out.append(" * Generated from a ").append(shape(sizes)).append(" network ").append(activations(functions))
+                .append(". Do not edit.\n");
+        out.append(" * An instance keeps hidden layer outputs and is not thread-safe: use one instance per thread.\n");
+        out.append(" */\n");
+        out.append("public final class ").append(simpleName).append(" implements BiConsumer<double[], double[]> {\n");
+        out.append("    public static final int INPUT_SIZE = ").append(sizes[0]).append(";\n");
+        out.append("    public static final int OUTPUT_SIZE = ").append(sizes[layerCount]).append(";\n\n");
+        for (int i = 0; i < layerCount; i++) {
+            out.append("    private static final double[] W").append(i).append(" = new double[")
+                    .append(sizes[i + 1] * sizes[i]).append("];\n");
+            out.append("    private static final double[] B").append(i).append(" = new double[")
+                    .append(sizes[i + 1]).append("];\n");
+        }
+        out.append("\n    static {\n");
+        out.append("        StringBuilder base64 = new StringBuilder();\n");
+        out.append("        for (String chunk : parameters()) {\n");
+        out.append("            base64.append(chunk);\n");
+        out.append("        }\n");
+        out.append("        DoubleBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(base64.toString()))\n");
+        out.append("                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();\n");
+        for (int i = 0; i < layerCount; i++) {
+            out.append("        buffer.get(W").append(i).append(");\n");
+            out.append("        buffer.get(B").append(i).append(");\n");
+        }
+        out.append("    }\n\n");
+        for (int i = 0; i < layerCount - 1; i++) {
+            out.append("    private final double[] h").append(i).append(" = new double[").append(sizes[i + 1]).append("];\n");
+        }
+        if (layerCount > 1) {
+            out.append('\n');
+        }
+
+        out.append("    public double[] predict(double... inputs) {\n");
+        out.append("        double[] outputs = new double[OUTPUT_SIZE];\n");
+        out.append("        predict(inputs, outputs);\n");
+        out.append("        return outputs;\n");
+        out.append("    }\n\n");
+        out.append("    public void predict(double[] inputs, double[] outputs) {\n");
+        out.append("        if (inputs.length != INPUT_SIZE || outputs.length != OUTPUT_SIZE) {\n");
+        out.append("            throw new IllegalArgumentException(\"Expected \" + INPUT_SIZE + \" inputs and \" + OUTPUT_SIZE\n");
+        out.append("                    + \" outputs, got \" + inputs.length + \" and \" + outputs.length);\n");
+        out.append("        }\n");
+        for (int i = 0; i < layerCount; i++) {
+            String input = i == 0 ? "inputs" : "h" + (i - 1);
+            String output = i == layerCount - 1 ? "outputs" : "h" + i;
+            out.append("        layer").append(i).append('(').append(input).append(", ").append(output).append(");\n");
+        }
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    public void accept(double[] inputs, double[] outputs) {\n");
+        out.append("        predict(inputs, outputs);\n");
+        out.append("    }\n");
+
+        for (int i = 0; i < layerCount; i++) {
+            appendLayer(out, i, sizes[i], sizes[i + 1], functions[i]);
+        }
+        Set<ActivationFunction> used = EnumSet.noneOf(ActivationFunction.class);
+        used.addAll(Arrays.asList(functions));
+        for (ActivationFunction function : used) {
+            appendActivation(out, function);
+        }
+
+        out.append("\n    private static String[] parameters() {\n");
+        out.append("        return new String[]{\n");
+        for (int start = 0; start < parameters.length(); start += CHUNK_CHARS) {
+            out.append("                \"").append(parameters, start, Math.min(start + CHUNK_CHARS, parameters.length()))
+                    .append("\",\n");
+        }
+        out.append("        };\n");
+        out.append("    }\n");
+        out.append("}\n");
+        return out.toString();
+    }
+
+    //appendLayer: Этот метод добавляет метод layer{index}: y[j] = f(W[j] * x + B[j]) для каждого нейрона j.
+    // Нейроны считаются блоками по BLOCK_NEURONS: у каждого нейрона блока своя сумма, и каждый вход x[k] читается
+    // один раз на блок. Скалярное произведение одного нейрона - цепочка зависимых сложений, которая ждет задержку
+    // сложения на каждом шаге; независимые цепочки блока выполняются одновременно.
+    // Сумма каждого нейрона по-прежнему идет по k от 0, как в DenseLayer.forward, поэтому результат не меняется.
+    // Для слоев не шире UNROLL_INPUTS входов цикл по k развернут полностью. Оставшиеся size % BLOCK_NEURONS нейронов
+    // считаются по одному.
+    private static void appendLayer(StringBuilder out, int index, int inputSize, int size, ActivationFunction function) {
+        String weights = "W" + index;
+        String bias = "B" + index;
+        String activation = methodName(function);
+        boolean unrolled = inputSize <= UNROLL_INPUTS;
+        int blocked = size - size % BLOCK_NEURONS;
+        out.append("\n    private static void layer").append(index).append("(double[] x, double[] y) {\n");
+        if (unrolled) {
+            for (int k = 0; k < inputSize; k++) {
+                out.append("        double x").append(k).append(" = x[").append(k).append("];\n");
+            }
+        }
+        if (blocked > 0) {
+            out.append("        for (int j = 0; j < ").append(blocked).append("; j += ").append(BLOCK_NEURONS).append(") {\n");
+            out.append("            int row = j * ").append(inputSize).append(";\n");
+            for (int n = 0; n < BLOCK_NEURONS; n++) {
+                out.append("            double s").append(n).append(" = 0.0;\n");
+            }
+            if (unrolled) {
+                for (int k = 0; k < inputSize; k++) {
+                    for (int n = 0; n < BLOCK_NEURONS; n++) {
+                        appendTerm(out, "            ", "s" + n, weights, (long) n * inputSize + k, "x" + k);
+                    }
+                }
+            } else {
+                out.append("            for (int k = 0; k < ").append(inputSize).append("; k++) {\n");
+                out.append("                double xk = x[k];\n");
+                for (int n = 0; n < BLOCK_NEURONS; n++) {
+                    out.append("                s").append(n).append(" += ").append(weights).append("[row + ");
+                    if (n > 0) {
+                        out.append((long) n * inputSize).append(" + ");
+                    }
+                    out.append("k] * xk;\n");
+                }
+                out.append("            }\n");
+            }
+            for (int n = 0; n < BLOCK_NEURONS; n++) {
+                String j = n == 0 ? "j" : "j + " + n;
+                out.append("            y[").append(j).append("] = ").append(activation).append("(s").append(n)
+                        .append(" + ").append(bias).append('[').append(j).append("]);\n");
+            }
+            out.append("        }\n");
+        }
+        if (blocked < size) {
+            out.append("        for (int j = ").append(blocked).append("; j < ").append(size).append("; j++) {\n");
+            out.append("            int row = j * ").append(inputSize).append(";\n");
+            out.append("            double sum = 0.0;\n");
+            if (unrolled) {
+                for (int k = 0; k < inputSize; k++) {
+                    appendTerm(out, "            ", "sum", weights, k, "x" + k);
+                }
+            } else {
+                out.append("            for (int k = 0; k < ").append(inputSize).append("; k++) {\n");
+                out.append("                sum += ").append(weights).append("[row + k] * x[k];\n");
+                out.append("            }\n");
+            }
+            out.append("            y[j] = ").append(activation).append("(sum + ").append(bias).append("[j]);\n");
+            out.append("        }\n");
+        }
+        out.append("    }\n");
+    }
+
+    private static void appendTerm(StringBuilder out, String indent, String sum, String weights, long offset, String input) {
+        out.append(indent).append(sum).append(" += ").append(weights).append("[row");
+        if (offset > 0) {
+            out.append(" + ").append(offset);
+        }
+        out.append("] * ").append(input).append(";\n");
+    }
+
+    //appendActivation: Этот метод добавляет статический метод функции активации с той же формулой,
+    // что у ее реализации IActivationFunction.output.
+    private static void appendActivation(StringBuilder out, ActivationFunction function) {
+        String body = switch (function) {
+            case SIGMOID -> "1 / (1 + Math.exp(-x))";
+            case TANH -> "1 - 2 / (Math.exp(2 * x) + 1)";
+            case SWISH -> "x * (1 / (1 + Math.exp(-x)))";
+            case LEAKY_RELU -> "x >= 0 ? x : x * " + ModelGraph.LEAKY_RELU_ALPHA;
+        };
+        out.append("\n    private static double ").append(methodName(function)).append("(double x) {\n");
+        out.append("        return ").append(body).append(";\n");
+        out.append("    }\n");
+    }
+
+    private static String methodName(ActivationFunction function) {
+        return switch (function) {
+            case SIGMOID -> "sigmoid";
+            case TANH -> "tanh";
+            case SWISH -> "swish";
+            case LEAKY_RELU -> "leakyRelu";
+        };
+    }
+
+    //parameters: Этот метод укладывает веса и смещения всех слоев в один массив в порядке W0, B0, W1, B1, ...
+    private static double[] parameters(ModelCheckpoint checkpoint) {
+        double[][] weights = checkpoint.getWeights();
+        double[][] biases = checkpoint.getBiases();
+        long count = 0;
+        for (int i = 0; i < weights.length; i++) {
+            count += weights[i].length + biases[i].length;
+        }
+        if (count > (long) MAX_CHUNKS * CHUNK_CHARS / 4 * 3 / Double.BYTES) {
+            throw new IllegalArgumentException("Network has too many parameters to embed in one class: " + count);
+        }
+        double[] parameters = new double[(int) count];
+        int offset = 0;
+        for (int i = 0; i < weights.length; i++) {
+            System.arraycopy(weights[i], 0, parameters, offset, weights[i].length);
+            offset += weights[i].length;
+            System.arraycopy(biases[i], 0, parameters, offset, biases[i].length);
+            offset += biases[i].length;
+        }
+        return parameters;
+    }
+
+    private static String shape(int[] sizes) {
+        StringBuilder shape = new StringBuilder();
+        for (int i = 0; i < sizes.length; i++) {
+            shape.append(i == 0 ? "" : "x").append(sizes[i]);
+        }
+        return shape.toString();
+    }
+
+    private static String activations(ActivationFunction[] functions) {
+        StringBuilder names = new StringBuilder("(");
+        for (int i = 0; i < functions.length; i++) {
+            names.append(i == 0 ? "" : ", ").append(functions[i].name().toLowerCase(Locale.ROOT));
+        }
+        return names.append(')').toString();
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.example.activation.ActivationFunction;
+
+/*
+ * LayerSpec - это описание одного полносвязного слоя сети: число нейронов (size) и функция активации (activationFunction).
+ * Если activationFunction = null, слой использует функцию активации сети, заданную через Network.setActivationFunction.
+ * */
+@Getter
+@AllArgsConstructor
+public class LayerSpec {
+    private final int size;
+    private final ActivationFunction activationFunction;
+}
@@ -0,0 +1,207 @@
+package org.example.network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.example.activation.ActivationFunction;
+import org.example.model.DenseLayer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/*
+ * ModelCheckpoint - это двоичная контрольная точка обученной сети.
+ *
+ * Формат (версия 2, все числа little-endian):
+ * magic int32 = 0x4B434E4E ("NNCK"), version int32,
+ * learningRate float64, momentum float64, layerCount int32 (число размеров слоев, включая входной),
+ * layerSizes int32[layerCount], activations int32[layerCount - 1] (порядковые номера ActivationFunction слоев),
+ * затем для каждого слоя с параметрами: weights float64[size * inputSize], biases float64[size],
+ * weightDeltas float64[size * inputSize],
+ * и в конце checksum int64 - CRC32 всех предыдущих байтов.
+ *
+ * Запись: Файл целиком собирается в один буфер и записывается одной последовательной записью через FileChannel.
+ * Чтение: Файл отображается в память через FileChannel.map, контрольная сумма проверяется прямо по отображению,
+ * а массивы весов заполняются массовым копированием без создания объектов на каждый вес.
+ * Файл с несовпадающей контрольной суммой отклоняется.
+ *
+ * Версия 1 (одна функция активации на всю сеть) по-прежнему читается: в ней после version идет activation int32,
+ * а массива activations нет. Запись всегда выполняется в версии 2.
+ * */
+@Getter
+@AllArgsConstructor
+public class ModelCheckpoint {
+
+    public static final int MAGIC = 0x4B434E4E;
+    public static final int VERSION = 2;
+    private static final int VERSION_SINGLE_ACTIVATION = 1;
+    private static final int CHECKSUM_BYTES = Long.BYTES;
+
+    private final ActivationFunction[] activationFunctions;
+    private final double learningRate;
+    private final double momentum;
+    private final int[] layerSizes;
+    private final double[][] weights;
+    private final double[][] weightDeltas;
+    private final double[][] biases;
+
+    //of: Этот метод создает контрольную точку из слоев сети. Массивы слоев не копируются.
+    // Если слой обучался не MomentumSgd, вместо weightDeltas записываются нули: в формате это изменения весов
+    // MomentumSgd, а не состояние другого оптимизатора (см. DenseLayer.hasMomentumDeltas).
+    public static ModelCheckpoint of(ActivationFunction[] activationFunctions, double learningRate, double momentum, DenseLayer[] layers) {
+        int[] sizes = new int[layers.length + 1];
+        double[][] weights = new double[layers.length][];
+        double[][] weightDeltas = new double[layers.length][];
+        double[][] biases = new double[layers.length][];
+        sizes[0] = layers[0].getInputSize();
+        for (int i = 0; i < layers.length; i++) {
+            sizes[i + 1] = layers[i].getSize();
+            weights[i] = layers[i].getWeights();
+            weightDeltas[i] = layers[i].hasMomentumDeltas() ? layers[i].getWeightDeltas()
+                    : new double[layers[i].getWeightDeltas().length];
+            biases[i] = layers[i].getBiases();
+        }
+        return new ModelCheckpoint(activationFunctions, learningRate, momentum, sizes, weights, weightDeltas, biases);
+    }
+
+    //write(Path path, ModelCheckpoint checkpoint): Этот метод записывает контрольную точку в файл.
+    public static void write(Path path, ModelCheckpoint checkpoint) throws IOException {
+        int[] sizes = checkpoint.layerSizes;
+        if (checkpoint.activationFunctions.length != sizes.length - 1) {
+            throw new IllegalArgumentException("Expected " + (sizes.length - 1) + " activation functions, got "
+                    + checkpoint.activationFunctions.length);
+        }
+        for (ActivationFunction function : checkpoint.activationFunctions) {
+            if (function == null) {
+                throw new IllegalArgumentException("Activation function is not set");
+            }
+        }
+        long length = headerBytes(VERSION, sizes.length) + payloadDoubles(sizes) * Double.BYTES + CHECKSUM_BYTES;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Checkpoint of " + length + " bytes is too large");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putDouble(checkpoint.learningRate).putDouble(checkpoint.momentum);
+        buffer.putInt(sizes.length);
+        for (int size : sizes) {
+            buffer.putInt(size);
+        }
+        for (ActivationFunction function : checkpoint.activationFunctions) {
+            buffer.putInt(function.ordinal());
+        }
+        for (int i = 0; i < sizes.length - 1; i++) {
+            putDoubles(buffer, checkpoint.weights[i]);
+            putDoubles(buffer, checkpoint.biases[i]);
+            putDoubles(buffer, checkpoint.weightDeltas[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    //read(Path path): Этот метод читает контрольную точку из файла, отображенного в память.
+    // Бросает IOException, если файл поврежден, имеет другую версию или не совпадает контрольная сумма.
+    public static ModelCheckpoint read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < headerBytes(VERSION_SINGLE_ACTIVATION, 0) + CHECKSUM_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a checkpoint: unexpected size " + length);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            int bodyLength = (int) length - CHECKSUM_BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit(bodyLength));
+            if (crc.getValue() != buffer.getLong(bodyLength)) {
+                throw new IOException("Checkpoint checksum mismatch: " + path);
+            }
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a checkpoint: bad magic");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION && version != VERSION_SINGLE_ACTIVATION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            ActivationFunction networkFunction = version == VERSION_SINGLE_ACTIVATION ? activationFunction(buffer.getInt()) : null;
+            double learningRate = buffer.getDouble();
+            double momentum = buffer.getDouble();
+            int layerCount = buffer.getInt();
+            if (layerCount < 2 || headerBytes(version, layerCount) > bodyLength) {
+                throw new IOException("Invalid layer count " + layerCount);
+            }
+            int[] sizes = new int[layerCount];
+            for (int i = 0; i < layerCount; i++) {
+                sizes[i] = buffer.getInt();
+                if (sizes[i] < 1) {
+                    throw new IOException("Invalid layer size " + sizes[i]);
+                }
+            }
+            ActivationFunction[] layerFunctions = new ActivationFunction[layerCount - 1];
+            for (int i = 0; i < layerFunctions.length; i++) {
+                layerFunctions[i] = networkFunction != null ? networkFunction : activationFunction(buffer.getInt());
+            }
+            if (headerBytes(version, layerCount) + payloadDoubles(sizes) * Double.BYTES != bodyLength) {
+                throw new IOException("Checkpoint size does not match its layer sizes");
+            }
+            double[][] weights = new double[layerCount - 1][];
+            double[][] weightDeltas = new double[layerCount - 1][];
+            double[][] biases = new double[layerCount - 1][];
+            for (int i = 0; i < layerCount - 1; i++) {
+                weights[i] = getDoubles(buffer, sizes[i + 1] * sizes[i]);
+                biases[i] = getDoubles(buffer, sizes[i + 1]);
+                weightDeltas[i] = getDoubles(buffer, sizes[i + 1] * sizes[i]);
+            }
+            return new ModelCheckpoint(layerFunctions, learningRate, momentum, sizes, weights, weightDeltas, biases);
+        }
+    }
+
+    private static ActivationFunction activationFunction(int ordinal) throws IOException {
+        ActivationFunction[] functions = ActivationFunction.values();
+        if (ordinal < 0 || ordinal >= functions.length) {
+            throw new IOException("Unknown activation function " + ordinal);
+        }
+        return functions[ordinal];
+    }
+
+    // headerBytes: Размер считается в long: число слоев из поврежденного файла может быть близко к Integer.MAX_VALUE,
+    // и в int произведение стало бы отрицательным и прошло бы проверку длины.
+    private static long headerBytes(int version, int layerCount) {
+        long activationBytes = version == VERSION_SINGLE_ACTIVATION ? Integer.BYTES : Math.max(layerCount - 1L, 0) * Integer.BYTES;
+        return 2 * Integer.BYTES + activationBytes + 2 * Double.BYTES + Integer.BYTES + (long) layerCount * Integer.BYTES;
+    }
+
+    private static long payloadDoubles(int[] sizes) {
+        long doubles = 0;
+        for (int i = 0; i < sizes.length - 1; i++) {
+            doubles += 2L * sizes[i + 1] * sizes[i] + sizes[i + 1];
+        }
+        return doubles;
+    }
+
+    private static void putDoubles(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return values;
+    }
+}
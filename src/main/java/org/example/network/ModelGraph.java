@@ -0,0 +1,179 @@
+package org.example.network;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.activation.ActivationFunction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+/*
+ * ModelGraph - это переносимое описание обученной сети в виде графа вычислений в духе ONNX,
+ * которое можно выполнить без объектной модели этой библиотеки (на любом языке с JSON и base64).
+ *
+ * Формат (JSON, версия 1):
+ * {"format": "neuron.graph", "version": 1,
+ *  "inputs": [{"name": "input", "shape": [-1, inputSize]}], "outputs": [{"name": "output", "shape": [-1, outputSize]}],
+ *  "initializers": [{"name": "layer0.weight", "dataType": "float64", "shape": [size, inputSize], "rawData": "..."}, ...],
+ *  "nodes": [{"op": "Gemm", "name": "layer0.gemm", "inputs": [...], "outputs": [...], "attributes": {"transB": 1}}, ...]}
+ *
+ * Первое измерение входа и выхода (-1) - число примеров. Тензоры хранятся в rawData как float64 little-endian
+ * в base64, построчно: веса слоя i - матрица size x inputSize (строка j - веса нейрона j), как в DenseLayer.
+ * Так значения передаются без потерь и без разбора миллионов чисел в тексте.
+ *
+ * Операторы повторяют семантику одноименных операторов ONNX:
+ * Gemm (Y = X * W^T + B, transB = 1), Sigmoid, Tanh, LeakyRelu (alpha = 0.01) и Mul.
+ * SWISH записывается двумя узлами: Sigmoid и Mul его выхода на вход, так как в ONNX для него нет отдельного оператора.
+ * Каждый слой i дает узел Gemm с выходом layer{i}.z и узлы активации с выходом layer{i}.out;
+ * выход последнего слоя называется output.
+ * Изменения весов (weightDeltas), скорость обучения и момент не записываются: граф нужен только для прогнозов.
+ * */
+public final class ModelGraph {
+
+    public static final String FORMAT = "neuron.graph";
+    public static final int VERSION = 1;
+    public static final String INPUT = "input";
+    public static final String OUTPUT = "output";
+    // Наклон LeakyReLU при x < 0 (см. LeakyReLU).
+    public static final double LEAKY_RELU_ALPHA = 0.01;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ModelGraph() {
+    }
+
+    //write(Path path, ModelCheckpoint checkpoint): Этот метод записывает граф сети из контрольной точки в файл.
+    public static void write(Path path, ModelCheckpoint checkpoint) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(out, checkpoint);
+        }
+    }
+
+    //write(OutputStream out, ModelCheckpoint checkpoint): Этот метод записывает граф в поток. Поток не закрывается.
+    public static void write(OutputStream out, ModelCheckpoint checkpoint) throws IOException {
+        int[] sizes = checkpoint.getLayerSizes();
+        ActivationFunction[] functions = checkpoint.getActivationFunctions();
+        if (functions.length != sizes.length - 1) {
+            throw new IllegalArgumentException("Expected " + (sizes.length - 1) + " activation functions, got "
+                    + functions.length);
+        }
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("format", FORMAT);
+            generator.writeNumberField("version", VERSION);
+            generator.writeArrayFieldStart("inputs");
+            writeValueInfo(generator, INPUT, sizes[0]);
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("outputs");
+            writeValueInfo(generator, OUTPUT, sizes[sizes.length - 1]);
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("initializers");
+            for (int i = 0; i < functions.length; i++) {
+                writeTensor(generator, "layer" + i + ".weight", checkpoint.getWeights()[i], sizes[i + 1], sizes[i]);
+                writeTensor(generator, "layer" + i + ".bias", checkpoint.getBiases()[i], sizes[i + 1]);
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("nodes");
+            String input = INPUT;
+            for (int i = 0; i < functions.length; i++) {
+                String layer = "layer" + i;
+                String z = layer + ".z";
+                String output = i == functions.length - 1 ? OUTPUT : layer + ".out";
+                writeNode(generator, "Gemm", layer + ".gemm", new String[]{input, layer + ".weight", layer + ".bias"}, z);
+                generator.writeObjectFieldStart("attributes");
+                generator.writeNumberField("transB", 1);
+                generator.writeEndObject();
+                generator.writeEndObject();
+                writeActivation(generator, functions[i], layer, z, output);
+                input = output;
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    //writeActivation: Этот метод записывает узлы функции активации слоя layer со входом z и выходом output.
+    private static void writeActivation(JsonGenerator generator, ActivationFunction function, String layer, String z,
+                                        String output) throws IOException {
+        switch (function) {
+            case SIGMOID -> {
+                writeNode(generator, "Sigmoid", layer + ".sigmoid", new String[]{z}, output);
+                generator.writeEndObject();
+            }
+            case TANH -> {
+                writeNode(generator, "Tanh", layer + ".tanh", new String[]{z}, output);
+                generator.writeEndObject();
+            }
+            case LEAKY_RELU -> {
+                writeNode(generator, "LeakyRelu", layer + ".leaky_relu", new String[]{z}, output);
+                generator.writeObjectFieldStart("attributes");
+                generator.writeNumberField("alpha", LEAKY_RELU_ALPHA);
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            case SWISH -> {
+                String sigmoid = layer + ".sigmoid_out";
+                writeNode(generator, "Sigmoid", layer + ".sigmoid", new String[]{z}, sigmoid);
+                generator.writeEndObject();
+                writeNode(generator, "Mul", layer + ".swish", new String[]{z, sigmoid}, output);
+                generator.writeEndObject();
+            }
+            default -> throw new IllegalArgumentException("Unsupported activation function " + function);
+        }
+    }
+
+    //writeNode: Этот метод начинает объект узла; вызывающий код может добавить attributes и закрывает объект сам.
+    private static void writeNode(JsonGenerator generator, String op, String name, String[] inputs, String output)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("op", op);
+        generator.writeStringField("name", name);
+        generator.writeArrayFieldStart("inputs");
+        for (String input : inputs) {
+            generator.writeString(input);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("outputs");
+        generator.writeString(output);
+        generator.writeEndArray();
+    }
+
+    private static void writeValueInfo(JsonGenerator generator, String name, int size) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", name);
+        generator.writeArrayFieldStart("shape");
+        generator.writeNumber(-1);
+        generator.writeNumber(size);
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeTensor(JsonGenerator generator, String name, double[] values, int... shape) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", name);
+        generator.writeStringField("dataType", "float64");
+        generator.writeArrayFieldStart("shape");
+        for (int dimension : shape) {
+            generator.writeNumber(dimension);
+        }
+        generator.writeEndArray();
+        generator.writeStringField("rawData", encode(values));
+        generator.writeEndObject();
+    }
+
+    //encode(double[] values): Этот метод возвращает значения как float64 little-endian в base64.
+    static String encode(double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asDoubleBuffer().put(values);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+}
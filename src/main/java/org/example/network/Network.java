@@ -1,6 +1,5 @@
 package org.example.network;
 
-import fi.iki.elonen.NanoHTTPD;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.example.activation.ActivationFunction;
@@ -9,21 +8,43 @@ import org.example.activation.iml.LeakyReLU;
 import org.example.activation.iml.Sigmoid;
 import org.example.activation.iml.Swish;
 import org.example.activation.iml.TanH;
+import org.example.activation.kernel.ActivationTable;
+import org.example.data.DataSource;
 import org.example.data.MLData;
 import org.example.data.MLDataSet;
-import org.example.model.Neuron;
-import org.example.server.MultiLayerNetworkView;
+import org.example.data.SparseMLDataSet;
+import org.example.metrics.EpochStats;
+import org.example.metrics.TrainingListener;
+import org.example.model.BatchBuffers;
+import org.example.model.DenseLayer;
+import org.example.model.Precision;
+import org.example.model.SparseBatch;
+import org.example.model.WeightInit;
+import org.example.optimizer.MomentumSgd;
+import org.example.optimizer.Optimizer;
+import org.example.server.NetworkHttpServer;
+import org.example.util.RandomGenerator;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /*
  * Network: Это основной класс, который представляет нейронную сеть.
- * Он содержит слои нейронов (входной, скрытый и выходной), а также параметры обучения, такие как скорость обучения и момент.
- * Neuron: Это класс, который представляет отдельный нейрон в сети. Каждый нейрон имеет свои веса и смещение, а также функцию активации.
+ * Он содержит стек слоев нейронов (скрытые и выходной; входной слой - это просто массив входных значений), а также параметры обучения, такие как скорость обучения и момент.
+ * Сеть с одним скрытым слоем создается конструктором Network(inputSize, hiddenSize, outputSize),
+ * сеть произвольной глубины с отдельной функцией активации для каждого слоя - через Network.builder(inputSize).
+ * DenseLayer: Это класс, который представляет полносвязный слой сети. Веса, смещения, выходы и градиенты слоя
+ * хранятся в непрерывных массивах, а прямой и обратный проходы выполняются как умножение матрицы на вектор.
  * IActivationFunction: Это интерфейс для функций активации, которые используются нейронами.
  * В коде используются различные функции активации, такие как LeakyReLU, TanH, Sigmoid и Swish.
  * init(): Этот метод инициализирует нейронную сеть, создавая нейроны для каждого слоя.
@@ -31,27 +52,79 @@ import java.util.List;
  * Он выполняет прямое и обратное распространение ошибки для каждого эпоха обучения.
  * forward(double[] inputs) и backward(double[] targets): Эти методы выполняют прямое и обратное распространение ошибки в нейронной сети.
  * predict(double… inputs): Этот метод используется для получения прогнозов от нейронной сети на основе входных данных.
+ * Optimizer: Это правило обновления весов и смещений (MomentumSgd, Nesterov, RmsProp, Adam), задается setOptimizer.
+ * По умолчанию используется MomentumSgd с моментом сети (setMomentum).
+ * Телеметрия обучения: После каждой эпохи слушатели TrainingListener получают EpochStats - ошибку, скорость
+ * и время прямого прохода, обратного прохода и обновления весов. Время набирается в простых полях long
+ * (TrainingCounters) по одному вызову System.nanoTime на фазу пакета, без блокировок и без выделения памяти.
+ * Разреженные входы: train(SparseMLDataSet, int, int) и predict(int[], double[]) принимают входы как пары номер/значение,
+ * и первый слой обходит только ненулевые входы.
+ * Экспорт: exportGraph сохраняет сеть в переносимый граф (ModelGraph), а exportInferenceSource генерирует
+ * Java-класс прогнозов без зависимостей (InferenceSourceGenerator) для сервисов, которые не используют эту библиотеку.
  * */
 public class Network {
 
     private static final Logger logger = LogManager.getLogger(Network.class);
+    public static final int PARTIAL_FIT_BATCH_SIZE = 32;
     private final int inputSize;
-    private final int hiddenSize;
     private final int outputSize;
-    private final List<Neuron> inputLayer;
-    private final List<Neuron> hiddenLayer;
-    private final List<Neuron> outputLayer;
+    private final LayerSpec[] layerSpecs;
+    private DenseLayer[] layers;
     private double learningRate = 0.01;
     private double momentum = 0.5;
-    private IActivationFunction iActivationFunction;
+    private ActivationFunction activationFunction;
+    private Precision precision = Precision.DOUBLE;
+    private int activationTableResolution;
+    private Optimizer optimizer;
+    private Optimizer trainingOptimizer;
+    private WeightInit weightInit;
+    private Long seed;
+    private boolean predictionLogging;
+    private volatile boolean stopRequested;
+    private BatchBuffers partialFitBuffers;
+    private final List<TrainingListener> trainingListeners = new CopyOnWriteArrayList<>();
 
     public Network(int inputSize, int hiddenSize, int outputSize) {
+        this(inputSize, new LayerSpec[]{new LayerSpec(hiddenSize, null), new LayerSpec(outputSize, null)});
+    }
+
+    private Network(int inputSize, LayerSpec[] layerSpecs) {
+        if (inputSize < 1) {
+            throw new IllegalArgumentException("inputSize must be positive: " + inputSize);
+        }
+        if (layerSpecs.length == 0) {
+            throw new IllegalArgumentException("Network needs at least one layer");
+        }
+        for (LayerSpec spec : layerSpecs) {
+            if (spec.getSize() < 1) {
+                throw new IllegalArgumentException("Layer size must be positive: " + spec.getSize());
+            }
+        }
         this.inputSize = inputSize;
-        this.hiddenSize = hiddenSize;
-        this.outputSize = outputSize;
-        this.inputLayer = new ArrayList<>();
-        this.hiddenLayer = new ArrayList<>();
-        this.outputLayer = new ArrayList<>();
+        this.outputSize = layerSpecs[layerSpecs.length - 1].getSize();
+        this.layerSpecs = layerSpecs.clone();
+    }
+
+    //builder(int inputSize): Этот метод начинает описание сети с inputSize входами.
+    // Слои добавляются по порядку от первого скрытого до выходного, например:
+    // Network.builder(784).layer(512, LEAKY_RELU).layer(256, TANH).layer(10, SIGMOID).build().
+    public static Builder builder(int inputSize) {
+        return new Builder(inputSize);
+    }
+
+    //getLayerSizes(): Этот метод возвращает размеры всех слоев, начиная с входного.
+    public int[] getLayerSizes() {
+        int[] sizes = new int[layerSpecs.length + 1];
+        sizes[0] = inputSize;
+        for (int i = 0; i < layerSpecs.length; i++) {
+            sizes[i + 1] = layerSpecs[i].getSize();
+        }
+        return sizes;
+    }
+
+    //isTrained(): Этот метод проверяет, была ли сеть уже обучена (есть ли у нее веса для прогнозов и снимков).
+    public boolean isTrained() {
+        return layers != null;
     }
 
     //setLearningRate(double learningRate): Этот метод позволяет установить скорость обучения для нейронной сети.
@@ -66,62 +139,151 @@ public class Network {
         this.momentum = momentum;
     }
 
+    //setOptimizer(Optimizer optimizer): Этот метод задает оптимизатор для следующих вызовов train.
+    // Скорость обучения (setLearningRate) передается оптимизатору при каждом обновлении,
+    // а момент (setMomentum) используется только оптимизатором по умолчанию. null возвращает оптимизатор по умолчанию.
+    // Для дообучения (partialFit) новый оптимизатор начинает работать со следующего вызова, с пустым состоянием.
+    public void setOptimizer(Optimizer optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    //setWeightInit(WeightInit weightInit): Этот метод задает схему начальных весов (см. WeightInit) для всех слоев.
+    // null (по умолчанию) выбирает схему для каждого слоя по его функции активации: XAVIER для SIGMOID и TANH,
+    // HE для LEAKY_RELU и SWISH.
+    public void setWeightInit(WeightInit weightInit) {
+        this.weightInit = weightInit;
+    }
+
+    //setSeed(long seed): Этот метод задает начальное значение генератора случайных чисел сети.
+    // Каждый вызов train создает генератор заново из seed, поэтому начальные веса и порядок примеров,
+    // а значит и все обучение с одинаковым seed, повторяются.
+    // Без seed генератор создается со случайным начальным значением.
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    //setPrecision(Precision precision): Этот метод задает точность снимков сети для прогнозов (newInferenceSession),
+    // в том числе снимка, который использует сервер. Обучение и predict всегда выполняются в double (см. Precision).
+    public void setPrecision(Precision precision) {
+        this.precision = precision;
+    }
+
+    //setActivationTables(int intervalsPerUnit): Этот метод включает для снимков сети (newInferenceSession)
+    // вычисление SIGMOID, TANH и SWISH по таблицам ActivationTable с intervalsPerUnit интервалами на единицу аргумента
+    // (ActivationTable.DEFAULT_INTERVALS_PER_UNIT - 64). 0 (по умолчанию) - точные функции.
+    // Ошибка таблицы ограничена ActivationTable.getMaxError; обучение и predict всегда используют точные функции.
+    // Таблицы выгодны, когда функции активации вычисляются скалярными ядрами (без jdk.incubator.vector),
+    // особенно для TANH; с векторными ядрами они не быстрее (см. ActivationTable).
+    public void setActivationTables(int intervalsPerUnit) {
+        if (intervalsPerUnit < 0) {
+            throw new IllegalArgumentException("intervalsPerUnit must not be negative: " + intervalsPerUnit);
+        }
+        this.activationTableResolution = intervalsPerUnit;
+    }
+
+    //setPredictionLogging(boolean predictionLogging): Этот метод включает запись входов и прогноза каждого вызова predict
+    // в журнал (по умолчанию выключена). Когда запись выключена или уровень INFO отключен в log4j,
+    // строка сообщения не строится.
+    public void setPredictionLogging(boolean predictionLogging) {
+        this.predictionLogging = predictionLogging;
+    }
+
+    //addTrainingListener(TrainingListener listener): Этот метод добавляет слушателя, который получает итоги каждой эпохи.
+    public void addTrainingListener(TrainingListener listener) {
+        trainingListeners.add(listener);
+    }
+
+    public void removeTrainingListener(TrainingListener listener) {
+        trainingListeners.remove(listener);
+    }
+
+    //stopTraining(): Этот метод просит остановить текущее обучение. Его можно вызвать из любого потока,
+    // в том числе из слушателя обучения. Обучение заканчивается после текущей эпохи (после вызова слушателей),
+    // веса при этом остаются такими, какими они стали в этой эпохе.
+    public void stopTraining() {
+        this.stopRequested = true;
+    }
+
+    //newRandom(): Этот метод создает корневой SplittableRandom одного запуска обучения.
+    // Независимые потоки случайных чисел (начальные веса, перемешивание) получаются из него через split().
+    private SplittableRandom newRandom() {
+        return seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+    }
+
     //setActivationFunction(ActivationFunction activationFunction):
     // Этот метод позволяет установить функцию активации для нейронов в нейронной сети.
     // Функция активации определяет выходное значение нейрона на основе его входных значений.
+    // Она применяется ко всем слоям, для которых в LayerSpec не задана своя функция активации.
     // В этом коде используется перечисление ActivationFunction, которое содержит различные типы функций активации, такие как LEAKY_RELU, TANH, SIGMOID и SWISH.
-    // В зависимости от выбранного значения ActivationFunction, создается соответствующий объект функции активации и присваивается переменной iActivationFunction.
-    //
-    //Вот подробности:
-    //Если выбрано LEAKY_RELU, создается новый объект LeakyReLU и присваивается iActivationFunction.
-    //Если выбрано TANH, создается новый объект TanH и присваивается iActivationFunction.
-    //Если выбрано SIGMOID, создается новый объект Sigmoid и присваивается iActivationFunction.
-    //Если выбрано SWISH, создается новый объект Swish и присваивается iActivationFunction.
+    // Объект функции активации для каждого слоя создается в init() методом newActivationFunction.
     //Таким образом, этот метод позволяет динамически изменять функцию активации нейронов в нейронной сети.
     // Это может быть полезно при настройке и оптимизации нейронной сети.
     public void setActivationFunction(ActivationFunction activationFunction) {
+        this.activationFunction = activationFunction;
+    }
+
+    //newActivationFunction(ActivationFunction activationFunction):
+    // Этот метод создает объект функции активации по значению перечисления ActivationFunction.
+    //Вот подробности:
+    //Если выбрано LEAKY_RELU, создается новый объект LeakyReLU.
+    //Если выбрано TANH, создается новый объект TanH.
+    //Если выбрано SIGMOID, создается новый объект Sigmoid.
+    //Если выбрано SWISH, создается новый объект Swish.
+    private static IActivationFunction newActivationFunction(ActivationFunction activationFunction) {
         switch (activationFunction) {
             case LEAKY_RELU -> {
-                this.iActivationFunction = new LeakyReLU();
-                break;
+                return new LeakyReLU();
             }
             case TANH -> {
-                this.iActivationFunction = new TanH();
-                break;
+                return new TanH();
             }
             case SIGMOID -> {
-                this.iActivationFunction = new Sigmoid();
-                break;
+                return new Sigmoid();
             }
             case SWISH -> {
-                this.iActivationFunction = new Swish();
-                break;
+                return new Swish();
             }
+            default -> throw new IllegalArgumentException("Unknown activation function " + activationFunction);
         }
     }
 
-    //init(): Этот метод инициализирует нейронную сеть, создавая нейроны для каждого слоя.
-    // Создание нейронов для входного слоя:
-    // Для каждого входного нейрона создается новый объект Neuron и добавляется в список inputLayer.
-    // Количество входных нейронов равно inputSize.
-    // Создание нейронов для скрытого слоя:
-    // Для каждого скрытого нейрона создается новый объект Neuron,
-    // который принимает входной слой и функцию активации в качестве параметров, и добавляется в список hiddenLayer.
-    // Количество скрытых нейронов равно hiddenSize.
-    // Создание нейронов для выходного слоя:
-    // Для каждого выходного нейрона создается новый объект Neuron,
-    // который принимает скрытый слой и функцию активации в качестве параметров, и добавляется в список outputLayer.
-    // Количество выходных нейронов равно outputSize.
-    private void init() {
-        for (int i = 0; i < inputSize; i++) {
-            this.inputLayer.add(new Neuron());
-        }
-        for (int i = 0; i < hiddenSize; i++) {
-            this.hiddenLayer.add(new Neuron(this.inputLayer, iActivationFunction));
+    //layerActivationFunctions(): Этот метод возвращает функцию активации каждого слоя:
+    // заданную в LayerSpec или, если она не задана, функцию активации сети.
+    ActivationFunction[] layerActivationFunctions() {
+        ActivationFunction[] functions = new ActivationFunction[layerSpecs.length];
+        for (int i = 0; i < layerSpecs.length; i++) {
+            functions[i] = layerSpecs[i].getActivationFunction() != null
+                    ? layerSpecs[i].getActivationFunction() : activationFunction;
+            if (functions[i] == null) {
+                throw new IllegalStateException("Activation function is not set for layer " + i);
+            }
         }
-        for (int i = 0; i < outputSize; i++) {
-            this.outputLayer.add(new Neuron(this.hiddenLayer, iActivationFunction));
+        return functions;
+    }
+
+    //init(SplittableRandom random): Этот метод инициализирует нейронную сеть, создавая слои сети.
+    // Входной слой не хранит параметров, поэтому отдельный объект для него не создается:
+    // его выходами служат сами входные данные.
+    // Создание слоев:
+    // Для каждого LayerSpec создается DenseLayer с матрицей весов size x (размер предыдущего слоя)
+    // и функцией активации этого слоя.
+    // Каждый вызов создает слои заново, поэтому повторное обучение начинается со свежих весов.
+    // Веса заполняются из random по схеме setWeightInit или, если она не задана, по схеме для функции активации слоя.
+    // Запрос остановки (stopTraining) от предыдущего обучения сбрасывается.
+    // Оптимизатор выбирается один раз на обучение, так что все обновления слоев используют одно и то же состояние.
+    private void init(SplittableRandom random) {
+        this.stopRequested = false;
+        this.trainingOptimizer = optimizer != null ? optimizer : new MomentumSgd(momentum);
+        ActivationFunction[] functions = layerActivationFunctions();
+        DenseLayer[] layers = new DenseLayer[layerSpecs.length];
+        int previousSize = inputSize;
+        for (int i = 0; i < layers.length; i++) {
+            WeightInit init = weightInit != null ? weightInit : WeightInit.forActivation(functions[i]);
+            layers[i] = new DenseLayer(previousSize, layerSpecs[i].getSize(), newActivationFunction(functions[i]),
+                    init, random);
+            previousSize = layerSpecs[i].getSize();
         }
+        this.layers = layers;
         logger.info("Network initialization.");
     }
 
@@ -131,83 +293,510 @@ public class Network {
     // Инициализация сети: Сначала вызывается метод init(),
     // который инициализирует нейронную сеть, создавая нейроны для каждого слоя.
     // В каждой эпохе происходит следующее:
-    // Перемешивание данных: Данные для обучения (set) перемешиваются.
-    // Это делается для того, чтобы обучение не было зависимо от порядка данных.
+    // Перемешивание данных: Перемешивается перестановка индексов примеров (order), а не сам набор данных,
+    // поэтому set остается неизменным. Это делается для того, чтобы обучение не было зависимо от порядка данных.
     // Прямое и обратное распространение:
-    // Для каждого элемента данных выполняется прямое распространение (forward(datum.getInputs())),
-    // где вычисляются выходные значения нейронов, и обратное распространение (backward(datum.getTargets())),
-    // где обновляются веса и смещения нейронов на основе ошибки.
+    // Для каждого примера в порядке order выполняется прямое распространение (forward(inputs[k])),
+    // где вычисляются выходные значения нейронов, и обратное распространение (backward(targets[k])),
+    // где вычисляются градиенты, после чего веса обновляются (updateWeights(inputs[k])).
     public void train(MLDataSet set, int epoch) {
-        this.init();
+        SplittableRandom random = newRandom();
+        this.init(random.split());
+        SplittableRandom shuffleRandom = random.split();
+        double[][] inputs = set.getInputs();
+        double[][] targets = set.getTargets();
+        int[] order = RandomGenerator.identity(inputs.length);
+        TrainingCounters counters = new TrainingCounters();
+        logger.info("Training Started");
+        for (int i = 0; i < epoch; i++) {
+            long epochStart = System.nanoTime();
+            RandomGenerator.shuffle(order, shuffleRandom);
+            long time = System.nanoTime();
+            for (int k : order) {
+                forward(inputs[k]);
+                long forwarded = System.nanoTime();
+                counters.squaredError += backward(targets[k]);
+                long backwarded = System.nanoTime();
+                updateWeights(inputs[k]);
+                long updated = System.nanoTime();
+                counters.forwardNanos += forwarded - time;
+                counters.backwardNanos += backwarded - forwarded;
+                counters.updateNanos += updated - backwarded;
+                time = updated;
+            }
+            counters.samples += order.length;
+            finishEpoch(i, counters, epochStart);
+            if (stopRequested) {
+                logger.info("Training stopped after epoch " + (i + 1));
+                break;
+            }
+        }
+        logger.info("Training Finished");
+    }
+
+    //train(MLDataSet set, int epoch, int batchSize):
+    // Этот метод обучает нейронную сеть мини-пакетами.
+    // В каждой эпохе данные перемешиваются и разбиваются на пакеты по batchSize примеров (последний пакет может быть меньше).
+    // Для каждого пакета прямой и обратный проходы выполняются сразу для всех примеров блочными умножениями матриц,
+    // изменения весов суммируются по пакету и применяются одним обновлением.
+    // При batchSize = 1 результат совпадает с train(set, epoch).
+    public void train(MLDataSet set, int epoch, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        SplittableRandom random = newRandom();
+        this.init(random.split());
+        SplittableRandom shuffleRandom = random.split();
+        BatchBuffers buffers = new BatchBuffers(layers, batchSize);
+        int[] order = RandomGenerator.identity(set.getInputs().length);
+        TrainingCounters counters = new TrainingCounters();
         logger.info("Training Started");
         for (int i = 0; i < epoch; i++) {
-            Collections.shuffle(set.getData());
-            for (MLData datum : set.getData()) {
-                forward(datum.getInputs());
-                backward(datum.getTargets());
+            long epochStart = System.nanoTime();
+            RandomGenerator.shuffle(order, shuffleRandom);
+            for (int start = 0; start < order.length; start += batchSize) {
+                int count = Math.min(batchSize, order.length - start);
+                gatherBatch(set, order, start, count, buffers);
+                computeWeightSteps(buffers, count, counters);
+                long computed = System.nanoTime();
+                applyWeightSteps(buffers);
+                counters.updateNanos += System.nanoTime() - computed;
+            }
+            finishEpoch(i, counters, epochStart);
+            if (stopRequested) {
+                logger.info("Training stopped after epoch " + (i + 1));
+                break;
             }
         }
         logger.info("Training Finished");
     }
 
+    //train(DataSource source, int epoch, int batchSize):
+    // Этот метод обучает нейронную сеть мини-пакетами из потокового источника данных.
+    // В начале каждой эпохи источник перематывается (reset), а затем пакеты читаются из него по очереди,
+    // так что в памяти находится только то, что держит сам источник, и буферы одного пакета.
+    public void train(DataSource source, int epoch, int batchSize) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        if (source.getInputSize() != inputSize || source.getOutputSize() != outputSize) {
+            throw new IllegalArgumentException("Data source shape " + source.getInputSize() + "x" + source.getOutputSize()
+                    + " does not match network " + inputSize + "x" + outputSize);
+        }
+        this.init(newRandom().split());
+        BatchBuffers buffers = new BatchBuffers(layers, batchSize);
+        TrainingCounters counters = new TrainingCounters();
+        logger.info("Training Started");
+        for (int i = 0; i < epoch; i++) {
+            long epochStart = System.nanoTime();
+            source.reset();
+            int count;
+            while ((count = source.nextBatch(buffers.getInputs(), buffers.getTargets(), batchSize)) > 0) {
+                computeWeightSteps(buffers, count, counters);
+                long computed = System.nanoTime();
+                applyWeightSteps(buffers);
+                counters.updateNanos += System.nanoTime() - computed;
+            }
+            finishEpoch(i, counters, epochStart);
+            if (stopRequested) {
+                logger.info("Training stopped after epoch " + (i + 1));
+                break;
+            }
+        }
+        logger.info("Training Finished");
+    }
+
+    //train(SparseMLDataSet set, int epoch, int batchSize):
+    // Этот метод обучает нейронную сеть мини-пакетами на разреженных входах так же, как train(MLDataSet, int, int).
+    // Первый слой вычисляет выходы и обновляет веса только в столбцах входов, ненулевых хотя бы в одном примере пакета
+    // (SparseBatch), поэтому его стоимость пропорциональна числу ненулевых входов, а не ширине входа.
+    // Остальные слои обучаются как обычно.
+    // С оптимизатором без состояния (MomentumSgd с нулевым моментом) результат совпадает с обучением на плотных входах
+    // с точностью до округлений. Для оптимизаторов с состоянием обновление первого слоя "ленивое"
+    // (см. Optimizer.updateIndexed): веса столбцов, которых нет в пакете, не сдвигаются по накопленному моменту.
+    public void train(SparseMLDataSet set, int epoch, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        if (set.getInputSize() != inputSize) {
+            throw new IllegalArgumentException("Data set has " + set.getInputSize() + " inputs, network has " + inputSize);
+        }
+        SplittableRandom random = newRandom();
+        this.init(random.split());
+        SplittableRandom shuffleRandom = random.split();
+        BatchBuffers buffers = new BatchBuffers(layers, batchSize, true);
+        SparseBatch batch = new SparseBatch(inputSize, batchSize);
+        int[] order = RandomGenerator.identity(set.size());
+        TrainingCounters counters = new TrainingCounters();
+        logger.info("Training Started");
+        for (int i = 0; i < epoch; i++) {
+            long epochStart = System.nanoTime();
+            RandomGenerator.shuffle(order, shuffleRandom);
+            for (int start = 0; start < order.length; start += batchSize) {
+                int count = Math.min(batchSize, order.length - start);
+                gatherSparseBatch(set, order, start, count, batch, buffers);
+                computeSparseWeightSteps(batch, buffers, counters);
+                long computed = System.nanoTime();
+                layers[0].applyWeightSteps(batch, buffers.getBiasSteps()[0], trainingOptimizer, learningRate);
+                for (int l = 1; l < layers.length; l++) {
+                    layers[l].applyWeightSteps(buffers.getWeightSteps()[l], buffers.getBiasSteps()[l],
+                            trainingOptimizer, learningRate);
+                }
+                counters.updateNanos += System.nanoTime() - computed;
+            }
+            finishEpoch(i, counters, epochStart);
+            if (stopRequested) {
+                logger.info("Training stopped after epoch " + (i + 1));
+                break;
+            }
+        }
+        logger.info("Training Finished");
+    }
+
+    //partialFit(MLData... samples): Этот метод дообучает сеть на небольшой порции примеров из потока данных,
+    // продолжая с текущих весов и состояния оптимизатора, без повторной инициализации.
+    // Примеры проходят один раз в заданном порядке мини-пакетами по PARTIAL_FIT_BATCH_SIZE, по одному обновлению
+    // весов на пакет, как в train(MLDataSet, int, int).
+    // Рабочие буферы пакета создаются при первом вызове и переиспользуются, поэтому память не растет с числом вызовов,
+    // а вызов стоит только прямого и обратного проходов и обновления.
+    // Если сеть еще не обучалась, слои один раз инициализируются (см. setSeed и setWeightInit).
+    // Сеть, загруженная из контрольной точки (load), продолжает с сохраненных весов; сохраненные изменения весов
+    // используются только оптимизатором по умолчанию (MomentumSgd), для других оптимизаторов состояние начинается с нуля.
+    // Оптимизатор - заданный setOptimizer или, если он не задан, оптимизатор по умолчанию последнего train
+    // или partialFit; пока он тот же объект, его состояние в слоях продолжается от вызова к вызову.
+    // Возвращает среднеквадратичную ошибку на этих примерах, вычисленную до обновления весов каждого пакета,
+    // то есть ошибку прогноза на еще не виденных данных. Слушатели обучения не вызываются: вызов не является эпохой.
+    // Метод не потокобезопасен, как и train; его нельзя вызывать одновременно с train или predict.
+    public double partialFit(MLData... samples) {
+        for (MLData sample : samples) {
+            if (sample.getInputs().length != inputSize || sample.getTargets().length != outputSize) {
+                throw new IllegalArgumentException("Sample shape " + sample.getInputs().length + "x"
+                        + sample.getTargets().length + " does not match network " + inputSize + "x" + outputSize);
+            }
+        }
+        if (samples.length == 0) {
+            return Double.NaN;
+        }
+        if (layers == null) {
+            init(newRandom().split());
+        } else if (optimizer != null) {
+            trainingOptimizer = optimizer;
+        } else if (!(trainingOptimizer instanceof MomentumSgd)) {
+            trainingOptimizer = new MomentumSgd(momentum);
+        }
+        if (partialFitBuffers == null) {
+            partialFitBuffers = new BatchBuffers(layers, PARTIAL_FIT_BATCH_SIZE);
+        }
+        BatchBuffers buffers = partialFitBuffers;
+        TrainingCounters counters = new TrainingCounters();
+        for (int start = 0; start < samples.length; start += PARTIAL_FIT_BATCH_SIZE) {
+            int count = Math.min(PARTIAL_FIT_BATCH_SIZE, samples.length - start);
+            for (int b = 0; b < count; b++) {
+                System.arraycopy(samples[start + b].getInputs(), 0, buffers.getInputs(), b * inputSize, inputSize);
+                System.arraycopy(samples[start + b].getTargets(), 0, buffers.getTargets(), b * outputSize, outputSize);
+            }
+            computeWeightSteps(buffers, count, counters);
+            applyWeightSteps(buffers);
+        }
+        return counters.squaredError / ((double) samples.length * outputSize);
+    }
+
+    //train(MLDataSet set, int epoch, int batchSize, int threads):
+    // Этот метод обучает нейронную сеть мини-пакетами на нескольких потоках.
+    // Для обучения создается отдельный ForkJoinPool из threads потоков, который закрывается по окончании.
+    public void train(MLDataSet set, int epoch, int batchSize, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            train(set, epoch, batchSize, pool, threads);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //train(MLDataSet set, int epoch, int batchSize, ExecutorService executor, int threads):
+    // Этот метод обучает нейронную сеть мини-пакетами, распределяя каждый пакет между threads исполнителями.
+    // Разбиение пакета: Пакет делится на threads непрерывных частей, каждую обрабатывает свой исполнитель
+    // со своими буферами выходов, градиентов и изменений весов (BatchBuffers), поэтому исполнители не делят изменяемых данных.
+    // Во время вычислений веса только читаются.
+    // Сведение: Изменения весов исполнителей складываются попарным деревом (0+1, 2+3, затем 0+2 и т.д.),
+    // после чего одно обновление весов выполняется в вызывающем потоке.
+    // Разбиение и порядок сложения зависят только от threads, поэтому при одинаковых данных,
+    // начальных весах и числе потоков результат не зависит от планирования потоков.
+    public void train(MLDataSet set, int epoch, int batchSize, ExecutorService executor, int threads) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        SplittableRandom random = newRandom();
+        this.init(random.split());
+        SplittableRandom shuffleRandom = random.split();
+        int sliceCapacity = (batchSize + threads - 1) / threads;
+        BatchBuffers[] workerBuffers = new BatchBuffers[threads];
+        TrainingCounters[] workerCounters = new TrainingCounters[threads];
+        for (int w = 0; w < threads; w++) {
+            workerBuffers[w] = new BatchBuffers(layers, sliceCapacity);
+            workerCounters[w] = new TrainingCounters();
+        }
+        int[] order = RandomGenerator.identity(set.getInputs().length);
+        // Задачи создаются один раз: границы текущего пакета передаются через batch (начало и размер),
+        // который записывается до invokeAll и поэтому виден исполнителям.
+        int[] batch = new int[2];
+        List<Callable<Void>> computeTasks = new ArrayList<>(threads);
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            BatchBuffers buffers = workerBuffers[w];
+            TrainingCounters counters = workerCounters[w];
+            computeTasks.add(() -> {
+                int from = batch[0] + (int) ((long) batch[1] * worker / threads);
+                int to = batch[0] + (int) ((long) batch[1] * (worker + 1) / threads);
+                gatherBatch(set, order, from, to - from, buffers);
+                computeWeightSteps(buffers, to - from, counters);
+                return null;
+            });
+        }
+        List<List<Callable<Void>>> reduceLevels = reduceTasks(workerBuffers);
+        // Счетчики исполнителей записываются только их задачами и читаются после invokeAll,
+        // поэтому синхронизация не нужна: future.get() упорядочивает запись и чтение.
+        TrainingCounters counters = new TrainingCounters();
+        logger.info("Training Started");
+        for (int i = 0; i < epoch; i++) {
+            long epochStart = System.nanoTime();
+            RandomGenerator.shuffle(order, shuffleRandom);
+            for (int start = 0; start < order.length; start += batchSize) {
+                batch[0] = start;
+                batch[1] = Math.min(batchSize, order.length - start);
+                invokeAll(executor, computeTasks);
+                long computed = System.nanoTime();
+                for (List<Callable<Void>> level : reduceLevels) {
+                    invokeAll(executor, level);
+                }
+                applyWeightSteps(workerBuffers[0]);
+                counters.updateNanos += System.nanoTime() - computed;
+            }
+            for (TrainingCounters worker : workerCounters) {
+                counters.add(worker);
+                worker.reset();
+            }
+            finishEpoch(i, counters, epochStart);
+            if (stopRequested) {
+                logger.info("Training stopped after epoch " + (i + 1));
+                break;
+            }
+        }
+        logger.info("Training Finished");
+    }
+
+    //reduceTasks: Этот метод строит задачи сведения изменений весов всех исполнителей в буферы исполнителя 0.
+    // На каждом уровне дерева пары (w, w + stride) складываются параллельно, число уровней - log2(threads).
+    private static List<List<Callable<Void>>> reduceTasks(BatchBuffers[] workerBuffers) {
+        List<List<Callable<Void>>> levels = new ArrayList<>();
+        for (int stride = 1; stride < workerBuffers.length; stride *= 2) {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int w = 0; w + stride < workerBuffers.length; w += 2 * stride) {
+                BatchBuffers target = workerBuffers[w];
+                BatchBuffers source = workerBuffers[w + stride];
+                tasks.add(() -> {
+                    addSteps(target.getWeightSteps(), source.getWeightSteps());
+                    addSteps(target.getBiasSteps(), source.getBiasSteps());
+                    return null;
+                });
+            }
+            levels.add(tasks);
+        }
+        return levels;
+    }
+
+    private static void addSteps(double[][] target, double[][] source) {
+        for (int l = 0; l < target.length; l++) {
+            double[] t = target[l];
+            double[] s = source[l];
+            for (int k = 0; k < t.length; k++) {
+                t[k] += s[k];
+            }
+        }
+    }
+
+    //invokeAll: Этот метод выполняет задачи на executor и дожидается их завершения.
+    // Исключение, брошенное задачей, пробрасывается в вызывающий поток.
+    private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Training interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Training task failed", e.getCause());
+        }
+    }
+
+    //gatherBatch: Этот метод копирует входные данные и целевые значения count примеров
+    // с индексами order[start], order[start + 1], ... в непрерывные массивы пакета.
+    private void gatherBatch(MLDataSet set, int[] order, int start, int count, BatchBuffers buffers) {
+        double[][] setInputs = set.getInputs();
+        double[][] setTargets = set.getTargets();
+        double[] inputs = buffers.getInputs();
+        double[] targets = buffers.getTargets();
+        for (int b = 0; b < count; b++) {
+            int k = order[start + b];
+            System.arraycopy(setInputs[k], 0, inputs, b * inputSize, inputSize);
+            System.arraycopy(setTargets[k], 0, targets, b * outputSize, outputSize);
+        }
+    }
+
+    //gatherSparseBatch: Этот метод собирает разреженные входы count примеров в batch, а их целевые значения - в buffers.
+    private void gatherSparseBatch(SparseMLDataSet set, int[] order, int start, int count, SparseBatch batch,
+                                   BatchBuffers buffers) {
+        double[][] setTargets = set.getTargets();
+        double[] targets = buffers.getTargets();
+        batch.clear();
+        for (int b = 0; b < count; b++) {
+            int k = order[start + b];
+            batch.addRow(set.getIndices()[k], set.getValues()[k]);
+            System.arraycopy(setTargets[k], 0, targets, b * outputSize, outputSize);
+        }
+        batch.finish();
+    }
+
+    //computeSparseWeightSteps: Этот метод делает то же, что computeWeightSteps, для пакета разреженных входов:
+    // прямой проход и направления спуска первого слоя вычисляются по batch.
+    private void computeSparseWeightSteps(SparseBatch batch, BatchBuffers buffers, TrainingCounters counters) {
+        double[][] outputs = buffers.getOutputs();
+        double[][] gradients = buffers.getGradients();
+        double[][] steps = buffers.getWeightSteps();
+        double[][] biasSteps = buffers.getBiasSteps();
+        int count = batch.getRows();
+        int last = layers.length - 1;
+
+        long start = System.nanoTime();
+        layers[0].forward(batch, outputs[0]);
+        for (int i = 1; i <= last; i++) {
+            layers[i].forward(outputs[i - 1], outputs[i], count);
+        }
+        long forwarded = System.nanoTime();
+
+        counters.squaredError += layers[last].calculateGradients(outputs[last], buffers.getTargets(), gradients[last], count);
+        for (int i = last - 1; i >= 0; i--) {
+            layers[i].calculateGradients(outputs[i], layers[i + 1], gradients[i + 1], gradients[i], count);
+        }
+
+        Arrays.fill(biasSteps[0], 0.0);
+        layers[0].accumulateWeightSteps(batch, gradients[0], biasSteps[0]);
+        for (int i = 1; i <= last; i++) {
+            Arrays.fill(steps[i], 0.0);
+            Arrays.fill(biasSteps[i], 0.0);
+            layers[i].accumulateWeightSteps(outputs[i - 1], gradients[i], count, steps[i], biasSteps[i]);
+        }
+        long backwarded = System.nanoTime();
+        counters.forwardNanos += forwarded - start;
+        counters.backwardNanos += backwarded - forwarded;
+        counters.samples += count;
+    }
+
+    //computeWeightSteps: Этот метод выполняет прямой и обратный проходы для пакета из count примеров
+    // и накапливает изменения весов каждого слоя в buffers.getWeightSteps(). Сами веса при этом не меняются.
+    // Выходы и градиенты слоя i хранятся в buffers.getOutputs()[i] и buffers.getGradients()[i],
+    // входами слоя i служат выходы слоя i - 1 (для первого слоя - входные данные пакета).
+    // Время проходов, число примеров и сумма квадратов ошибки добавляются к counters.
+    private void computeWeightSteps(BatchBuffers buffers, int count, TrainingCounters counters) {
+        double[][] outputs = buffers.getOutputs();
+        double[][] gradients = buffers.getGradients();
+        double[][] steps = buffers.getWeightSteps();
+        double[][] biasSteps = buffers.getBiasSteps();
+        int last = layers.length - 1;
+
+        long start = System.nanoTime();
+        double[] current = buffers.getInputs();
+        for (int i = 0; i <= last; i++) {
+            layers[i].forward(current, outputs[i], count);
+            current = outputs[i];
+        }
+        long forwarded = System.nanoTime();
+
+        counters.squaredError += layers[last].calculateGradients(outputs[last], buffers.getTargets(), gradients[last], count);
+        for (int i = last - 1; i >= 0; i--) {
+            layers[i].calculateGradients(outputs[i], layers[i + 1], gradients[i + 1], gradients[i], count);
+        }
+
+        for (int i = 0; i <= last; i++) {
+            Arrays.fill(steps[i], 0.0);
+            Arrays.fill(biasSteps[i], 0.0);
+            layers[i].accumulateWeightSteps(i == 0 ? buffers.getInputs() : outputs[i - 1], gradients[i], count, steps[i], biasSteps[i]);
+        }
+        long backwarded = System.nanoTime();
+        counters.forwardNanos += forwarded - start;
+        counters.backwardNanos += backwarded - forwarded;
+        counters.samples += count;
+    }
+
+    //finishEpoch: Этот метод передает итоги эпохи epoch (с нуля) слушателям и обнуляет counters.
+    private void finishEpoch(int epoch, TrainingCounters counters, long epochStart) {
+        long elapsed = System.nanoTime() - epochStart;
+        if (!trainingListeners.isEmpty()) {
+            double loss = counters.samples > 0 ? counters.squaredError / ((double) counters.samples * outputSize) : 0.0;
+            EpochStats stats = new EpochStats(epoch + 1, counters.samples, loss, elapsed,
+                    counters.forwardNanos, counters.backwardNanos, counters.updateNanos);
+            for (TrainingListener listener : trainingListeners) {
+                listener.onEpoch(stats);
+            }
+        }
+        counters.reset();
+    }
+
+    //applyWeightSteps: Этот метод применяет накопленные в buffers направления спуска ко всем слоям через оптимизатор.
+    private void applyWeightSteps(BatchBuffers buffers) {
+        double[][] steps = buffers.getWeightSteps();
+        double[][] biasSteps = buffers.getBiasSteps();
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].applyWeightSteps(steps[i], biasSteps[i], trainingOptimizer, learningRate);
+        }
+    }
+
     //backward(double[] targets):
     // Этот метод выполняет обратное распространение ошибки в нейронной сети.
-    // Он вычисляет градиенты для каждого нейрона в скрытом и выходном слоях,
-    // а затем обновляет веса и смещения нейронов.
+    // Он вычисляет градиенты всех слоев, от выходного к первому скрытому,
+    // и возвращает сумму квадратов ошибки выходного слоя.
     // Вычисление градиента для выходного слоя:
-    // Для каждого нейрона в выходном слое вычисляется градиент.
     // Градиент - это производная функции потерь по весам нейрона.
     // Он указывает, в каком направлении нужно изменить веса, чтобы уменьшить ошибку.
     // В этом случае целевые значения (targets) используются для вычисления ошибки.
-    // Вычисление градиента для скрытого слоя:
-    // Затем для каждого нейрона в скрытом слое также вычисляется градиент.
-    // В отличие от выходного слоя, здесь нет целевых значений,
-    // поэтому градиент вычисляется на основе градиентов следующего слоя (выходного слоя).
-    // Обновление весов и смещений скрытого слоя:
-    // После вычисления градиентов для скрытого слоя веса и смещения каждого нейрона в этом слое обновляются.
-    // Обновление происходит в направлении, обратном градиенту, с шагом, определяемым скоростью обучения (learningRate).
-    // Также используется момент (momentum) для учета предыдущих обновлений весов.
-    // Обновление весов и смещений выходного слоя: Наконец, также обновляются веса и смещения каждого нейрона в выходном слое.
-    private void backward(double[] targets) {
-        int i = 0;
-        for (Neuron neuron : outputLayer) {
-            neuron.calculateGradient(targets[i++]);
-        }
-        for (Neuron neuron : hiddenLayer) {
-            neuron.calculateGradient();
+    // Вычисление градиента для скрытых слоев:
+    // Здесь нет целевых значений, поэтому градиент слоя вычисляется на основе градиентов следующего слоя.
+    private double backward(double[] targets) {
+        int last = layers.length - 1;
+        double squaredError = layers[last].calculateGradients(targets);
+        for (int i = last - 1; i >= 0; i--) {
+            layers[i].calculateGradients(layers[i + 1]);
         }
-        for (Neuron neuron : hiddenLayer) {
-            neuron.updateConnections(learningRate, momentum);
-        }
-        for (Neuron neuron : outputLayer) {
-            neuron.updateConnections(learningRate, momentum);
+        return squaredError;
+    }
+
+    //updateWeights(double[] inputs): Этот метод обновляет веса и смещения всех слоев по градиентам, вычисленным в backward.
+    // Веса первого слоя обновляются по входным данным (inputs), веса остальных слоев - по выходам предыдущего слоя.
+    // Обновление выполняет оптимизатор обучения со скоростью обучения learningRate
+    // (по умолчанию - с учетом предыдущих обновлений весов через момент momentum).
+    private void updateWeights(double[] inputs) {
+        layers[0].updateWeights(inputs, trainingOptimizer, learningRate);
+        for (int i = 1; i < layers.length; i++) {
+            layers[i].updateWeights(layers[i - 1].getOutputs(), trainingOptimizer, learningRate);
         }
     }
 
     // forward(double[] inputs): Этот метод выполняет прямое распространение в нейронной сети.
-    // Он устанавливает входные значения для каждого нейрона во входном слое,
-    // а затем вычисляет выходные значения для каждого нейрона в скрытом и выходном слоях.
-    // Вот что происходит внутри этого метода:
-    //
-    // Установка входных значений для входного слоя:
-    // Для каждого нейрона во входном слое устанавливается входное значение.
-    // Входные значения (inputs) - это данные, которые подаются на вход нейронной сети.
-    // Вычисление выходных значений для скрытого слоя:
-    // Затем для каждого нейрона в скрытом слое вычисляется выходное значение.
-    // Выходное значение нейрона вычисляется как взвешенная сумма его входных значений, пропущенная через функцию активации.
-    // Вычисление выходных значений для выходного слоя:
-    // Наконец, для каждого нейрона в выходном слое также вычисляется выходное значение.
-    // Это делается таким же образом, как и для скрытого слоя.
+    // Входные значения (inputs) передаются первому слою, а выходы каждого слоя - следующему.
+    // Каждый слой вычисляет взвешенную сумму своих входов, пропущенную через функцию активации,
+    // одним циклом умножения матрицы весов на вектор.
     private void forward(double[] inputs) {
-        int i = 0;
-        for (Neuron neuron : inputLayer) {
-            neuron.setOutput(inputs[i++]);
-        }
-        for (Neuron neuron : hiddenLayer) {
-            neuron.calculateOutput();
-        }
-        for (Neuron neuron : outputLayer) {
-            neuron.calculateOutput();
+        double[] current = inputs;
+        for (DenseLayer layer : layers) {
+            layer.forward(current);
+            current = layer.getOutputs();
         }
     }
 
@@ -220,25 +809,263 @@ public class Network {
     // Прямое распространение: Сначала выполняется прямое распространение с входными данными (inputs), вызывая метод forward(inputs).
     // Это проходит входные данные через нейронную сеть и генерирует выходные данные.
     // Сбор выходных данных: Затем выходные значения каждого нейрона в выходном слое собираются в массив output.
-    // Логирование: В конце метода выводится сообщение с входными и предсказанными значениями.
+    // Логирование: Если запись прогнозов включена (setPredictionLogging), выводится сообщение с входными и предсказанными значениями.
     // Возврат предсказаний: Метод возвращает массив output, который содержит предсказанные значения нейронной сети.
     public double[] predict(double... inputs) {
+        if (layers == null) {
+            throw new IllegalStateException("Network is not trained");
+        }
         forward(inputs);
-        double[] output = new double[outputLayer.size()];
-        for (int i = 0; i < output.length; i++) {
-            output[i] = outputLayer.get(i).getOutput();
+        double[] output = layers[layers.length - 1].getOutputs().clone();
+        if (predictionLogging && logger.isInfoEnabled()) {
+            logger.info("Input: " + Arrays.toString(inputs) + " Predicted: " + Arrays.toString(output));
         }
-        logger.info("Input: " + Arrays.toString(inputs) + " Predicted: " + Arrays.toString(output));
         return output;
     }
 
-    public void runServerAt(int port) throws IOException {
-        double[] layers = new double[3];
-        layers[0] = inputSize;
-        layers[1] = hiddenSize;
-        layers[2] = outputSize;
-        MultiLayerNetworkView.DATA_NETWORK = Arrays.toString(layers);
-        MultiLayerNetworkView multiLayerNetworkView = new MultiLayerNetworkView(port);
-        multiLayerNetworkView.start(NanoHTTPD.SOCKET_READ_TIMEOUT,false);
+    //predict(int[] indices, double[] values): Этот метод возвращает прогноз для разреженного входа:
+    // ненулевые входы - это values[i] с номерами indices[i], остальные равны нулю.
+    // Первый слой читает только столбцы ненулевых входов.
+    public double[] predict(int[] indices, double[] values) {
+        if (layers == null) {
+            throw new IllegalStateException("Network is not trained");
+        }
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException(indices.length + " indices and " + values.length + " values");
+        }
+        for (int index : indices) {
+            if (index < 0 || index >= inputSize) {
+                throw new IllegalArgumentException("Input index out of range: " + index);
+            }
+        }
+        layers[0].forward(indices, values);
+        for (int i = 1; i < layers.length; i++) {
+            layers[i].forward(layers[i - 1].getOutputs());
+        }
+        return layers[layers.length - 1].getOutputs().clone();
+    }
+
+    //newInferenceSession(): Этот метод создает неизменяемый снимок обученной сети для параллельного получения прогнозов.
+    // В отличие от predict, который записывает промежуточные выходы в слои сети и поэтому не потокобезопасен,
+    // снимок можно вызывать из многих потоков одновременно.
+    // Точность снимка задается setPrecision (по умолчанию Precision.DOUBLE).
+    public InferenceSession newInferenceSession() {
+        return newInferenceSession(precision);
+    }
+
+    //newInferenceSession(Precision precision): Этот метод создает снимок сети в заданной точности.
+    public InferenceSession newInferenceSession(Precision precision) {
+        if (layers == null) {
+            throw new IllegalStateException("Network is not trained");
+        }
+        if (activationTableResolution == 0) {
+            return new InferenceSession(layers, precision);
+        }
+        ActivationFunction[] functions = layerActivationFunctions();
+        IActivationFunction[] tables = new IActivationFunction[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            tables[i] = functions[i] == ActivationFunction.LEAKY_RELU ? layers[i].getActivationFunction()
+                    : ActivationTable.of(functions[i], layers[i].getActivationFunction(), activationTableResolution);
+        }
+        return new InferenceSession(layers, precision, tables);
+    }
+
+    //save(Path path): Этот метод сохраняет обученную сеть в двоичную контрольную точку (см. ModelCheckpoint).
+    public void save(Path path) throws IOException {
+        if (layers == null) {
+            throw new IllegalStateException("Network is not trained");
+        }
+        ModelCheckpoint.write(path, checkpoint(layers));
+    }
+
+    //exportGraph(Path path): Этот метод сохраняет обученную сеть в переносимый граф вычислений (см. ModelGraph):
+    // размеры слоев, функции активации, веса и смещения, без состояния обучения.
+    // Граф можно выполнить в другом сервисе без этой библиотеки.
+    public void exportGraph(Path path) throws IOException {
+        if (layers == null) {
+            throw new IllegalStateException("Network is not trained");
+        }
+        ModelGraph.write(path, checkpoint(layers));
+    }
+
+    //exportInferenceSource(Path sourceRoot, String className): Этот метод генерирует исходный код класса className
+    // (полное имя) для прогнозов этой сети без зависимостей, кроме JDK (см. InferenceSourceGenerator),
+    // записывает его под sourceRoot и возвращает путь к файлу.
+    // Класс содержит текущие веса: после дообучения его нужно сгенерировать заново.
+    public Path exportInferenceSource(Path sourceRoot, String className) throws IOException {
+        if (layers == null) {
+            throw new IllegalStateException("Network is not trained");
+        }
+        return InferenceSourceGenerator.write(sourceRoot, checkpoint(layers), className);
+    }
+
+    //checkpoint(DenseLayer[] layers): Этот метод создает контрольную точку этой сети с заданными слоями
+    // (например, с сохраненной копией лучших весов).
+    ModelCheckpoint checkpoint(DenseLayer[] layers) {
+        return ModelCheckpoint.of(layerActivationFunctions(), learningRate, momentum, layers);
+    }
+
+    //copyLayers(): Этот метод возвращает независимые копии слоев сети (снимок весов).
+    DenseLayer[] copyLayers() {
+        if (layers == null) {
+            throw new IllegalStateException("Network is not trained");
+        }
+        DenseLayer[] copies = new DenseLayer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            copies[i] = layers[i].copy();
+        }
+        return copies;
+    }
+
+    //restoreLayers(DenseLayer[] layers): Этот метод заменяет слои сети копиями заданных слоев.
+    // Его нельзя вызывать во время обучения.
+    void restoreLayers(DenseLayer[] layers) {
+        DenseLayer[] copies = new DenseLayer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            copies[i] = layers[i].copy();
+        }
+        this.layers = copies;
+    }
+
+    //load(Path path): Этот метод загружает сеть из контрольной точки.
+    // Число и размеры слоев, а также функции активации слоев берутся из контрольной точки.
+    // Загруженная сеть сразу готова к predict и newInferenceSession.
+    public static Network load(Path path) throws IOException {
+        ModelCheckpoint checkpoint = ModelCheckpoint.read(path);
+        int[] sizes = checkpoint.getLayerSizes();
+        ActivationFunction[] functions = checkpoint.getActivationFunctions();
+        LayerSpec[] specs = new LayerSpec[sizes.length - 1];
+        DenseLayer[] layers = new DenseLayer[sizes.length - 1];
+        for (int i = 0; i < layers.length; i++) {
+            specs[i] = new LayerSpec(sizes[i + 1], functions[i]);
+            layers[i] = new DenseLayer(sizes[i], sizes[i + 1], newActivationFunction(functions[i]),
+                    checkpoint.getWeights()[i], checkpoint.getWeightDeltas()[i], checkpoint.getBiases()[i]);
+        }
+        Network network = new Network(sizes[0], specs);
+        network.setLearningRate(checkpoint.getLearningRate());
+        network.setMomentum(checkpoint.getMomentum());
+        network.layers = layers;
+        return network;
+    }
+
+    //runServerAt(int port): Этот метод запускает сервер сети (NetworkHttpServer) и возвращает его для остановки.
+    public NetworkHttpServer runServerAt(int port) throws IOException {
+        NetworkHttpServer server = new NetworkHttpServer(port, this);
+        server.start();
+        return server;
+    }
+
+    //TrainingCounters: Это счетчики одной эпохи одного потока обучения: время фаз, число примеров и сумма квадратов ошибки.
+    // Поля изменяются без синхронизации, поэтому у каждого исполнителя свой объект.
+    private static final class TrainingCounters {
+        private long forwardNanos;
+        private long backwardNanos;
+        private long updateNanos;
+        private long samples;
+        private double squaredError;
+
+        private void add(TrainingCounters other) {
+            forwardNanos += other.forwardNanos;
+            backwardNanos += other.backwardNanos;
+            updateNanos += other.updateNanos;
+            samples += other.samples;
+            squaredError += other.squaredError;
+        }
+
+        private void reset() {
+            forwardNanos = 0;
+            backwardNanos = 0;
+            updateNanos = 0;
+            samples = 0;
+            squaredError = 0.0;
+        }
+    }
+
+    //Builder: Это построитель сети произвольной глубины.
+    // Каждый вызов layer добавляет следующий слой; последний добавленный слой является выходным.
+    public static final class Builder {
+        private final int inputSize;
+        private final List<LayerSpec> layers = new ArrayList<>();
+        private ActivationFunction activationFunction;
+        private Precision precision = Precision.DOUBLE;
+        private int activationTableResolution;
+        private Optimizer optimizer;
+        private WeightInit weightInit;
+        private Double learningRate;
+        private Double momentum;
+        private Long seed;
+
+        private Builder(int inputSize) {
+            this.inputSize = inputSize;
+        }
+
+        public Builder layer(int size, ActivationFunction activationFunction) {
+            return layer(new LayerSpec(size, activationFunction));
+        }
+
+        public Builder layer(LayerSpec spec) {
+            layers.add(spec);
+            return this;
+        }
+
+        //activationFunction: Это функция активации для слоев, у которых она не задана в LayerSpec.
+        public Builder activationFunction(ActivationFunction activationFunction) {
+            this.activationFunction = activationFunction;
+            return this;
+        }
+
+        public Builder precision(Precision precision) {
+            this.precision = precision;
+            return this;
+        }
+
+        //activationTables: Это разрешение таблиц функций активации для снимков сети (см. setActivationTables).
+        public Builder activationTables(int intervalsPerUnit) {
+            this.activationTableResolution = intervalsPerUnit;
+            return this;
+        }
+
+        public Builder optimizer(Optimizer optimizer) {
+            this.optimizer = optimizer;
+            return this;
+        }
+
+        //weightInit: Это схема начальных весов всех слоев; без нее схема выбирается по функции активации слоя.
+        public Builder weightInit(WeightInit weightInit) {
+            this.weightInit = weightInit;
+            return this;
+        }
+
+        public Builder learningRate(double learningRate) {
+            this.learningRate = learningRate;
+            return this;
+        }
+
+        public Builder momentum(double momentum) {
+            this.momentum = momentum;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Network build() {
+            Network network = new Network(inputSize, layers.toArray(new LayerSpec[0]));
+            network.activationFunction = activationFunction;
+            network.precision = precision;
+            network.setActivationTables(activationTableResolution);
+            network.optimizer = optimizer;
+            network.weightInit = weightInit;
+            if (learningRate != null) {
+                network.setLearningRate(learningRate);
+            }
+            if (momentum != null) {
+                network.setMomentum(momentum);
+            }
+            network.seed = seed;
+            return network;
+        }
     }
 }
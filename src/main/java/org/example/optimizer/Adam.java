@@ -0,0 +1,71 @@
+package org.example.optimizer;
+
+/*
+ * Adam - это градиентный спуск с адаптивным шагом по первому и второму моментам направления (Kingma, Ba, 2014):
+ * m = beta1 * m + (1 - beta1) * d, v = beta2 * v + (1 - beta2) * d^2.
+ * Поправка смещения моментов внесена в шаг: lr_t = lr * sqrt(1 - beta2^t) / (1 - beta1^t),
+ * параметр сдвигается на lr_t * m / (sqrt(v) + epsilon). Поэтому Math.pow вычисляется один раз за вызов update,
+ * а не для каждого параметра. Состояние (два массива) - моменты m и v.
+ * */
+public final class Adam implements Optimizer {
+
+    private final double beta1;
+    private final double beta2;
+    private final double epsilon;
+
+    public Adam() {
+        this(0.9, 0.999, 1e-8);
+    }
+
+    public Adam(double beta1, double beta2, double epsilon) {
+        if (beta1 < 0.0 || beta1 >= 1.0 || beta2 < 0.0 || beta2 >= 1.0) {
+            throw new IllegalArgumentException("beta1 and beta2 must be in [0, 1): " + beta1 + ", " + beta2);
+        }
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public int getStateSlots() {
+        return 2;
+    }
+
+    @Override
+    public void update(double[] parameters, double[][] state, int offset, double[] directions, int directionOffset,
+                       double scale, int length, double learningRate, long step) {
+        double[] first = state[0];
+        double[] second = state[1];
+        double rate = learningRate * Math.sqrt(1.0 - Math.pow(beta2, step)) / (1.0 - Math.pow(beta1, step));
+        double keep1 = 1.0 - beta1;
+        double keep2 = 1.0 - beta2;
+        for (int i = 0; i < length; i++) {
+            int p = offset + i;
+            double d = scale * directions[directionOffset + i];
+            double m = beta1 * first[p] + keep1 * d;
+            double v = beta2 * second[p] + keep2 * d * d;
+            first[p] = m;
+            second[p] = v;
+            parameters[p] += rate * m / (Math.sqrt(v) + epsilon);
+        }
+    }
+
+    @Override
+    public void updateIndexed(double[] parameters, double[][] state, int offset, int[] indices, double[] directions,
+                              int directionOffset, double scale, int length, double learningRate, long step) {
+        double[] first = state[0];
+        double[] second = state[1];
+        double rate = learningRate * Math.sqrt(1.0 - Math.pow(beta2, step)) / (1.0 - Math.pow(beta1, step));
+        double keep1 = 1.0 - beta1;
+        double keep2 = 1.0 - beta2;
+        for (int i = 0; i < length; i++) {
+            int p = offset + indices[i];
+            double d = scale * directions[directionOffset + i];
+            double m = beta1 * first[p] + keep1 * d;
+            double v = beta2 * second[p] + keep2 * d * d;
+            first[p] = m;
+            second[p] = v;
+            parameters[p] += rate * m / (Math.sqrt(v) + epsilon);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.optimizer;
+
+/*
+ * MomentumSgd - это стохастический градиентный спуск с моментом, правило, которым сеть обучалась всегда.
+ * Изменение параметра равно delta = lr * d, а к параметру добавляется delta плюс momentum, умноженный на предыдущее
+ * изменение. Состояние (один массив) - предыдущие изменения; для весов это DenseLayer.weightDeltas.
+ * По умолчанию сеть использует MomentumSgd с моментом Network.setMomentum.
+ * */
+public final class MomentumSgd implements Optimizer {
+
+    private final double momentum;
+
+    public MomentumSgd(double momentum) {
+        this.momentum = momentum;
+    }
+
+    @Override
+    public int getStateSlots() {
+        return 1;
+    }
+
+    @Override
+    public void update(double[] parameters, double[][] state, int offset, double[] directions, int directionOffset,
+                       double scale, int length, double learningRate, long step) {
+        double[] deltas = state[0];
+        for (int i = 0; i < length; i++) {
+            int p = offset + i;
+            double prevDelta = deltas[p];
+            double delta = learningRate * (scale * directions[directionOffset + i]);
+            deltas[p] = delta;
+            parameters[p] += delta + momentum * prevDelta;
+        }
+    }
+
+    @Override
+    public void updateIndexed(double[] parameters, double[][] state, int offset, int[] indices, double[] directions,
+                              int directionOffset, double scale, int length, double learningRate, long step) {
+        double[] deltas = state[0];
+        for (int i = 0; i < length; i++) {
+            int p = offset + indices[i];
+            double prevDelta = deltas[p];
+            double delta = learningRate * (scale * directions[directionOffset + i]);
+            deltas[p] = delta;
+            parameters[p] += delta + momentum * prevDelta;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.optimizer;
+
+/*
+ * Nesterov - это градиентный спуск с моментом Нестерова.
+ * Скорость v накапливается как v = momentum * v + lr * d, а параметр сдвигается на momentum * v + lr * d,
+ * то есть на шаг, посчитанный уже в точке "заглядывания вперед" (форма из Sutskever et al., 2013,
+ * в которой градиент считается в текущей точке). Состояние (один массив) - скорость v.
+ * */
+public final class Nesterov implements Optimizer {
+
+    private final double momentum;
+
+    public Nesterov(double momentum) {
+        this.momentum = momentum;
+    }
+
+    @Override
+    public int getStateSlots() {
+        return 1;
+    }
+
+    @Override
+    public void update(double[] parameters, double[][] state, int offset, double[] directions, int directionOffset,
+                       double scale, int length, double learningRate, long step) {
+        double[] velocity = state[0];
+        for (int i = 0; i < length; i++) {
+            int p = offset + i;
+            double delta = learningRate * (scale * directions[directionOffset + i]);
+            double v = momentum * velocity[p] + delta;
+            velocity[p] = v;
+            parameters[p] += momentum * v + delta;
+        }
+    }
+
+    @Override
+    public void updateIndexed(double[] parameters, double[][] state, int offset, int[] indices, double[] directions,
+                              int directionOffset, double scale, int length, double learningRate, long step) {
+        double[] velocity = state[0];
+        for (int i = 0; i < length; i++) {
+            int p = offset + indices[i];
+            double delta = learningRate * (scale * directions[directionOffset + i]);
+            double v = momentum * velocity[p] + delta;
+            velocity[p] = v;
+            parameters[p] += momentum * v + delta;
+        }
+    }
+}
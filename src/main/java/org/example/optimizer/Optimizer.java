@@ -0,0 +1,41 @@
+package org.example.optimizer;
+
+/*
+ * Optimizer - это правило обновления параметров слоя (весов или смещений) по направлению спуска.
+ *
+ * Направление спуска d - это антиградиент функции потерь по параметру, как его считает сеть:
+ * для веса связи k -> j это gradient[j] * input[k] (сумма по примерам пакета), для смещения - gradient[j].
+ *
+ * Состояние: Оптимизатор сам ничего не хранит, кроме гиперпараметров, поэтому один объект можно использовать
+ * для многих слоев и сетей. Его состояние - getStateSlots() массивов той же длины, что и массив параметров
+ * (например, скорость для момента или первый и второй моменты для Adam); их создает и хранит слой (DenseLayer).
+ *
+ * update: Это одно слитое обновление параметров и состояния за один проход по памяти.
+ * Для i от 0 до length - 1 направление равно d = scale * directions[directionOffset + i],
+ * а обновляются parameters[offset + i] и state[s][offset + i].
+ * Через scale и directionOffset одно и то же ядро обновляет и матрицу весов целиком по накопленным за пакет суммам
+ * (scale = 1), и строку весов нейрона j при обучении по одному примеру (directions = входы слоя, scale = gradient[j]),
+ * не создавая промежуточного массива направлений.
+ * step: Это номер обновления слоя, начиная с 1 (нужен Adam для поправки смещения моментов).
+ *
+ * updateIndexed: Это то же обновление только для параметров parameters[offset + indices[i]], i от 0 до length - 1,
+ * с направлениями scale * directions[directionOffset + i]. Его использует обучение на разреженных входах
+ * (SparseMLDataSet): в строке весов первого слоя обновляются только столбцы ненулевых входов.
+ * Остальные параметры и их состояние не меняются, поэтому для оптимизаторов с состоянием это "ленивое" обновление:
+ * момент столбца, который не встретился в пакете, не сдвигает его вес, пока столбец не встретится снова.
+ * Реализация по умолчанию вызывает update для каждого параметра; встроенные оптимизаторы переопределяют ее одним циклом.
+ * */
+public interface Optimizer {
+
+    int getStateSlots();
+
+    void update(double[] parameters, double[][] state, int offset, double[] directions, int directionOffset,
+                double scale, int length, double learningRate, long step);
+
+    default void updateIndexed(double[] parameters, double[][] state, int offset, int[] indices, double[] directions,
+                               int directionOffset, double scale, int length, double learningRate, long step) {
+        for (int i = 0; i < length; i++) {
+            update(parameters, state, offset + indices[i], directions, directionOffset + i, scale, 1, learningRate, step);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.optimizer;
+
+/*
+ * RmsProp - это градиентный спуск с шагом, нормированным на скользящее среднее квадрата направления:
+ * s = decay * s + (1 - decay) * d^2, параметр сдвигается на lr * d / (sqrt(s) + epsilon).
+ * Состояние (один массив) - среднее квадратов s.
+ * */
+public final class RmsProp implements Optimizer {
+
+    private final double decay;
+    private final double epsilon;
+
+    public RmsProp() {
+        this(0.9, 1e-8);
+    }
+
+    public RmsProp(double decay, double epsilon) {
+        if (decay < 0.0 || decay >= 1.0) {
+            throw new IllegalArgumentException("decay must be in [0, 1): " + decay);
+        }
+        this.decay = decay;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public int getStateSlots() {
+        return 1;
+    }
+
+    @Override
+    public void update(double[] parameters, double[][] state, int offset, double[] directions, int directionOffset,
+                       double scale, int length, double learningRate, long step) {
+        double[] meanSquare = state[0];
+        double keep = 1.0 - decay;
+        for (int i = 0; i < length; i++) {
+            int p = offset + i;
+            double d = scale * directions[directionOffset + i];
+            double s = decay * meanSquare[p] + keep * d * d;
+            meanSquare[p] = s;
+            parameters[p] += learningRate * d / (Math.sqrt(s) + epsilon);
+        }
+    }
+
+    @Override
+    public void updateIndexed(double[] parameters, double[][] state, int offset, int[] indices, double[] directions,
+                              int directionOffset, double scale, int length, double learningRate, long step) {
+        double[] meanSquare = state[0];
+        double keep = 1.0 - decay;
+        for (int i = 0; i < length; i++) {
+            int p = offset + indices[i];
+            double d = scale * directions[directionOffset + i];
+            double s = decay * meanSquare[p] + keep * d * d;
+            meanSquare[p] = s;
+            parameters[p] += learningRate * d / (Math.sqrt(s) + epsilon);
+        }
+    }
+}
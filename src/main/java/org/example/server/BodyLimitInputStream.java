@@ -0,0 +1,62 @@
+package org.example.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * BodyLimitInputStream - это поток тела запроса, который считает прочитанные байты и бросает
+ * PayloadTooLargeException, как только их больше maxBytes.
+ * Он ограничивает тело любого формата, в том числе переданное без Content-Length (chunked), для которого
+ * объявленную длину нельзя проверить заранее. close() не закрывает исходный поток: им владеет сервер.
+ * */
+class BodyLimitInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long read;
+
+    BodyLimitInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = in.read();
+        if (value >= 0) {
+            count(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void count(long bytes) {
+        read += bytes;
+        if (read > maxBytes) {
+            throw new PayloadTooLargeException("Body exceeds the limit of " + maxBytes + " bytes");
+        }
+    }
+}
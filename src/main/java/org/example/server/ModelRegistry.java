@@ -0,0 +1,201 @@
+package org.example.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.model.Precision;
+import org.example.network.InferenceSession;
+import org.example.network.Network;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/*
+ * ModelRegistry - это реестр моделей сервера, доступных по идентификатору (GET/POST /models/{id}/...).
+ *
+ * Загрузка: Модель с идентификатором id загружается при первом обращении из контрольной точки directory/{id}.bin
+ * (см. ModelCheckpoint) и сразу превращается в неизменяемый снимок (InferenceSession) в точности precision.
+ * Сеть, из которой создан снимок, не сохраняется, поэтому у моделей нет общего изменяемого состояния,
+ * а снимок можно вызывать из любого числа потоков.
+ * Одновременные обращения к еще не загруженной модели ждут одну и ту же загрузку; загрузки разных моделей
+ * выполняются параллельно и не блокируют обращения к уже загруженным моделям.
+ *
+ * Кэш: Загруженные снимки хранятся в кэше LRU, размер которого считается в байтах массивов, удерживаемых снимками
+ * (InferenceSession.getRetainedBytes): снимок DOUBLE хранит только веса и смещения, без изменений весов
+ * и буферов обучения (DenseLayer.inferenceCopy), поэтому счетчик совпадает с фактическим объемом с точностью
+ * до заголовков объектов. Когда сумма превышает maxBytes, вытесняются давно не использованные модели.
+ * Модель, которая одна больше maxBytes, загружается для запроса, но не кэшируется.
+ *
+ * Статистика: getHits, getMisses (каждая загрузка с диска), getEvictions и getLoadFailures - счетчики за все время,
+ * getCachedModels и getCachedBytes - текущее содержимое кэша. Они выводятся в ServerMetrics.
+ *
+ * Идентификатор модели может состоять только из латинских букв, цифр, '-' и '_', чтобы не выходить за пределы directory.
+ * */
+public final class ModelRegistry {
+
+    private static final Logger logger = LogManager.getLogger(ModelRegistry.class);
+    public static final String CHECKPOINT_SUFFIX = ".bin";
+    private static final Pattern MODEL_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Precision precision;
+    // Порядок доступа (accessOrder) делает LinkedHashMap списком LRU: первый элемент - давно не использованный.
+    private final LinkedHashMap<String, InferenceSession> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<InferenceSession>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private long cachedBytes;
+
+    public ModelRegistry(Path directory, long maxBytes) {
+        this(directory, maxBytes, Precision.DOUBLE);
+    }
+
+    // directory: Это каталог с контрольными точками моделей.
+    // maxBytes: Это наибольший суммарный объем загруженных моделей (см. InferenceSession.getRetainedBytes).
+    // precision: Это точность снимков (FLOAT и INT8 занимают в кэше меньше места).
+    public ModelRegistry(Path directory, long maxBytes, Precision precision) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.precision = precision;
+    }
+
+    //isValidId(String id): Этот метод проверяет, может ли строка быть идентификатором модели.
+    public static boolean isValidId(String id) {
+        return id != null && MODEL_ID.matcher(id).matches();
+    }
+
+    //get(String id): Этот метод возвращает снимок модели, при необходимости загружая его с диска.
+    // Бросает IllegalArgumentException для неверного идентификатора, NoSuchFileException, если модели нет,
+    // и IOException, если контрольная точка повреждена или загрузка прервалась ошибкой (Error, например OutOfMemoryError).
+    public InferenceSession get(String id) throws IOException {
+        if (!isValidId(id)) {
+            throw new IllegalArgumentException("Invalid model id: " + id);
+        }
+        synchronized (cache) {
+            InferenceSession session = cache.get(id);
+            if (session != null) {
+                hits.incrementAndGet();
+                return session;
+            }
+        }
+        CompletableFuture<InferenceSession> future = new CompletableFuture<>();
+        CompletableFuture<InferenceSession> existing = loading.putIfAbsent(id, future);
+        if (existing == null) {
+            load(id, future);
+            existing = future;
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading model " + id, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to load model " + id, cause);
+        }
+    }
+
+    //evict(String id): Этот метод удаляет модель из кэша (например, после замены ее контрольной точки на диске).
+    // Следующее обращение загрузит модель заново.
+    public boolean evict(String id) {
+        synchronized (cache) {
+            InferenceSession removed = cache.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            cachedBytes -= removed.getRetainedBytes();
+            return true;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.get();
+    }
+
+    public int getCachedModels() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getCachedBytes() {
+        synchronized (cache) {
+            return cachedBytes;
+        }
+    }
+
+    // load: Этот метод загружает модель в потоке первого обратившегося запроса и завершает future,
+    // которого ждут остальные. Загрузка выполняется вне блокировки кэша.
+    // future завершается при любой ошибке, включая Error, иначе ожидающие запросы ждали бы его вечно.
+    private void load(String id, CompletableFuture<InferenceSession> future) {
+        misses.incrementAndGet();
+        try {
+            InferenceSession session = Network.load(directory.resolve(id + CHECKPOINT_SUFFIX)).newInferenceSession(precision);
+            admit(id, session);
+            future.complete(session);
+        } catch (Throwable e) {
+            loadFailures.incrementAndGet();
+            future.completeExceptionally(e);
+        } finally {
+            loading.remove(id, future);
+        }
+    }
+
+    private void admit(String id, InferenceSession session) {
+        long bytes = session.getRetainedBytes();
+        if (bytes > maxBytes) {
+            logger.warn("Model " + id + " needs " + bytes + " bytes, more than the cache limit of " + maxBytes
+                    + "; it will not be cached");
+            return;
+        }
+        synchronized (cache) {
+            InferenceSession previous = cache.put(id, session);
+            if (previous != null) {
+                cachedBytes -= previous.getRetainedBytes();
+            }
+            cachedBytes += bytes;
+            Iterator<Map.Entry<String, InferenceSession>> eldest = cache.entrySet().iterator();
+            while (cachedBytes > maxBytes) {
+                Map.Entry<String, InferenceSession> entry = eldest.next();
+                cachedBytes -= entry.getValue().getRetainedBytes();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+}
@@ -1,87 +1,185 @@
 package org.example.server;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import fi.iki.elonen.NanoHTTPD;
+import org.example.network.InferenceSession;
+import org.example.network.Network;
 
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketException;
 
+/*
+ * MultiLayerNetworkView - это сервер сети на NanoHTTPD. Маршруты описаны в NetworkEndpoints.
+ * NanoHTTPD создает поток на каждое соединение и не ограничивает их число, поэтому под всплесками нагрузки
+ * лучше использовать NetworkHttpServer с теми же маршрутами и ограничением одновременных запросов.
+ * */
 public class MultiLayerNetworkView extends NanoHTTPD {
-    public static String DATA_NETWORK = "";
+    public static final long DEFAULT_BATCH_WINDOW_MICROS = 1000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    // В NanoHTTPD 2.2.0 нет статусов 413, 429, 503 и 504, которые возвращают маршруты, поэтому они объявлены здесь.
+    private static final Response.IStatus PAYLOAD_TOO_LARGE = customStatus(413, "Payload Too Large");
+    private static final Response.IStatus TOO_MANY_REQUESTS = customStatus(429, "Too Many Requests");
+    private static final Response.IStatus SERVICE_UNAVAILABLE = customStatus(503, "Service Unavailable");
+    private static final Response.IStatus GATEWAY_TIMEOUT = customStatus(504, "Gateway Timeout");
+
+    private final NetworkEndpoints endpoints;
 
     public MultiLayerNetworkView(int port) {
+        this(port, (Network) null);
+    }
+
+    public MultiLayerNetworkView(int port, Network network) {
+        this(port, network, DEFAULT_BATCH_WINDOW_MICROS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public MultiLayerNetworkView(int port, Network network, long batchWindowMicros, int maxBatchSize) {
+        this(port, network, batchWindowMicros, maxBatchSize, 0);
+    }
+
+    // batchWindowMicros: Это окно, в течение которого одновременные запросы /predict собираются в один пакет.
+    // maxBatchSize: Это максимальное число строк входных данных в одном пакете.
+    // publishEveryEpochs: Это период (в эпохах), с которым фоновое обучение публикует промежуточные снимки
+    // для заданий, которые просят об этом (publishSnapshots); 0 - снимок публикуется только по окончании задания.
+    // Каждое задание обучает сеть со свежих весов, поэтому без publishSnapshots прежний снимок не заменяется
+    // менее обученным до конца задания (см. TrainingService).
+    // Прогнозы вычисляются только на опубликованном снимке, поэтому обучение (POST /train) не блокирует их
+    // и не может показать им наполовину обновленные веса.
+    public MultiLayerNetworkView(int port, Network network, long batchWindowMicros, int maxBatchSize, int publishEveryEpochs) {
+        this(port, network, null, batchWindowMicros, maxBatchSize, publishEveryEpochs);
+    }
+
+    public MultiLayerNetworkView(int port, ModelRegistry models) {
+        this(port, null, models, DEFAULT_BATCH_WINDOW_MICROS, DEFAULT_MAX_BATCH_SIZE, 0);
+    }
+
+    // models: Это реестр моделей, которые обслуживаются по POST /models/{id}/predict (может быть null).
+    // Сервер может одновременно обслуживать свою сеть (/predict, /train) и модели реестра.
+    public MultiLayerNetworkView(int port, Network network, ModelRegistry models, long batchWindowMicros, int maxBatchSize,
+                                 int publishEveryEpochs) {
+        this(port, network, models, batchWindowMicros, maxBatchSize, publishEveryEpochs, ServerLimits.DEFAULTS);
+    }
+
+    // limits: Это ограничения запросов клиентов (см. ServerLimits).
+    public MultiLayerNetworkView(int port, Network network, ModelRegistry models, long batchWindowMicros, int maxBatchSize,
+                                 int publishEveryEpochs, ServerLimits limits) {
         super(port);
+        this.endpoints = new NetworkEndpoints(network, models, batchWindowMicros, maxBatchSize, publishEveryEpochs,
+                limits);
+    }
+
+    public ServerMetrics getMetrics() {
+        return endpoints.getMetrics();
+    }
+
+    //publish(InferenceSession session): Этот метод атомарно заменяет снимок, на котором вычисляются прогнозы.
+    // Его вызывает фоновое обучение; его также можно вызвать после обучения сети вне сервера.
+    // Пакеты, которые уже вычисляются, заканчиваются на прежнем снимке.
+    public void publish(InferenceSession session) {
+        endpoints.publish(session);
     }
 
     @Override
     public Response serve(IHTTPSession session) {
-        Method method = session.getMethod();
-        if (Method.GET.equals(method)) {
-            return handleGetRequest(session);
-        } else if (Method.POST.equals(method)) {
-            return handlePostRequest(session);
-        } else {
-            return newFixedLengthResponse(Response.Status.NOT_FOUND, MIME_PLAINTEXT, "Not Found");
+        NetworkEndpoints.Reply reply = endpoints.handle(new SessionRequest(session));
+        return newFixedLengthResponse(status(reply.status), reply.contentType,
+                new ByteArrayInputStream(reply.body), reply.body.length);
+    }
+
+    // createClientHandler: Для каждого соединения отключается алгоритм Нейгла (TCP_NODELAY): NanoHTTPD пишет заголовки
+    // и тело ответа отдельно, и без этого тело ждет подтверждения заголовков, которое клиент откладывает до 40 мс.
+    @Override
+    protected ClientHandler createClientHandler(Socket socket, InputStream inputStream) {
+        try {
+            socket.setTcpNoDelay(true);
+        } catch (SocketException e) {
+            // Соединение уже закрыто; обработчик узнает об этом при чтении запроса.
         }
+        return super.createClientHandler(socket, inputStream);
     }
 
-    private Response handleGetRequest(IHTTPSession session) {
-        // Вернуть информацию о нейронной сети
-        return newFixedLengthResponse(DATA_NETWORK);
+    @Override
+    public void stop() {
+        super.stop();
+        endpoints.close();
     }
 
-    private Response handlePostRequest(IHTTPSession session) {
-        // Обучить нейронную сеть на основе данных из запроса
-        Map<String, String> files = new HashMap<>();
-        try {
-            session.parseBody(files);
-        } catch (IOException | ResponseException e) {
-            e.printStackTrace();
-            return newFixedLengthResponse(Response.Status.INTERNAL_ERROR, MIME_PLAINTEXT, "Internal Server Error");
-        }
-        String postData = files.get("postData");
-        // Преобразовать данные в формат, подходящий для обучения нейронной сети
-        TrainingData trainingData = parseTrainingData(postData);
+    //status(int code): Этот метод находит статус NanoHTTPD для кода ответа маршрута.
+    // Неизвестный код - ошибка в маршрутах, поэтому он отдается как 500, а не как один из известных статусов.
+    private static Response.IStatus status(int code) {
+        return switch (code) {
+            case 413 -> PAYLOAD_TOO_LARGE;
+            case 429 -> TOO_MANY_REQUESTS;
+            case 503 -> SERVICE_UNAVAILABLE;
+            case 504 -> GATEWAY_TIMEOUT;
+            default -> {
+                for (Response.Status status : Response.Status.values()) {
+                    if (status.getRequestStatus() == code) {
+                        yield status;
+                    }
+                }
+                yield Response.Status.INTERNAL_ERROR;
+            }
+        };
+    }
 
-        // Обучить нейронную сеть на основе данных из запроса
-        trainNetwork(trainingData);
+    private static Response.IStatus customStatus(int code, String reason) {
+        return new Response.IStatus() {
+            @Override
+            public String getDescription() {
+                return code + " " + reason;
+            }
 
-        return newFixedLengthResponse(getText());
+            @Override
+            public int getRequestStatus() {
+                return code;
+            }
+        };
     }
 
-    private TrainingData parseTrainingData(String postData) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        TrainingData trainingData = null;
-        try {
-            trainingData = objectMapper.readValue(postData, TrainingData.class);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+    //SessionRequest: Это запрос NanoHTTPD в виде NetworkEndpoints.Request.
+    // NanoHTTPD уже приводит имена заголовков к нижнему регистру.
+    private static final class SessionRequest implements NetworkEndpoints.Request {
+        private final IHTTPSession session;
+
+        private SessionRequest(IHTTPSession session) {
+            this.session = session;
         }
-        return trainingData;
-    }
 
-    private void trainNetwork(TrainingData trainingData) {
-        // Здесь добавьте логику обучения нейронной сети на основе trainingData
-        // ...
-    }
+        @Override
+        public String getMethod() {
+            return session.getMethod() != null ? session.getMethod().name() : "";
+        }
 
-    public String getText() {
-        String msg = "<!DOCTYPE html>\n" +
-                "<html lang=\"en\">\n" +
-                "<head>\n" +
-                "    <meta charset=\"UTF-8\">\n" +
-                "    <title>OpenBox</title>\n" +
-                "</head>\n" +
-                "<body>\n" +
-                "    <canvas id=\"myCanvas\" width=\"3000\" height=\"500\"></canvas>\n" +
-                "    <script type=\"application/javascript\" language=\"javascript\">\n" +
-                "        // JavaScript-код здесь...\n" +
-                "    </script>\n" +
-                "</body>\n" +
-                "</html>";
-        return msg;
+        @Override
+        public String getPath() {
+            return session.getUri();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return session.getHeaders().get(name);
+        }
+
+        @Override
+        public String getParameter(String name) {
+            return session.getParms().get(name);
+        }
+
+        // getBody(): Тело ограничивается по Content-Length и читается кодеком напрямую из соединения,
+        // без копирования в строку.
+        @Override
+        public InputStream getBody() {
+            String contentLength = session.getHeaders().get("content-length");
+            if (contentLength == null) {
+                throw new IllegalArgumentException("Content-Length is required");
+            }
+            try {
+                return new RequestBodyInputStream(session.getInputStream(), Long.parseLong(contentLength.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid Content-Length: " + contentLength);
+            }
+        }
     }
 }
@@ -0,0 +1,394 @@
+package org.example.server;
+
+import org.example.network.InferenceSession;
+import org.example.network.Network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * NetworkEndpoints - это обработчики маршрутов сервера, не зависящие от HTTP-сервера, который их вызывает.
+ * Их используют MultiLayerNetworkView (NanoHTTPD) и NetworkHttpServer (com.sun.net.httpserver), поэтому
+ * оба сервера отвечают на одни и те же запросы одинаково:
+ *
+ * POST /predict - прогноз опубликованного снимка сети через микропакетирование (PredictionBatcher);
+ * 503, если очередь микропакетирования заполнена, и 504, если результат не получен за
+ * ServerLimits.getPredictTimeoutMillis (такой запрос уже не вычисляется, если диспетчер до него еще не дошел);
+ * POST /models/{id}/predict - прогноз модели из реестра (ModelRegistry);
+ * GET /metrics - метрики в формате Prometheus (ServerMetrics);
+ * GET /jobs/{id} - состояние задания на обучение;
+ * GET (любой другой путь) - размеры слоев сети;
+ * POST (любой другой путь) - задание на фоновое обучение (TrainingService), ответ 202 с его состоянием;
+ * 429, если очередь заданий заполнена (см. ServerLimits).
+ *
+ * Сервер передает запрос как Request и отправляет полученный Reply целиком (с Content-Length).
+ * */
+final class NetworkEndpoints implements AutoCloseable {
+
+    static final String MIME_PLAINTEXT = "text/plain";
+    static final String MIME_HTML = "text/html";
+    private static final String JOBS_PATH = "/jobs/";
+    private static final String MODELS_PATH = "/models/";
+    private static final String PREDICT_SUFFIX = "/predict";
+    // В HttpURLConnection нет константы для 429.
+    static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final Network network;
+    private final long batchWindowMicros;
+    private final int maxBatchSize;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final TrainingService trainingService;
+    private final ModelRegistry models;
+    private final ServerLimits limits;
+    private volatile InferenceSession published;
+    private PredictionBatcher predictionBatcher;
+
+    // Параметры описаны в конструкторе MultiLayerNetworkView.
+    NetworkEndpoints(Network network, ModelRegistry models, long batchWindowMicros, int maxBatchSize,
+                     int publishEveryEpochs, ServerLimits limits) {
+        this.network = network;
+        this.models = models;
+        this.limits = limits;
+        if (models != null) {
+            metrics.setModels(models);
+        }
+        this.batchWindowMicros = batchWindowMicros;
+        this.maxBatchSize = maxBatchSize;
+        if (network != null) {
+            network.addTrainingListener(metrics.getTraining());
+            this.trainingService = new TrainingService(network, this::publish, publishEveryEpochs, limits);
+            if (network.isTrained()) {
+                this.published = network.newInferenceSession();
+            }
+        } else {
+            this.trainingService = null;
+        }
+    }
+
+    ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    //publish(InferenceSession session): Этот метод атомарно заменяет снимок, на котором вычисляются прогнозы.
+    // Пакеты, которые уже вычисляются, заканчиваются на прежнем снимке.
+    void publish(InferenceSession session) {
+        published = session;
+        synchronized (this) {
+            if (predictionBatcher != null) {
+                predictionBatcher.setSession(session);
+            }
+        }
+    }
+
+    //handle(Request request): Этот метод выбирает маршрут по методу и пути запроса и возвращает ответ.
+    Reply handle(Request request) {
+        String method = request.getMethod();
+        String uri = request.getPath();
+        boolean get = "GET".equals(method);
+        boolean post = "POST".equals(method);
+        if (post && "/predict".equals(uri)) {
+            return handlePredictRequest(request);
+        } else if (post && uri.startsWith(MODELS_PATH) && uri.endsWith(PREDICT_SUFFIX)) {
+            return handleModelPredictRequest(request,
+                    uri.substring(MODELS_PATH.length(), Math.max(MODELS_PATH.length(), uri.length() - PREDICT_SUFFIX.length())));
+        } else if (get && "/metrics".equals(uri)) {
+            return Reply.text(HttpURLConnection.HTTP_OK, ServerMetrics.MIME_PROMETHEUS, metrics.render());
+        } else if (get && uri.startsWith(JOBS_PATH)) {
+            return handleJobRequest(uri.substring(JOBS_PATH.length()));
+        } else if (get) {
+            // Вернуть информацию о нейронной сети
+            return Reply.text(HttpURLConnection.HTTP_OK, MIME_HTML,
+                    network != null ? Arrays.toString(network.getLayerSizes()) : "");
+        } else if (post) {
+            return handlePostRequest(request);
+        } else {
+            return Reply.text(HttpURLConnection.HTTP_NOT_FOUND, MIME_PLAINTEXT, "Not Found");
+        }
+    }
+
+    //close(): Этот метод останавливает обучение и микропакетирование и снимает с сети слушатель метрик обучения,
+    // чтобы сеть, которая переживает сервер, не удерживала его метрики.
+    @Override
+    public void close() {
+        if (trainingService != null) {
+            trainingService.close();
+            network.removeTrainingListener(metrics.getTraining());
+        }
+        synchronized (this) {
+            if (predictionBatcher != null) {
+                predictionBatcher.close();
+                predictionBatcher = null;
+            }
+        }
+    }
+
+    // handlePredictRequest: Этот метод возвращает прогноз сети для одной или нескольких строк входных данных.
+    // Формат тела запроса и ответа описан в PayloadCodec. В ответе queueWaitMicros - время ожидания запроса в очереди
+    // микропакетирования, computeMicros - время вычисления пакета, а batchRows - число строк в пакете.
+    // Время успешных запросов записывается в гистограммы ServerMetrics.
+    private Reply handlePredictRequest(Request request) {
+        long start = System.nanoTime();
+        double[][] rows;
+        try (InputStream body = request.getBody()) {
+            rows = PayloadCodec.readInputs(body, request.getHeader("content-type"), contentLength(request),
+                    limits.getMaxBodyBytes());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Reply.internalError();
+        } catch (PayloadTooLargeException e) {
+            return Reply.text(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, MIME_PLAINTEXT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return Reply.text(HttpURLConnection.HTTP_BAD_REQUEST, MIME_PLAINTEXT, e.getMessage());
+        }
+        PredictionBatcher batcher;
+        try {
+            batcher = predictionBatcher();
+        } catch (IllegalStateException e) {
+            return Reply.text(HttpURLConnection.HTTP_UNAVAILABLE, MIME_PLAINTEXT, e.getMessage());
+        }
+        CompletableFuture<PredictionBatcher.Result> future;
+        try {
+            future = batcher.submit(rows);
+        } catch (IllegalArgumentException e) {
+            return Reply.text(HttpURLConnection.HTTP_BAD_REQUEST, MIME_PLAINTEXT, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return Reply.text(HttpURLConnection.HTTP_UNAVAILABLE, MIME_PLAINTEXT, e.getMessage());
+        }
+        PredictionBatcher.Result result;
+        try {
+            result = future.get(limits.getPredictTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Диспетчер может еще вычислить запрос, но его результат уже никому не нужен.
+            future.cancel(false);
+            return Reply.text(HttpURLConnection.HTTP_GATEWAY_TIMEOUT, MIME_PLAINTEXT, "Prediction timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Reply.text(HttpURLConnection.HTTP_UNAVAILABLE, MIME_PLAINTEXT, "Interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalStateException) {
+                // Микропакетирование остановлено (сервер закрывается).
+                return Reply.text(HttpURLConnection.HTTP_UNAVAILABLE, MIME_PLAINTEXT, e.getCause().getMessage());
+            }
+            e.printStackTrace();
+            return Reply.internalError();
+        }
+        byte[] json = PayloadCodec.writePrediction(result);
+        metrics.getQueueWait().record(result.getQueueWaitNanos());
+        metrics.getComputeLatency().record(result.getComputeNanos());
+        metrics.getRequestLatency().record(System.nanoTime() - start);
+        return new Reply(HttpURLConnection.HTTP_OK, PayloadCodec.MIME_JSON, json);
+    }
+
+    // handleModelPredictRequest: Этот метод возвращает прогноз модели id из реестра в том же формате, что и /predict.
+    // Снимок модели вызывается прямо в потоке запроса пакетами не больше maxBatchSize строк, без общей очереди:
+    // у сотен небольших моделей отдельный поток-диспетчер на каждую стоил бы дороже, чем выигрыш от пакетирования.
+    // queueWaitMicros в ответе всегда 0. Неизвестная модель - 404, поврежденная контрольная точка - 500.
+    private Reply handleModelPredictRequest(Request request, String id) {
+        long start = System.nanoTime();
+        double[][] rows;
+        InferenceSession model;
+        try (InputStream body = request.getBody()) {
+            // Тело читается до проверки модели, чтобы непрочитанные байты не попали в следующий запрос соединения.
+            rows = PayloadCodec.readInputs(body, request.getHeader("content-type"), contentLength(request),
+                    limits.getMaxBodyBytes());
+            if (models == null || !ModelRegistry.isValidId(id)) {
+                return Reply.text(HttpURLConnection.HTTP_NOT_FOUND, MIME_PLAINTEXT, "Not Found");
+            }
+            model = models.get(id);
+        } catch (NoSuchFileException e) {
+            return Reply.text(HttpURLConnection.HTTP_NOT_FOUND, MIME_PLAINTEXT, "Unknown model: " + id);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Reply.internalError();
+        } catch (PayloadTooLargeException e) {
+            return Reply.text(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, MIME_PLAINTEXT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return Reply.text(HttpURLConnection.HTTP_BAD_REQUEST, MIME_PLAINTEXT, e.getMessage());
+        }
+        int inputSize = model.getInputSize();
+        int outputSize = model.getOutputSize();
+        for (double[] row : rows) {
+            if (row.length != inputSize) {
+                return Reply.text(HttpURLConnection.HTTP_BAD_REQUEST, MIME_PLAINTEXT,
+                        "Expected " + inputSize + " inputs, got " + row.length);
+            }
+        }
+        long computeStart = System.nanoTime();
+        int batch = Math.min(rows.length, maxBatchSize);
+        InferenceSession.Scratch scratch = model.newScratch(batch);
+        double[] inputs = new double[batch * inputSize];
+        double[] outputs = new double[batch * outputSize];
+        double[][] result = new double[rows.length][];
+        for (int first = 0; first < rows.length; first += batch) {
+            int count = Math.min(batch, rows.length - first);
+            for (int r = 0; r < count; r++) {
+                System.arraycopy(rows[first + r], 0, inputs, r * inputSize, inputSize);
+            }
+            model.predict(inputs, outputs, count, scratch);
+            for (int r = 0; r < count; r++) {
+                result[first + r] = Arrays.copyOfRange(outputs, r * outputSize, (r + 1) * outputSize);
+            }
+        }
+        long computeNanos = System.nanoTime() - computeStart;
+        byte[] json = PayloadCodec.writePrediction(new PredictionBatcher.Result(result, 0, computeNanos, batch));
+        metrics.getComputeLatency().record(computeNanos);
+        metrics.getRequestLatency().record(System.nanoTime() - start);
+        return new Reply(HttpURLConnection.HTTP_OK, PayloadCodec.MIME_JSON, json);
+    }
+
+    // handleJobRequest: Этот метод возвращает состояние задания на обучение (см. PayloadCodec.writeJob).
+    private Reply handleJobRequest(String id) {
+        TrainingJob job = null;
+        try {
+            job = trainingService != null ? trainingService.getJob(Long.parseLong(id)) : null;
+        } catch (NumberFormatException e) {
+            // Неверный номер обрабатывается как неизвестное задание.
+        }
+        if (job == null) {
+            return Reply.text(HttpURLConnection.HTTP_NOT_FOUND, MIME_PLAINTEXT, "Not Found");
+        }
+        return new Reply(HttpURLConnection.HTTP_OK, PayloadCodec.MIME_JSON, PayloadCodec.writeJob(job));
+    }
+
+    private Reply handlePostRequest(Request request) {
+        // Обучить нейронную сеть на основе данных из запроса
+        // Тело запроса сразу декодируется в формат, подходящий для обучения нейронной сети (см. PayloadCodec)
+        TrainingData trainingData;
+        try (InputStream body = request.getBody()) {
+            trainingData = PayloadCodec.readTrainingData(body, request.getHeader("content-type"),
+                    contentLength(request), limits.getMaxBodyBytes(),
+                    intParameter(request, "epochs", PayloadCodec.DEFAULT_EPOCHS),
+                    intParameter(request, "batchSize", PayloadCodec.DEFAULT_BATCH_SIZE),
+                    booleanParameter(request, "publishSnapshots"));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Reply.internalError();
+        } catch (PayloadTooLargeException e) {
+            return Reply.text(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, MIME_PLAINTEXT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return Reply.text(HttpURLConnection.HTTP_BAD_REQUEST, MIME_PLAINTEXT, e.getMessage());
+        }
+
+        // Поставить задание в очередь фонового обучения и сразу ответить его состоянием
+        if (trainingService == null) {
+            return Reply.text(HttpURLConnection.HTTP_UNAVAILABLE, MIME_PLAINTEXT, "No network attached");
+        }
+        TrainingJob job;
+        try {
+            job = trainingService.submit(trainingData);
+        } catch (IllegalArgumentException e) {
+            return Reply.text(HttpURLConnection.HTTP_BAD_REQUEST, MIME_PLAINTEXT, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return Reply.text(HTTP_TOO_MANY_REQUESTS, MIME_PLAINTEXT, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Reply.text(HttpURLConnection.HTTP_UNAVAILABLE, MIME_PLAINTEXT, e.getMessage());
+        }
+        return new Reply(HttpURLConnection.HTTP_ACCEPTED, PayloadCodec.MIME_JSON, PayloadCodec.writeJob(job));
+    }
+
+    // predictionBatcher: Этот метод лениво создает стадию микропакетирования на опубликованном снимке сети,
+    // так как сервер может быть запущен раньше, чем сеть обучена.
+    private synchronized PredictionBatcher predictionBatcher() {
+        if (network == null) {
+            throw new IllegalStateException("No network attached");
+        }
+        InferenceSession session = published;
+        if (session == null) {
+            throw new IllegalStateException("Network is not trained yet");
+        }
+        if (predictionBatcher == null) {
+            predictionBatcher = new PredictionBatcher(session, batchWindowMicros, maxBatchSize,
+                    limits.getMaxQueuedPredictions());
+        }
+        return predictionBatcher;
+    }
+
+    // contentLength: Этот метод возвращает объявленную длину тела или -1, если тело передается без Content-Length
+    // (chunked). Неверный заголовок отклоняется с 400.
+    private static long contentLength(Request request) {
+        String value = request.getHeader("content-length");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid Content-Length: " + value);
+        }
+    }
+
+    private static int intParameter(Request request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 1) {
+                throw new IllegalArgumentException(name + " must be a positive integer");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a positive integer");
+        }
+    }
+
+    private static boolean booleanParameter(Request request, String name) {
+        String value = request.getParameter(name);
+        if (value == null || value.equals("false")) {
+            return false;
+        }
+        if (value.equals("true")) {
+            return true;
+        }
+        throw new IllegalArgumentException(name + " must be true or false");
+    }
+
+    //Request: Это запрос в том виде, в котором его передает HTTP-сервер.
+    interface Request {
+        // getMethod(): Этот метод возвращает метод запроса заглавными буквами (GET, POST, ...).
+        String getMethod();
+
+        String getPath();
+
+        // getHeader(String name): Этот метод возвращает заголовок по имени в нижнем регистре или null.
+        String getHeader(String name);
+
+        // getParameter(String name): Этот метод возвращает параметр строки запроса или null.
+        String getParameter(String name);
+
+        // getBody(): Этот метод возвращает тело запроса как поток, который заканчивается на границе тела.
+        // Бросает IllegalArgumentException, если длину тела определить нельзя.
+        InputStream getBody();
+    }
+
+    //Reply: Это готовый ответ: код состояния, тип содержимого и тело.
+    static final class Reply {
+        final int status;
+        final String contentType;
+        final byte[] body;
+
+        Reply(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Reply text(int status, String contentType, String text) {
+            return new Reply(status, contentType, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Reply internalError() {
+            return text(HttpURLConnection.HTTP_INTERNAL_ERROR, MIME_PLAINTEXT, "Internal Server Error");
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.network.InferenceSession;
+import org.example.network.Network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * NetworkHttpServer - это сервер сети на встроенном HTTP-сервере JDK (com.sun.net.httpserver) с ограничением
+ * числа одновременно обрабатываемых запросов. Маршруты те же, что у MultiLayerNetworkView (см. NetworkEndpoints).
+ *
+ * Потоки: Соединения обслуживает один поток-селектор JDK (NIO), поэтому простаивающие соединения keep-alive
+ * не занимают потоков. Когда в соединении приходит запрос, его заголовки разбираются в небольшом пуле
+ * потоков приема (по числу процессоров), и там же решается, принять ли запрос:
+ * - если обрабатывается меньше maxInFlight запросов, запрос передается в пул из maxInFlight рабочих потоков,
+ *   который читает тело, вычисляет ответ и отправляет его;
+ * - иначе сразу отправляется 503 с заголовком Retry-After, тело запроса не разбирается.
+ * Поэтому под всплеском нагрузки сервер не создает новых потоков и не копит очередь: лишние запросы получают
+ * быстрый отказ, а задержка принятых запросов ограничена временем maxInFlight одновременных вычислений.
+ *
+ * Статистика: getInFlight - запросы в обработке сейчас, getRejected - отказы 503 за все время.
+ * Они выводятся в ServerMetrics.
+ *
+ * TCP_NODELAY: Сервер JDK пишет заголовки и тело ответа отдельно и по умолчанию не отключает алгоритм Нейгла,
+ * поэтому тело ждет подтверждения заголовков, которое клиент откладывает до 40 мс на каждый ответ keep-alive.
+ * Отключается он только системным свойством JVM sun.net.httpserver.nodelay, которое действует на все серверы JDK
+ * в процессе и читается при создании первого из них. Поэтому сервер сам его не задает: для низкой задержки
+ * запустите JVM с -Dsun.net.httpserver.nodelay=true или вызовите enableTcpNoDelay до создания первого сервера.
+ * */
+public final class NetworkHttpServer implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(NetworkHttpServer.class);
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer server;
+    private final NetworkEndpoints endpoints;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final ExecutorService acceptors;
+    private final ExecutorService workers;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public NetworkHttpServer(int port, Network network) throws IOException {
+        this(port, network, null, MultiLayerNetworkView.DEFAULT_BATCH_WINDOW_MICROS,
+                MultiLayerNetworkView.DEFAULT_MAX_BATCH_SIZE, 0, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public NetworkHttpServer(int port, Network network, ModelRegistry models, long batchWindowMicros, int maxBatchSize,
+                             int publishEveryEpochs, int maxInFlight) throws IOException {
+        this(port, network, models, batchWindowMicros, maxBatchSize, publishEveryEpochs, maxInFlight,
+                ServerLimits.DEFAULTS);
+    }
+
+    // port: Это порт сервера (0 - любой свободный, см. getPort).
+    // maxInFlight: Это наибольшее число запросов, которые обрабатываются одновременно.
+    // Остальные параметры описаны в конструкторе MultiLayerNetworkView.
+    public NetworkHttpServer(int port, Network network, ModelRegistry models, long batchWindowMicros, int maxBatchSize,
+                             int publishEveryEpochs, int maxInFlight, ServerLimits limits) throws IOException {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.endpoints = new NetworkEndpoints(network, models, batchWindowMicros, maxBatchSize, publishEveryEpochs,
+                limits);
+        endpoints.getMetrics().setHttpServer(this);
+        this.acceptors = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemon("http-accept"));
+        this.workers = Executors.newFixedThreadPool(maxInFlight, daemon("http-worker"));
+        server.setExecutor(acceptors);
+        server.createContext("/", this::admit);
+    }
+
+    //enableTcpNoDelay(): Этот метод задает свойство sun.net.httpserver.nodelay=true для всех серверов JDK процесса
+    // (см. описание класса), если оно не задано явно. Действует, только если вызван до создания первого сервера JDK.
+    public static void enableTcpNoDelay() {
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    //stop(): Этот метод останавливает прием соединений, дает начатым запросам до секунды на завершение
+    // и останавливает обучение и микропакетирование.
+    public void stop() {
+        server.stop(STOP_DELAY_SECONDS);
+        acceptors.shutdown();
+        workers.shutdown();
+        endpoints.close();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public ServerMetrics getMetrics() {
+        return endpoints.getMetrics();
+    }
+
+    //publish(InferenceSession session): Этот метод атомарно заменяет снимок, на котором вычисляются прогнозы
+    // (см. MultiLayerNetworkView.publish).
+    public void publish(InferenceSession session) {
+        endpoints.publish(session);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    // admit: Этот метод выполняется в потоке приема. Разрешение освобождается рабочим потоком после ответа.
+    private void admit(HttpExchange exchange) {
+        if (!permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, NetworkEndpoints.Reply.text(HttpURLConnection.HTTP_UNAVAILABLE,
+                    NetworkEndpoints.MIME_PLAINTEXT, "Server is at capacity"));
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    send(exchange, endpoints.handle(new ExchangeRequest(exchange)));
+                } catch (RuntimeException e) {
+                    logger.error("Request " + exchange.getRequestURI() + " failed", e);
+                    send(exchange, NetworkEndpoints.Reply.internalError());
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Пул уже остановлен (stop).
+            permits.release();
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, NetworkEndpoints.Reply reply) {
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", reply.contentType);
+            // Длина -1 означает ответ без тела; 0 включил бы chunked-кодирование.
+            exchange.sendResponseHeaders(reply.status, reply.body.length > 0 ? reply.body.length : -1);
+            out.write(reply.body);
+        } catch (IOException e) {
+            // Клиент закрыл соединение, не дождавшись ответа.
+            logger.debug("Failed to send response to " + exchange.getRemoteAddress(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    //ExchangeRequest: Это запрос com.sun.net.httpserver в виде NetworkEndpoints.Request.
+    private static final class ExchangeRequest implements NetworkEndpoints.Request {
+        private final HttpExchange exchange;
+
+        private ExchangeRequest(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public String getMethod() {
+            return exchange.getRequestMethod();
+        }
+
+        @Override
+        public String getPath() {
+            return exchange.getRequestURI().getPath();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return exchange.getRequestHeaders().getFirst(name);
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query == null) {
+                return null;
+            }
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                if (key.equals(name)) {
+                    return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                }
+            }
+            return null;
+        }
+
+        // getBody(): Сервер JDK сам ограничивает тело по Content-Length или chunked-кодированию
+        // и дочитывает непрочитанный остаток при закрытии обмена.
+        @Override
+        public InputStream getBody() {
+            String transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+            if (exchange.getRequestHeaders().getFirst("Content-Length") == null
+                    && (transferEncoding == null || !transferEncoding.equalsIgnoreCase("chunked"))) {
+                throw new IllegalArgumentException("Content-Length is required");
+            }
+            return exchange.getRequestBody();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package org.example.server;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/*
+ * PayloadCodec - это кодек тел запросов и ответов сервера.
+ * Тело читается потоково прямо из входного потока запроса в примитивные массивы double[],
+ * без промежуточной строки и без дерева JSON. Используется один общий, заранее настроенный JsonFactory.
+ *
+ * Формат JSON:
+ * Прогноз: {"inputs": [0.1, 0.2]} или {"inputs": [[0.1, 0.2], [0.3, 0.4]]}.
+ * Обучение: {"inputs": [[...], ...], "targets": [[...], ...], "epochs": 10, "batchSize": 32, "publishSnapshots": true}.
+ * Поля epochs, batchSize и publishSnapshots необязательны. Неизвестные поля пропускаются.
+ * Ответ на обучение и GET /jobs/{id} - состояние задания (см. writeJob).
+ *
+ * Двоичный формат (Content-Type application/vnd.neuron.f64 или application/vnd.neuron.f32):
+ * Заголовок из трех чисел int32 little-endian: rows, inputSize, targetSize (для прогноза targetSize = 0).
+ * Затем rows записей, каждая - inputSize входов и targetSize целевых значений
+ * в формате float64 (f64) или float32 (f32) little-endian.
+ * Для обучения epochs, batchSize и publishSnapshots передаются параметрами запроса.
+ *
+ * Ограничения: Тело с Content-Length или двоичным заголовком больше maxBodyBytes отклоняется
+ * исключением PayloadTooLargeException (413) до выделения памяти под данные; двоичный заголовок,
+ * который обещает больше данных, чем Content-Length, - исключением IllegalArgumentException (400).
+ * Кроме того, тело любого формата читается через BodyLimitInputStream, поэтому тело без Content-Length (chunked)
+ * или JSON, длина которого заранее не проверяется, тоже прерывается с 413 после maxBodyBytes байт.
+ * */
+public final class PayloadCodec {
+
+    public static final String MIME_JSON = "application/json";
+    public static final String MIME_BINARY_F64 = "application/vnd.neuron.f64";
+    public static final String MIME_BINARY_F32 = "application/vnd.neuron.f32";
+    public static final int DEFAULT_EPOCHS = 1;
+    public static final int DEFAULT_BATCH_SIZE = 1;
+
+    // Поток запроса принадлежит серверу (keep-alive), поэтому парсер не должен закрывать его.
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+    private static final int BINARY_HEADER_BYTES = 12;
+    private static final int BINARY_CHUNK_BYTES = 64 * 1024;
+
+    private PayloadCodec() {
+    }
+
+    //isBinary(String contentType): Этот метод проверяет, передано ли тело в двоичном формате.
+    public static boolean isBinary(String contentType) {
+        return contentType != null
+                && (contentType.startsWith(MIME_BINARY_F64) || contentType.startsWith(MIME_BINARY_F32));
+    }
+
+    //readInputs: Этот метод читает тело запроса на прогноз и возвращает строки входных данных.
+    // contentLength - объявленная длина тела (-1, если она неизвестна), maxBodyBytes - ограничение сервера
+    // (см. checkLength и BodyLimitInputStream).
+    public static double[][] readInputs(InputStream in, String contentType, long contentLength, long maxBodyBytes)
+            throws IOException {
+        checkLength(contentLength, maxBodyBytes);
+        in = new BodyLimitInputStream(in, maxBodyBytes);
+        if (isBinary(contentType)) {
+            return readBinary(in, contentType, contentLength, maxBodyBytes, false)[0];
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            double[][] inputs = null;
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("inputs".equals(field)) {
+                    inputs = readMatrix(parser, value);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (inputs == null) {
+                throw new IllegalArgumentException("Expected non-empty \"inputs\" array");
+            }
+            return inputs;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    //readTrainingData: Этот метод читает тело запроса на обучение.
+    // Для двоичного формата epochs, batchSize и publishSnapshots берутся из параметров запроса.
+    // contentLength и maxBodyBytes - как в readInputs.
+    public static TrainingData readTrainingData(InputStream in, String contentType, long contentLength,
+                                                long maxBodyBytes, int epochs, int batchSize,
+                                                boolean publishSnapshots) throws IOException {
+        checkLength(contentLength, maxBodyBytes);
+        in = new BodyLimitInputStream(in, maxBodyBytes);
+        if (isBinary(contentType)) {
+            double[][][] data = readBinary(in, contentType, contentLength, maxBodyBytes, true);
+            return new TrainingData(data[0], data[1], epochs, batchSize, publishSnapshots);
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            double[][] inputs = null;
+            double[][] targets = null;
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "inputs" -> inputs = readMatrix(parser, value);
+                    case "targets" -> targets = readMatrix(parser, value);
+                    case "epochs" -> epochs = readPositiveInt(parser, value, field);
+                    case "batchSize" -> batchSize = readPositiveInt(parser, value, field);
+                    case "publishSnapshots" -> publishSnapshots = readBoolean(value, field);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (inputs == null || targets == null) {
+                throw new IllegalArgumentException("Expected \"inputs\" and \"targets\" arrays");
+            }
+            if (inputs.length != targets.length) {
+                throw new IllegalArgumentException("Got " + inputs.length + " inputs and " + targets.length + " targets");
+            }
+            return new TrainingData(inputs, targets, epochs, batchSize, publishSnapshots);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    //writePrediction: Этот метод записывает ответ на прогноз:
+    // {"outputs": [[...], ...], "queueWaitMicros": ..., "computeMicros": ..., "batchRows": ...}.
+    public static byte[] writePrediction(PredictionBatcher.Result result) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + 24 * result.getOutputs().length);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("outputs");
+            for (double[] row : result.getOutputs()) {
+                generator.writeArray(row, 0, row.length);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("queueWaitMicros", result.getQueueWaitNanos() / 1000);
+            generator.writeNumberField("computeMicros", result.getComputeNanos() / 1000);
+            generator.writeNumberField("batchRows", result.getBatchRows());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    //writeJob: Этот метод записывает состояние задания на обучение:
+    // {"id": 1, "status": "RUNNING", "samples": ..., "epochs": ..., "batchSize": ..., "epochsCompleted": ...,
+    // "loss": ..., "samplesPerSecond": ..., "snapshotsPublished": ..., "submittedAt": ..., "startedAt": ...,
+    // "finishedAt": ..., "error": ...}. Время - в миллисекундах Unix; loss равен null, пока не закончилась первая эпоха,
+    // startedAt и finishedAt - пока задание не началось или не завершилось.
+    public static byte[] writeJob(TrainingJob job) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", job.getId());
+            generator.writeStringField("status", job.getStatus().name());
+            generator.writeNumberField("samples", job.getSamples());
+            generator.writeNumberField("epochs", job.getEpochs());
+            generator.writeNumberField("batchSize", job.getBatchSize());
+            generator.writeNumberField("epochsCompleted", job.getEpochsCompleted());
+            double loss = job.getLoss();
+            if (Double.isNaN(loss)) {
+                generator.writeNullField("loss");
+            } else {
+                generator.writeNumberField("loss", loss);
+            }
+            generator.writeNumberField("samplesPerSecond", job.getSamplesPerSecond());
+            generator.writeNumberField("snapshotsPublished", job.getSnapshotsPublished());
+            generator.writeNumberField("submittedAt", job.getSubmittedAt());
+            writeTimeField(generator, "startedAt", job.getStartedAt());
+            writeTimeField(generator, "finishedAt", job.getFinishedAt());
+            generator.writeStringField("error", job.getError());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeTimeField(JsonGenerator generator, String field, long millis) throws IOException {
+        if (millis == 0) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, millis);
+        }
+    }
+
+    // readMatrix: Этот метод читает одну строку [1, 2] или массив строк [[1, 2], [3, 4]].
+    // Значения накапливаются в переиспользуемом буфере, а каждая строка копируется в массив точного размера.
+    private static double[][] readMatrix(JsonParser parser, JsonToken token) throws IOException {
+        expect(token, JsonToken.START_ARRAY);
+        double[] buffer = new double[16];
+        JsonToken next = parser.nextToken();
+        if (next != JsonToken.START_ARRAY) {
+            int length = readRow(parser, next, buffer);
+            if (length < 0) {
+                buffer = growAndRead(parser, buffer, -length);
+                length = buffer.length;
+            }
+            if (length == 0) {
+                throw new IllegalArgumentException("Expected non-empty \"inputs\" array");
+            }
+            return new double[][]{Arrays.copyOf(buffer, length)};
+        }
+        double[][] rows = new double[16][];
+        int count = 0;
+        while (next == JsonToken.START_ARRAY) {
+            int length = readRow(parser, parser.nextToken(), buffer);
+            double[] row;
+            if (length < 0) {
+                row = growAndRead(parser, buffer, -length);
+                buffer = Arrays.copyOf(row, row.length * 2);
+            } else {
+                row = Arrays.copyOf(buffer, length);
+            }
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+            next = parser.nextToken();
+        }
+        expect(next, JsonToken.END_ARRAY);
+        if (count == 0) {
+            throw new IllegalArgumentException("Expected non-empty array");
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    // readRow: Этот метод читает числа строки до END_ARRAY в buffer и возвращает их количество.
+    // Если buffer переполнен, возвращается -(количество прочитанных чисел), и чтение продолжает growAndRead.
+    private static int readRow(JsonParser parser, JsonToken token, double[] buffer) throws IOException {
+        int length = 0;
+        while (token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                throw new IllegalArgumentException("Expected a number, got " + token);
+            }
+            buffer[length++] = parser.getDoubleValue();
+            if (length == buffer.length) {
+                return -length;
+            }
+            token = parser.nextToken();
+        }
+        return length;
+    }
+
+    private static double[] growAndRead(JsonParser parser, double[] buffer, int length) throws IOException {
+        double[] row = buffer;
+        JsonToken token = parser.nextToken();
+        while (token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                throw new IllegalArgumentException("Expected a number, got " + token);
+            }
+            if (length == row.length) {
+                row = Arrays.copyOf(row, length * 2);
+            }
+            row[length++] = parser.getDoubleValue();
+            token = parser.nextToken();
+        }
+        return Arrays.copyOf(row, length);
+    }
+
+    private static boolean readBoolean(JsonToken token, String field) {
+        if (token != JsonToken.VALUE_TRUE && token != JsonToken.VALUE_FALSE) {
+            throw new IllegalArgumentException("\"" + field + "\" must be true or false");
+        }
+        return token == JsonToken.VALUE_TRUE;
+    }
+
+    private static int readPositiveInt(JsonParser parser, JsonToken token, String field) throws IOException {
+        if (token != JsonToken.VALUE_NUMBER_INT || parser.getIntValue() < 1) {
+            throw new IllegalArgumentException("\"" + field + "\" must be a positive integer");
+        }
+        return parser.getIntValue();
+    }
+
+    // checkLength: Этот метод отклоняет тело любого формата, объявленная длина которого больше maxBodyBytes,
+    // до чтения тела. Двоичное тело дополнительно проверяется по заголовку (см. readBinary).
+    private static void checkLength(long contentLength, long maxBodyBytes) {
+        if (contentLength > maxBodyBytes) {
+            throw new PayloadTooLargeException("Body of " + contentLength + " bytes exceeds the limit of "
+                    + maxBodyBytes + " bytes");
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Expected " + expected + ", got " + actual);
+        }
+    }
+
+    // readBinary: Этот метод читает двоичное тело блоками по BINARY_CHUNK_BYTES.
+    // Возвращает массив из двух матриц: входы и (если withTargets) целевые значения.
+    // Размер данных по заголовку проверяется до выделения памяти: больше maxBodyBytes - 413
+    // (PayloadTooLargeException), больше объявленной длины тела contentLength - 400. Размеры считаются в long,
+    // поэтому заголовок с большими rows, inputSize и targetSize не переполняет их.
+    private static double[][][] readBinary(InputStream in, String contentType, long contentLength, long maxBodyBytes,
+                                           boolean withTargets) throws IOException {
+        boolean f32 = contentType.startsWith(MIME_BINARY_F32);
+        int valueBytes = f32 ? Float.BYTES : Double.BYTES;
+        DataInputStream data = new DataInputStream(in);
+        byte[] header = new byte[BINARY_HEADER_BYTES];
+        readFully(data, header, BINARY_HEADER_BYTES);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        int rows = headerBuffer.getInt();
+        int inputSize = headerBuffer.getInt();
+        int targetSize = headerBuffer.getInt();
+        if (rows < 1 || inputSize < 1 || targetSize < 0 || (withTargets && targetSize == 0)) {
+            throw new IllegalArgumentException("Invalid binary header: rows=" + rows
+                    + ", inputSize=" + inputSize + ", targetSize=" + targetSize);
+        }
+        long recordBytes = ((long) inputSize + targetSize) * valueBytes;
+        long maxPayloadBytes = maxBodyBytes - BINARY_HEADER_BYTES;
+        if (recordBytes > maxPayloadBytes || rows > maxPayloadBytes / recordBytes) {
+            throw new PayloadTooLargeException("Binary body of " + rows + " x " + ((long) inputSize + targetSize)
+                    + " values exceeds the limit of " + maxBodyBytes + " bytes");
+        }
+        long payloadBytes = rows * recordBytes;
+        if (contentLength >= 0 && BINARY_HEADER_BYTES + payloadBytes > contentLength) {
+            throw new IllegalArgumentException("Binary header declares " + (BINARY_HEADER_BYTES + payloadBytes)
+                    + " bytes, but Content-Length is " + contentLength);
+        }
+        double[][] inputs = new double[rows][inputSize];
+        double[][] targets = new double[rows][targetSize];
+        byte[] chunk = new byte[(int) Math.min(BINARY_CHUNK_BYTES, payloadBytes)];
+        BinaryReader reader = new BinaryReader(data, chunk, payloadBytes, f32);
+        for (int row = 0; row < rows; row++) {
+            reader.read(inputs[row]);
+            reader.read(targets[row]);
+        }
+        return new double[][][]{inputs, targets};
+    }
+
+    private static void readFully(DataInputStream in, byte[] bytes, int length) throws IOException {
+        try {
+            in.readFully(bytes, 0, length);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Binary body is shorter than its header declares");
+        }
+    }
+
+    //BinaryReader: Это чтение значений двоичного тела через буфер chunk. Значения строки могут переходить
+    // через границу блока, поэтому размер записи не ограничен размером буфера.
+    private static final class BinaryReader {
+        private final DataInputStream in;
+        private final byte[] chunk;
+        private final ByteBuffer buffer;
+        private final boolean f32;
+        private final int valueBytes;
+        private long remaining;
+
+        private BinaryReader(DataInputStream in, byte[] chunk, long payloadBytes, boolean f32) {
+            this.in = in;
+            this.chunk = chunk;
+            this.buffer = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+            this.buffer.limit(0);
+            this.remaining = payloadBytes;
+            this.f32 = f32;
+            this.valueBytes = f32 ? Float.BYTES : Double.BYTES;
+        }
+
+        private void read(double[] values) throws IOException {
+            int offset = 0;
+            while (offset < values.length) {
+                if (!buffer.hasRemaining()) {
+                    fill();
+                }
+                int count = Math.min(values.length - offset, buffer.remaining() / valueBytes);
+                if (f32) {
+                    for (int i = offset; i < offset + count; i++) {
+                        values[i] = buffer.getFloat();
+                    }
+                } else {
+                    buffer.asDoubleBuffer().get(values, offset, count);
+                    buffer.position(buffer.position() + count * Double.BYTES);
+                }
+                offset += count;
+            }
+        }
+
+        // fill: BINARY_CHUNK_BYTES делится на размер значения, поэтому значение никогда не разрезается между блоками.
+        private void fill() throws IOException {
+            int length = (int) Math.min(chunk.length, remaining);
+            readFully(in, chunk, length);
+            remaining -= length;
+            buffer.clear();
+            buffer.limit(length);
+        }
+    }
+}
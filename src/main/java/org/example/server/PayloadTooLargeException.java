@@ -0,0 +1,13 @@
+package org.example.server;
+
+/*
+ * PayloadTooLargeException - это отказ прочитать тело запроса, которое больше ограничения сервера
+ * (см. ServerLimits.getMaxBodyBytes). Маршруты отвечают на него кодом 413, а на остальные
+ * IllegalArgumentException кодека - кодом 400.
+ * */
+public class PayloadTooLargeException extends IllegalArgumentException {
+
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
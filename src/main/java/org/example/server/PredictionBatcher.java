@@ -0,0 +1,249 @@
+package org.example.server;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.network.InferenceSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * PredictionBatcher - это стадия микропакетирования запросов на прогноз.
+ *
+ * Запросы из разных потоков HTTP-сервера ставятся в очередь, а один поток-диспетчер собирает их в пакеты:
+ * он берет первый запрос и ждет следующие не дольше windowMicros или пока в пакете не наберется maxBatchSize строк.
+ * Затем все строки пакета укладываются в непрерывный массив и проходят через сеть одним пакетным прямым проходом.
+ * Это добавляет к задержке не больше окна, но под нагрузкой заменяет много умножений матрицы на вектор одним умножением матриц.
+ *
+ * Для каждого запроса возвращается Result: выходы сети, время ожидания в очереди и время вычисления пакета.
+ *
+ * Очередь ограничена maxQueuedRequests запросами: когда она заполнена, submit сразу бросает
+ * RejectedExecutionException, а не копит запросы под всплеском нагрузки. Запросы, future которых уже завершен
+ * (например, отменен вызывающим кодом по тайм-ауту), пропускаются при сборе пакета и не вычисляются.
+ *
+ * Замена снимка: setSession публикует новый снимок сети (например, после фонового обучения).
+ * Диспетчер читает ссылку на снимок один раз на пакет, поэтому каждый пакет целиком вычисляется одним снимком:
+ * запросы видят либо старые, либо новые веса, но никогда их смесь, и не ждут окончания обучения.
+ * */
+public class PredictionBatcher implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(PredictionBatcher.class);
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = 1024;
+    private volatile InferenceSession session;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending> queue;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public PredictionBatcher(InferenceSession session, long windowMicros, int maxBatchSize) {
+        this(session, windowMicros, maxBatchSize, DEFAULT_MAX_QUEUED_REQUESTS);
+    }
+
+    // maxQueuedRequests: Это наибольшее число запросов, ожидающих в очереди (см. описание класса).
+    public PredictionBatcher(InferenceSession session, long windowMicros, int maxBatchSize, int maxQueuedRequests) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        if (maxQueuedRequests < 1) {
+            throw new IllegalArgumentException("maxQueuedRequests must be positive: " + maxQueuedRequests);
+        }
+        this.session = session;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(maxQueuedRequests);
+        this.dispatcher = new Thread(this::dispatch, "prediction-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    //submit(double[][] rows): Этот метод ставит запрос из одной или нескольких строк входных данных в очередь.
+    // Результат будет доступен, когда пакет с этим запросом будет вычислен.
+    // Если очередь заполнена, бросается RejectedExecutionException.
+    public CompletableFuture<Result> submit(double[][] rows) {
+        for (double[] row : rows) {
+            if (row.length != session.getInputSize()) {
+                throw new IllegalArgumentException("Expected " + session.getInputSize() + " inputs, got " + row.length);
+            }
+        }
+        Pending pending = new Pending(rows, System.nanoTime());
+        if (!running) {
+            fail(pending);
+            return pending.future;
+        }
+        if (!queue.offer(pending)) {
+            throw new RejectedExecutionException("Prediction queue is full");
+        }
+        // close() мог опустошить очередь между проверкой running и add. Если запрос еще в очереди, его забирает
+        // этот поток; иначе его уже взял диспетчер или close(), и они завершат его сами.
+        if (!running && queue.remove(pending)) {
+            fail(pending);
+        }
+        return pending.future;
+    }
+
+    //setSession(InferenceSession session): Этот метод заменяет снимок, которым вычисляются следующие пакеты.
+    // Новый снимок должен иметь те же размеры входов и выходов.
+    public void setSession(InferenceSession session) {
+        InferenceSession current = this.session;
+        if (session.getInputSize() != current.getInputSize() || session.getOutputSize() != current.getOutputSize()) {
+            throw new IllegalArgumentException("Snapshot shape " + session.getInputSize() + "x" + session.getOutputSize()
+                    + " does not match " + current.getInputSize() + "x" + current.getOutputSize());
+        }
+        this.session = session;
+    }
+
+    //close(): Этот метод останавливает диспетчер. Все незавершенные запросы - в очереди, в собираемом пакете
+    // и отложенный на следующий пакет - завершаются исключением IllegalStateException.
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            fail(pending);
+        }
+    }
+
+    private void dispatch() {
+        InferenceSession scratchSession = session;
+        InferenceSession.Scratch scratch = scratchSession.newScratch(maxBatchSize);
+        double[] inputs = new double[maxBatchSize * scratchSession.getInputSize()];
+        double[] outputs = new double[maxBatchSize * scratchSession.getOutputSize()];
+        List<Pending> batch = new ArrayList<>();
+        Pending carry = null;
+        while (running) {
+            try {
+                Pending first = carry != null ? carry : queue.take();
+                carry = null;
+                if (first.future.isDone()) {
+                    continue;
+                }
+                batch.clear();
+                batch.add(first);
+                int rows = first.rows.length;
+                long deadline = first.enqueuedAt + windowNanos;
+                while (rows < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.future.isDone()) {
+                        continue;
+                    }
+                    if (rows + next.rows.length > maxBatchSize) {
+                        carry = next;
+                        break;
+                    }
+                    batch.add(next);
+                    rows += next.rows.length;
+                }
+                // Запросы могли быть отменены, пока пакет собирался в течение окна.
+                if (batch.removeIf(pending -> pending.future.isDone())) {
+                    rows = 0;
+                    for (Pending pending : batch) {
+                        rows += pending.rows.length;
+                    }
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+                }
+                InferenceSession current = session;
+                if (rows > maxBatchSize) {
+                    // Запрос больше максимального пакета вычисляется отдельно со своими буферами.
+                    run(current, batch, rows, current.newScratch(rows), new double[rows * current.getInputSize()],
+                            new double[rows * current.getOutputSize()]);
+                } else {
+                    if (current != scratchSession) {
+                        // Рабочие буферы зависят от размеров слоев и точности снимка, поэтому создаются заново.
+                        scratchSession = current;
+                        scratch = current.newScratch(maxBatchSize);
+                    }
+                    run(current, batch, rows, scratch, inputs, outputs);
+                }
+            } catch (InterruptedException e) {
+                // Прерывание во время сбора пакета: запросы, уже взятые из очереди в batch, тоже нужно завершить
+                // (для уже вычисленных пакетов fail ничего не меняет).
+                for (Pending pending : batch) {
+                    fail(pending);
+                }
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (carry != null) {
+            fail(carry);
+        }
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            fail(pending);
+        }
+    }
+
+    private static void fail(Pending pending) {
+        pending.future.completeExceptionally(new IllegalStateException("Batcher is closed"));
+    }
+
+    private void run(InferenceSession session, List<Pending> batch, int rows, InferenceSession.Scratch scratch,
+                     double[] inputs, double[] outputs) {
+        int inputSize = session.getInputSize();
+        int outputSize = session.getOutputSize();
+        long start = System.nanoTime();
+        try {
+            int offset = 0;
+            for (Pending pending : batch) {
+                for (double[] row : pending.rows) {
+                    System.arraycopy(row, 0, inputs, offset * inputSize, inputSize);
+                    offset++;
+                }
+            }
+            session.predict(inputs, outputs, rows, scratch);
+        } catch (RuntimeException e) {
+            logger.error("Batched prediction failed", e);
+            for (Pending pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            return;
+        }
+        long computeNanos = System.nanoTime() - start;
+        int offset = 0;
+        for (Pending pending : batch) {
+            double[][] result = new double[pending.rows.length][outputSize];
+            for (double[] row : result) {
+                System.arraycopy(outputs, offset * outputSize, row, 0, outputSize);
+                offset++;
+            }
+            pending.future.complete(new Result(result, start - pending.enqueuedAt, computeNanos, rows));
+        }
+    }
+
+    private static final class Pending {
+        private final double[][] rows;
+        private final long enqueuedAt;
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        private Pending(double[][] rows, long enqueuedAt) {
+            this.rows = rows;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    //Result: Это результат одного запроса: выходы сети для каждой строки, время ожидания в очереди,
+    // время вычисления пакета и число строк в пакете, в котором запрос был вычислен.
+    @Getter
+    @AllArgsConstructor
+    public static final class Result {
+        private final double[][] outputs;
+        private final long queueWaitNanos;
+        private final long computeNanos;
+        private final int batchRows;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * RequestBodyInputStream - это поток тела запроса, ограниченный заголовком Content-Length.
+ * Он позволяет читать тело напрямую из соединения, не выходя за его границу,
+ * а close() дочитывает непрочитанный остаток, чтобы следующий запрос keep-alive начался с правильного места.
+ * Исходное соединение при этом не закрывается.
+ * */
+class RequestBodyInputStream extends FilterInputStream {
+    private long remaining;
+
+    RequestBodyInputStream(InputStream in, long length) {
+        super(in);
+        this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int value = in.read();
+        if (value >= 0) {
+            remaining--;
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read > 0) {
+            remaining -= read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        byte[] drain = new byte[8192];
+        while (read(drain, 0, drain.length) > 0) {
+            // дочитываем остаток тела
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.server;
+
+/*
+ * ServerLimits - это ограничения, которые сервер накладывает на запросы клиентов.
+ * Они защищают процесс от запросов, которые по ошибке или намеренно требуют больше памяти или времени,
+ * чем сервер готов выделить. Общие для MultiLayerNetworkView и NetworkHttpServer (см. NetworkEndpoints).
+ *
+ * Пример: ServerLimits.builder().maxBodyBytes(16 << 20).build().
+ * */
+public final class ServerLimits {
+
+    public static final long DEFAULT_MAX_BODY_BYTES = 256L << 20;
+    public static final int DEFAULT_MAX_QUEUED_JOBS = 16;
+    public static final int DEFAULT_MAX_EPOCHS = 10_000;
+    public static final long DEFAULT_PREDICT_TIMEOUT_MILLIS = 5_000;
+    public static final int DEFAULT_MAX_QUEUED_PREDICTIONS = PredictionBatcher.DEFAULT_MAX_QUEUED_REQUESTS;
+    public static final ServerLimits DEFAULTS = builder().build();
+
+    private final long maxBodyBytes;
+    private final int maxQueuedJobs;
+    private final int maxEpochs;
+    private final long predictTimeoutMillis;
+    private final int maxQueuedPredictions;
+
+    private ServerLimits(Builder builder) {
+        this.maxBodyBytes = builder.maxBodyBytes;
+        this.maxQueuedJobs = builder.maxQueuedJobs;
+        this.maxEpochs = builder.maxEpochs;
+        this.predictTimeoutMillis = builder.predictTimeoutMillis;
+        this.maxQueuedPredictions = builder.maxQueuedPredictions;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    //getMaxBodyBytes(): Этот метод возвращает наибольший размер тела запроса в байтах для любого формата.
+    // Больший Content-Length или двоичный заголовок отклоняется с 413 до выделения памяти, а тело без
+    // Content-Length (chunked) прерывается с 413, когда прочитано больше (см. PayloadCodec).
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    //getMaxQueuedJobs(): Этот метод возвращает наибольшее число заданий на обучение, ожидающих в очереди
+    // (не считая выполняемого). Задание сверх него отклоняется с 429 (см. TrainingService.submit).
+    public int getMaxQueuedJobs() {
+        return maxQueuedJobs;
+    }
+
+    //getMaxEpochs(): Этот метод возвращает наибольшее число эпох одного задания на обучение; больше - 400.
+    public int getMaxEpochs() {
+        return maxEpochs;
+    }
+
+    //getPredictTimeoutMillis(): Этот метод возвращает, сколько запрос POST /predict ждет результата
+    // микропакетирования; по истечении времени сервер отвечает 504, а поток запроса освобождается.
+    public long getPredictTimeoutMillis() {
+        return predictTimeoutMillis;
+    }
+
+    //getMaxQueuedPredictions(): Этот метод возвращает наибольшее число запросов POST /predict, ожидающих
+    // микропакетирования. Запрос сверх него отклоняется с 503 (см. PredictionBatcher.submit).
+    public int getMaxQueuedPredictions() {
+        return maxQueuedPredictions;
+    }
+
+    //Builder: Это построитель ограничений; незаданные ограничения принимают значения DEFAULT_*.
+    public static final class Builder {
+        private long maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+        private int maxQueuedJobs = DEFAULT_MAX_QUEUED_JOBS;
+        private int maxEpochs = DEFAULT_MAX_EPOCHS;
+        private long predictTimeoutMillis = DEFAULT_PREDICT_TIMEOUT_MILLIS;
+        private int maxQueuedPredictions = DEFAULT_MAX_QUEUED_PREDICTIONS;
+
+        private Builder() {
+        }
+
+        public Builder maxBodyBytes(long maxBodyBytes) {
+            if (maxBodyBytes < 1) {
+                throw new IllegalArgumentException("maxBodyBytes must be positive: " + maxBodyBytes);
+            }
+            this.maxBodyBytes = maxBodyBytes;
+            return this;
+        }
+
+        public Builder maxQueuedJobs(int maxQueuedJobs) {
+            if (maxQueuedJobs < 1) {
+                throw new IllegalArgumentException("maxQueuedJobs must be positive: " + maxQueuedJobs);
+            }
+            this.maxQueuedJobs = maxQueuedJobs;
+            return this;
+        }
+
+        public Builder maxEpochs(int maxEpochs) {
+            if (maxEpochs < 1) {
+                throw new IllegalArgumentException("maxEpochs must be positive: " + maxEpochs);
+            }
+            this.maxEpochs = maxEpochs;
+            return this;
+        }
+
+        public Builder predictTimeoutMillis(long predictTimeoutMillis) {
+            if (predictTimeoutMillis < 1) {
+                throw new IllegalArgumentException("predictTimeoutMillis must be positive: " + predictTimeoutMillis);
+            }
+            this.predictTimeoutMillis = predictTimeoutMillis;
+            return this;
+        }
+
+        public Builder maxQueuedPredictions(int maxQueuedPredictions) {
+            if (maxQueuedPredictions < 1) {
+                throw new IllegalArgumentException("maxQueuedPredictions must be positive: " + maxQueuedPredictions);
+            }
+            this.maxQueuedPredictions = maxQueuedPredictions;
+            return this;
+        }
+
+        public ServerLimits build() {
+            return new ServerLimits(this);
+        }
+    }
+}
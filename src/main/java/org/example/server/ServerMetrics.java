@@ -0,0 +1,138 @@
+package org.example.server;
+
+import lombok.Getter;
+import org.example.metrics.EpochStats;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.TrainingMetrics;
+
+/*
+ * ServerMetrics - это метрики сервера, которые отдаются по GET /metrics в текстовом формате Prometheus (version 0.0.4).
+ *
+ * Прогнозы (гистограммы LatencyHistogram, в секундах):
+ * neuron_predict_request_seconds - полное время обработки запроса /predict, от начала чтения тела до готового ответа;
+ * neuron_predict_queue_wait_seconds - время ожидания запроса в очереди микропакетирования;
+ * neuron_predict_compute_seconds - время вычисления пакета, в котором был вычислен запрос.
+ *
+ * Обучение (TrainingMetrics, слушатель сети): число эпох и примеров за все время, а также ошибка, скорость
+ * и время фаз последней эпохи. Пока сеть не обучалась, метрики последней эпохи не выводятся.
+ *
+ * Реестр моделей (если сервер обслуживает ModelRegistry): попадания, промахи, вытеснения и ошибки загрузки кэша моделей,
+ * а также число моделей и байтов весов в кэше.
+ *
+ * Прием запросов (если метрики принадлежат NetworkHttpServer): число запросов в обработке, его предел
+ * и число отказов 503 из-за превышения предела.
+ * */
+@Getter
+public final class ServerMetrics {
+
+    public static final String MIME_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final LatencyHistogram requestLatency = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram computeLatency = new LatencyHistogram();
+    private final TrainingMetrics training = new TrainingMetrics();
+    private volatile ModelRegistry models;
+    private volatile NetworkHttpServer httpServer;
+
+    //setModels(ModelRegistry models): Этот метод подключает реестр моделей, статистика которого выводится в render.
+    void setModels(ModelRegistry models) {
+        this.models = models;
+    }
+
+    //setHttpServer(NetworkHttpServer httpServer): Этот метод подключает сервер, статистика приема запросов которого
+    // выводится в render.
+    void setHttpServer(NetworkHttpServer httpServer) {
+        this.httpServer = httpServer;
+    }
+
+    //render(): Этот метод возвращает текущие значения всех метрик.
+    public String render() {
+        StringBuilder out = new StringBuilder(4096);
+        histogram(out, "neuron_predict_request_seconds", "Time to serve a /predict request.", requestLatency);
+        histogram(out, "neuron_predict_queue_wait_seconds", "Time a /predict request waited for its batch.", queueWait);
+        histogram(out, "neuron_predict_compute_seconds", "Compute time of the batch that served a /predict request.",
+                computeLatency);
+        metric(out, "neuron_training_epochs_total", "counter", "Completed training epochs.", training.getEpochs());
+        metric(out, "neuron_training_samples_total", "counter", "Training samples processed.", training.getSamples());
+        EpochStats last = training.getLastEpoch();
+        if (last != null) {
+            metric(out, "neuron_training_loss", "gauge", "Mean squared error of the last epoch.", last.getLoss());
+            metric(out, "neuron_training_samples_per_second", "gauge", "Training throughput of the last epoch.",
+                    last.getSamplesPerSecond());
+            out.append("# HELP neuron_training_phase_seconds Time spent in each phase of the last epoch.\n")
+                    .append("# TYPE neuron_training_phase_seconds gauge\n");
+            phase(out, "forward", last.getForwardNanos());
+            phase(out, "backward", last.getBackwardNanos());
+            phase(out, "update", last.getUpdateNanos());
+            phase(out, "total", last.getElapsedNanos());
+        }
+        ModelRegistry registry = models;
+        if (registry != null) {
+            metric(out, "neuron_model_cache_hits_total", "counter", "Model lookups served from the cache.",
+                    registry.getHits());
+            metric(out, "neuron_model_cache_misses_total", "counter", "Model lookups that loaded a checkpoint.",
+                    registry.getMisses());
+            metric(out, "neuron_model_cache_evictions_total", "counter", "Models evicted from the cache.",
+                    registry.getEvictions());
+            metric(out, "neuron_model_load_failures_total", "counter", "Checkpoints that failed to load.",
+                    registry.getLoadFailures());
+            metric(out, "neuron_model_cache_models", "gauge", "Models held in the cache.",
+                    (long) registry.getCachedModels());
+            metric(out, "neuron_model_cache_bytes", "gauge", "Parameter bytes held in the cache.",
+                    registry.getCachedBytes());
+            metric(out, "neuron_model_cache_max_bytes", "gauge", "Parameter byte limit of the cache.",
+                    registry.getMaxBytes());
+        }
+        NetworkHttpServer server = httpServer;
+        if (server != null) {
+            metric(out, "neuron_http_in_flight", "gauge", "Requests being served.", (long) server.getInFlight());
+            metric(out, "neuron_http_max_in_flight", "gauge", "Limit of requests served at once.",
+                    (long) server.getMaxInFlight());
+            metric(out, "neuron_http_rejected_total", "counter", "Requests rejected with 503 over the limit.",
+                    server.getRejected());
+        }
+        return out.toString();
+    }
+
+    private static void histogram(StringBuilder out, String name, String help, LatencyHistogram histogram) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" histogram\n");
+        long cumulative = 0;
+        int buckets = histogram.getBuckets();
+        for (int i = 0; i < buckets; i++) {
+            cumulative += histogram.getBucketCount(i);
+            String bound = i == buckets - 1 ? "+Inf" : seconds(histogram.getBucketUpperBoundNanos(i));
+            out.append(name).append("_bucket{le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum ").append(seconds(histogram.getSumNanos())).append('\n')
+                .append(name).append("_count ").append(histogram.getCount()).append('\n');
+    }
+
+    private static void metric(StringBuilder out, String name, String type, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n')
+                .append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void metric(StringBuilder out, String name, String type, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n')
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void phase(StringBuilder out, String phase, long nanos) {
+        out.append("neuron_training_phase_seconds{phase=\"").append(phase).append("\"} ")
+                .append(seconds(nanos)).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return format(nanos / 1e9);
+    }
+
+    private static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+}
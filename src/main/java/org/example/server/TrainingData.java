@@ -1,7 +1,31 @@
 package org.example.server;
 
-import org.example.network.Network;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.example.data.MLDataSet;
 
+/*
+ * Класс TrainingData представляет собой тело запроса на обучение после декодирования PayloadCodec.
+ *
+ * inputs и targets: Это входные данные и целевые значения, по строке на пример.
+ * epochs и batchSize: Это число эпох и размер мини-пакета для обучения.
+ * publishSnapshots: Это просьба публиковать промежуточные снимки во время обучения (см. TrainingService);
+ * по умолчанию снимок публикуется только по окончании задания.
+ * */
+@Getter
+@AllArgsConstructor
 public class TrainingData {
+    private double[][] inputs;
+    private double[][] targets;
+    private int epochs;
+    private int batchSize;
+    private boolean publishSnapshots;
 
+    public TrainingData(double[][] inputs, double[][] targets, int epochs, int batchSize) {
+        this(inputs, targets, epochs, batchSize, false);
+    }
+
+    public MLDataSet toDataSet() {
+        return new MLDataSet(inputs, targets);
+    }
 }
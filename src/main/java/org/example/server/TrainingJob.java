@@ -0,0 +1,77 @@
+package org.example.server;
+
+import lombok.Getter;
+import org.example.metrics.EpochStats;
+
+/*
+ * TrainingJob - это задание на обучение, принятое сервером (POST /train), и его состояние для GET /jobs/{id}.
+ *
+ * status: QUEUED - ждет в очереди, RUNNING - обучается, SUCCEEDED - завершено и итоговый снимок опубликован,
+ * FAILED - завершено с ошибкой (error).
+ * epochsCompleted, loss и samplesPerSecond обновляются после каждой эпохи (loss и скорость - последней эпохи),
+ * snapshotsPublished - число снимков этого задания, которые уже отдаются прогнозам.
+ *
+ * Поля изменяет только поток обучения, а читают потоки HTTP-сервера, поэтому все изменяемые поля volatile.
+ * Значения разных полей могут относиться к соседним эпохам, но каждое из них согласовано само по себе.
+ * */
+@Getter
+public final class TrainingJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final long id;
+    private final int samples;
+    private final int epochs;
+    private final int batchSize;
+    private final long submittedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile int epochsCompleted;
+    private volatile double loss = Double.NaN;
+    private volatile double samplesPerSecond;
+    private volatile int snapshotsPublished;
+    private volatile String error;
+
+    TrainingJob(long id, int samples, int epochs, int batchSize) {
+        this.id = id;
+        this.samples = samples;
+        this.epochs = epochs;
+        this.batchSize = batchSize;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    //isFinished(): Этот метод проверяет, завершено ли задание (успешно или с ошибкой).
+    public boolean isFinished() {
+        Status current = status;
+        return current == Status.SUCCEEDED || current == Status.FAILED;
+    }
+
+    void started() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void epochFinished(EpochStats stats) {
+        loss = stats.getLoss();
+        samplesPerSecond = stats.getSamplesPerSecond();
+        epochsCompleted = stats.getEpoch();
+    }
+
+    void snapshotPublished() {
+        snapshotsPublished++;
+    }
+
+    void succeeded() {
+        finishedAt = System.currentTimeMillis();
+        status = Status.SUCCEEDED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.metrics.TrainingListener;
+import org.example.network.InferenceSession;
+import org.example.network.Network;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+ * TrainingService - это фоновое обучение сети сервера.
+ *
+ * Очередь заданий: submit ставит задание (TrainingJob) в очередь отдельного потока обучения и сразу возвращается.
+ * Задания выполняются по одному в порядке поступления, поэтому сеть изменяет только этот поток.
+ * Очередь ограничена (ServerLimits.getMaxQueuedJobs): когда она заполнена, submit бросает
+ * RejectedExecutionException, а не копит задания в памяти. Число эпох задания ограничено ServerLimits.getMaxEpochs.
+ *
+ * Публикация снимков: Прогнозы никогда не читают обучаемую сеть. Они используют неизменяемый снимок
+ * (InferenceSession), который создается в потоке обучения между эпохами, когда веса не меняются,
+ * и передается publisher. Снимок всегда публикуется по окончании задания. Если задание завершилось ошибкой,
+ * прогнозы продолжают использовать прежний снимок.
+ * Каждое задание обучает сеть заново со свежих весов (Network.train), а не продолжает предыдущее, поэтому
+ * промежуточный снимок обычно хуже снимка, опубликованного предыдущим заданием. Поэтому промежуточные снимки
+ * (после каждых publishEveryEpochs эпох) публикуются, только если задание явно просит об этом
+ * (TrainingData.isPublishSnapshots) и publishEveryEpochs > 0; иначе прогнозы до конца задания используют прежний снимок.
+ *
+ * Хранение: Сервис помнит не больше MAX_FINISHED_JOBS завершенных заданий; более старые забываются.
+ * */
+public class TrainingService implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(TrainingService.class);
+    static final int MAX_FINISHED_JOBS = 100;
+
+    private final Network network;
+    private final Consumer<InferenceSession> publisher;
+    private final int publishEveryEpochs;
+    private final int maxEpochs;
+    private final ExecutorService executor;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, TrainingJob> jobs = new ConcurrentHashMap<>();
+    private final Deque<Long> finished = new ArrayDeque<>();
+
+    public TrainingService(Network network, Consumer<InferenceSession> publisher, int publishEveryEpochs) {
+        this(network, publisher, publishEveryEpochs, ServerLimits.DEFAULTS);
+    }
+
+    // limits: Это ограничения очереди заданий и числа эпох (см. ServerLimits).
+    public TrainingService(Network network, Consumer<InferenceSession> publisher, int publishEveryEpochs,
+                           ServerLimits limits) {
+        if (publishEveryEpochs < 0) {
+            throw new IllegalArgumentException("publishEveryEpochs must not be negative: " + publishEveryEpochs);
+        }
+        this.network = network;
+        this.publisher = publisher;
+        this.publishEveryEpochs = publishEveryEpochs;
+        this.maxEpochs = limits.getMaxEpochs();
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(limits.getMaxQueuedJobs()), runnable -> {
+            Thread thread = new Thread(runnable, "network-training");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //submit(TrainingData data): Этот метод ставит задание на обучение в очередь и возвращает его.
+    // Размеры входов и целевых значений и число эпох проверяются сразу, чтобы неверный запрос не занимал очередь
+    // (IllegalArgumentException). Если очередь заполнена, бросается RejectedExecutionException,
+    // если сервис закрыт - IllegalStateException.
+    public TrainingJob submit(TrainingData data) {
+        if (data.getEpochs() > maxEpochs) {
+            throw new IllegalArgumentException("epochs must not exceed " + maxEpochs + ", got " + data.getEpochs());
+        }
+        int[] sizes = network.getLayerSizes();
+        for (int i = 0; i < data.getInputs().length; i++) {
+            if (data.getInputs()[i].length != sizes[0] || data.getTargets()[i].length != sizes[sizes.length - 1]) {
+                throw new IllegalArgumentException("Expected " + sizes[0] + " inputs and " + sizes[sizes.length - 1]
+                        + " targets per row");
+            }
+        }
+        TrainingJob job = new TrainingJob(nextId.getAndIncrement(), data.getInputs().length, data.getEpochs(), data.getBatchSize());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, data));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            if (executor.isShutdown()) {
+                throw new IllegalStateException("Training service is closed");
+            }
+            throw new RejectedExecutionException("Training queue is full");
+        }
+        return job;
+    }
+
+    //getJob(long id): Этот метод возвращает задание по номеру или null, если такого задания нет или оно уже забыто.
+    public TrainingJob getJob(long id) {
+        return jobs.get(id);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void run(TrainingJob job, TrainingData data) {
+        job.started();
+        TrainingListener listener = stats -> {
+            job.epochFinished(stats);
+            if (data.isPublishSnapshots() && publishEveryEpochs > 0 && stats.getEpoch() % publishEveryEpochs == 0
+                    && stats.getEpoch() < job.getEpochs()) {
+                publish(job);
+            }
+        };
+        network.addTrainingListener(listener);
+        try {
+            network.train(data.toDataSet(), data.getEpochs(), data.getBatchSize());
+            publish(job);
+            job.succeeded();
+            logger.info("Training job " + job.getId() + " finished after " + job.getEpochsCompleted() + " epochs");
+        } catch (Throwable e) {
+            // Ошибка (например, OutOfMemoryError) тоже завершает задание, иначе оно навсегда осталось бы RUNNING.
+            logger.error("Training job " + job.getId() + " failed", e);
+            job.failed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            network.removeTrainingListener(listener);
+            retire(job);
+        }
+    }
+
+    private void publish(TrainingJob job) {
+        publisher.accept(network.newInferenceSession());
+        job.snapshotPublished();
+    }
+
+    private void retire(TrainingJob job) {
+        synchronized (finished) {
+            finished.addLast(job.getId());
+            while (finished.size() > MAX_FINISHED_JOBS) {
+                jobs.remove(finished.removeFirst());
+            }
+        }
+    }
+}
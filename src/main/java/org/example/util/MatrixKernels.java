@@ -0,0 +1,175 @@
+package org.example.util;
+
+/*
+ * Класс MatrixKernels содержит ядра умножения матриц, которые используются при обучении мини-пакетами.
+ * Все матрицы хранятся построчно (row-major) в одномерных массивах double[].
+ *
+ * Ядра разбивают вычисление на блоки, чтобы строки обеих матриц оставались в кэше, пока они нужны.
+ * При этом каждый элемент результата накапливается в том же порядке, что и в простом цикле,
+ * поэтому результат побитово совпадает с поэлементным (по одному примеру) вычислением.
+ * Для снимков сети в одинарной точности (Precision.FLOAT) и квантованных снимков (Precision.INT8) есть варианты multiply
+ * для float[] и для int8 с накоплением в int32.
+ * */
+public final class MatrixKernels {
+
+    private static final int BLOCK_ROWS = 32;
+    private static final int BLOCK_INNER = 256;
+    private static final VectorKernels VECTOR_KERNELS = selectVectorKernels();
+
+    private MatrixKernels() {
+    }
+
+    // multiplyTransposed: c[m x n] += a[m x k] * b[n x k]^T.
+    // Используется при прямом проходе: строки a - входы примеров, строки b - веса нейронов.
+    // Внутренний цикл - скалярное произведение двух непрерывных строк.
+    public static void multiplyTransposed(double[] a, double[] b, double[] c, int m, int n, int k) {
+        for (int k0 = 0; k0 < k; k0 += BLOCK_INNER) {
+            int k1 = Math.min(k0 + BLOCK_INNER, k);
+            for (int i0 = 0; i0 < m; i0 += BLOCK_ROWS) {
+                int i1 = Math.min(i0 + BLOCK_ROWS, m);
+                for (int j0 = 0; j0 < n; j0 += BLOCK_ROWS) {
+                    int j1 = Math.min(j0 + BLOCK_ROWS, n);
+                    for (int i = i0; i < i1; i++) {
+                        int aRow = i * k;
+                        int cRow = i * n;
+                        for (int j = j0; j < j1; j++) {
+                            int bRow = j * k;
+                            double sum = c[cRow + j];
+                            for (int p = k0; p < k1; p++) {
+                                sum += a[aRow + p] * b[bRow + p];
+                            }
+                            c[cRow + j] = sum;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // multiply: c[m x n] += a[m x k] * b[k x n].
+    // Используется при обратном проходе для переноса градиентов на предыдущий слой:
+    // строки a - градиенты примеров, b - матрица весов следующего слоя.
+    public static void multiply(double[] a, double[] b, double[] c, int m, int n, int k) {
+        for (int j0 = 0; j0 < n; j0 += BLOCK_INNER) {
+            int j1 = Math.min(j0 + BLOCK_INNER, n);
+            for (int i = 0; i < m; i++) {
+                int aRow = i * k;
+                int cRow = i * n;
+                for (int p = 0; p < k; p++) {
+                    double value = a[aRow + p];
+                    int bRow = p * n;
+                    for (int j = j0; j < j1; j++) {
+                        c[cRow + j] += value * b[bRow + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // multiplyTransposedLeft: c[m x n] += a[k x m]^T * b[k x n].
+    // Используется для накопления изменений весов по пакету:
+    // строки a - градиенты примеров, строки b - входы слоя, результат имеет форму матрицы весов.
+    public static void multiplyTransposedLeft(double[] a, double[] b, double[] c, int m, int n, int k) {
+        for (int i0 = 0; i0 < m; i0 += BLOCK_ROWS) {
+            int i1 = Math.min(i0 + BLOCK_ROWS, m);
+            for (int p = 0; p < k; p++) {
+                int aRow = p * m;
+                int bRow = p * n;
+                for (int i = i0; i < i1; i++) {
+                    double value = a[aRow + i];
+                    int cRow = i * n;
+                    for (int j = 0; j < n; j++) {
+                        c[cRow + j] += value * b[bRow + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // multiply: c[m x n] += a[m x k] * b[k x n] для float[] (прямой проход в одинарной точности).
+    // Выполняется векторным ядром VectorMatrixKernels, если оно выбрано при запуске, иначе - скалярным циклом.
+    // Оба варианта накапливают каждый элемент c в одном и том же порядке (по возрастанию p), поэтому их результаты совпадают.
+    public static void multiply(float[] a, float[] b, float[] c, int m, int n, int k) {
+        if (VECTOR_KERNELS != null) {
+            VECTOR_KERNELS.multiply(a, b, c, m, n, k);
+        } else {
+            multiplyScalar(a, b, c, m, n, k);
+        }
+    }
+
+    // multiply: c[m x n] += a[m x k] * b[k x n] для int8 (прямой проход квантованного снимка, Precision.INT8).
+    // Произведения накапливаются в int32 и не переполняются при k < 2^31 / 127^2 (около 133 000).
+    public static void multiply(byte[] a, byte[] b, int[] c, int m, int n, int k) {
+        if (VECTOR_KERNELS != null) {
+            VECTOR_KERNELS.multiply(a, b, c, m, n, k);
+        } else {
+            multiplyScalar(a, b, c, m, n, k);
+        }
+    }
+
+    // multiplyScalar: Это скалярный вариант multiply для float[].
+    // Блок b из BLOCK_ROWS строк и BLOCK_INNER столбцов остается в кэше, пока по нему проходят все строки a.
+    static void multiplyScalar(float[] a, float[] b, float[] c, int m, int n, int k) {
+        for (int j0 = 0; j0 < n; j0 += BLOCK_INNER) {
+            int j1 = Math.min(j0 + BLOCK_INNER, n);
+            for (int p0 = 0; p0 < k; p0 += BLOCK_ROWS) {
+                int p1 = Math.min(p0 + BLOCK_ROWS, k);
+                for (int i = 0; i < m; i++) {
+                    int aRow = i * k;
+                    int cRow = i * n;
+                    for (int p = p0; p < p1; p++) {
+                        float value = a[aRow + p];
+                        int bRow = p * n;
+                        for (int j = j0; j < j1; j++) {
+                            c[cRow + j] += value * b[bRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // multiplyScalar: Это скалярный вариант multiply для int8 с тем же разбиением на блоки.
+    static void multiplyScalar(byte[] a, byte[] b, int[] c, int m, int n, int k) {
+        for (int j0 = 0; j0 < n; j0 += BLOCK_INNER) {
+            int j1 = Math.min(j0 + BLOCK_INNER, n);
+            for (int p0 = 0; p0 < k; p0 += BLOCK_ROWS) {
+                int p1 = Math.min(p0 + BLOCK_ROWS, k);
+                for (int i = 0; i < m; i++) {
+                    int aRow = i * k;
+                    int cRow = i * n;
+                    for (int p = p0; p < p1; p++) {
+                        int value = a[aRow + p];
+                        int bRow = p * n;
+                        for (int j = j0; j < j1; j++) {
+                            c[cRow + j] += value * b[bRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // selectVectorKernels: Этот метод выбирает векторные ядра так же, как ActivationKernels:
+    // они используются, если модуль jdk.incubator.vector подключен и свойство -Dneuron.matrix.vector не равно false.
+    // Иначе возвращается null, и используются скалярные циклы.
+    private static VectorKernels selectVectorKernels() {
+        boolean vector = Boolean.parseBoolean(System.getProperty("neuron.matrix.vector", "true"));
+        if (vector && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (VectorKernels) Class.forName("org.example.util.VectorMatrixKernels")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    interface VectorKernels {
+        void multiply(float[] a, float[] b, float[] c, int m, int n, int k);
+
+        void multiply(byte[] a, byte[] b, int[] c, int m, int n, int k);
+    }
+}
@@ -1,14 +1,39 @@
 package org.example.util;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
 public class RandomGenerator {
 
     //  Этот метод принимает два целочисленных параметра: min и max,
     //  и возвращает случайное число с плавающей точкой между min и max.
     public static double random(int min, int max) {
-        //Метод Math.random() генерирует случайное число с плавающей точкой между 0.0 и 1.0.
+        // ThreadLocalRandom.current() генерирует случайное число с плавающей точкой между 0.0 и 1.0.
+        // В отличие от Math.random(), у каждого потока свой генератор, поэтому потоки не борются за общее состояние.
         // Умножение этого числа на (max - min) дает случайное число в диапазоне от 0 до (max - min).
         // Добавление min к этому числу смещает диапазон к [min, max).
         // Обратите внимание, что max не включается в этот диапазон.
-        return min + (max - min) * Math.random();
+        // Для повторяемых весов используется WeightInit с SplittableRandom.
+        return min + (max - min) * ThreadLocalRandom.current().nextDouble();
+    }
+
+    //identity(int n): Этот метод возвращает перестановку 0, 1, ..., n - 1.
+    public static int[] identity(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    //shuffle(int[] order, SplittableRandom random): Этот метод перемешивает массив индексов на месте
+    // алгоритмом Фишера-Йетса. Он ничего не выделяет и при одинаковом состоянии random дает одинаковый результат.
+    public static void shuffle(int[] order, SplittableRandom random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
     }
 }
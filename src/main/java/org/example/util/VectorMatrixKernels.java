@@ -0,0 +1,177 @@
+package org.example.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * VectorMatrixKernels - это SIMD-ядра умножения матриц float[] и int8 на jdk.incubator.vector.
+ * Класс загружается только через MatrixKernels, когда модуль jdk.incubator.vector подключен.
+ *
+ * multiply(a, b, c, m, n, k): c[m x n] += a[m x k] * b[k x n].
+ * Для каждой строки a четыре вектора строки c держатся в регистрах, пока к ним прибавляются
+ * строки b, умноженные на a[i][p], по всем p. Поэтому c читается и записывается один раз на строку,
+ * а каждый элемент c накапливается в том же порядке, что и в MatrixKernels.multiplyScalar.
+ *
+ * multiply(byte[] a, byte[] b, int[] c, m, n, k): Это то же умножение для int8 с накоплением в int32.
+ * Байты строки b загружаются вектором той же длины в элементах, что и IntVector, и расширяются до int (B2I).
+ * Целочисленная сумма не зависит от порядка сложения, поэтому результат совпадает со скалярным.
+ * */
+final class VectorMatrixKernels implements MatrixKernels.VectorKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int PANEL = 4 * LANES;
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int INT_LANES = INT_SPECIES.length();
+    private static final VectorSpecies<Byte> BYTE_SPECIES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(INT_LANES * Byte.SIZE));
+    private static final int INT_PANEL = 4 * INT_LANES;
+
+    @Override
+    public void multiply(float[] a, float[] b, float[] c, int m, int n, int k) {
+        int j0 = 0;
+        for (; j0 + PANEL <= n; j0 += PANEL) {
+            for (int i = 0; i < m; i++) {
+                int aRow = i * k;
+                int cRow = i * n + j0;
+                FloatVector c0 = FloatVector.fromArray(SPECIES, c, cRow);
+                FloatVector c1 = FloatVector.fromArray(SPECIES, c, cRow + LANES);
+                FloatVector c2 = FloatVector.fromArray(SPECIES, c, cRow + 2 * LANES);
+                FloatVector c3 = FloatVector.fromArray(SPECIES, c, cRow + 3 * LANES);
+                for (int p = 0; p < k; p++) {
+                    FloatVector value = FloatVector.broadcast(SPECIES, a[aRow + p]);
+                    int bRow = p * n + j0;
+                    c0 = c0.add(FloatVector.fromArray(SPECIES, b, bRow).mul(value));
+                    c1 = c1.add(FloatVector.fromArray(SPECIES, b, bRow + LANES).mul(value));
+                    c2 = c2.add(FloatVector.fromArray(SPECIES, b, bRow + 2 * LANES).mul(value));
+                    c3 = c3.add(FloatVector.fromArray(SPECIES, b, bRow + 3 * LANES).mul(value));
+                }
+                c0.intoArray(c, cRow);
+                c1.intoArray(c, cRow + LANES);
+                c2.intoArray(c, cRow + 2 * LANES);
+                c3.intoArray(c, cRow + 3 * LANES);
+            }
+        }
+        for (; j0 + LANES <= n; j0 += LANES) {
+            for (int i = 0; i < m; i++) {
+                int aRow = i * k;
+                int cRow = i * n + j0;
+                FloatVector sum = FloatVector.fromArray(SPECIES, c, cRow);
+                for (int p = 0; p < k; p++) {
+                    sum = sum.add(FloatVector.fromArray(SPECIES, b, p * n + j0).mul(a[aRow + p]));
+                }
+                sum.intoArray(c, cRow);
+            }
+        }
+        // Оставшиеся столбцы (меньше одного вектора) считаются скалярно: маскированные операции здесь медленнее.
+        for (int i = 0; i < m; i++) {
+            int aRow = i * k;
+            int cRow = i * n;
+            for (int j = j0; j < n; j++) {
+                float sum = c[cRow + j];
+                for (int p = 0; p < k; p++) {
+                    sum += a[aRow + p] * b[p * n + j];
+                }
+                c[cRow + j] = sum;
+            }
+        }
+    }
+
+    @Override
+    public void multiply(byte[] a, byte[] b, int[] c, int m, int n, int k) {
+        int j0 = 0;
+        for (; j0 + INT_PANEL <= n; j0 += INT_PANEL) {
+            int i = 0;
+            // Две строки a за проход: каждый расширенный вектор b используется дважды.
+            for (; i + 1 < m; i += 2) {
+                int aRow = i * k;
+                int cRow = i * n + j0;
+                int cNext = cRow + n;
+                IntVector c0 = IntVector.fromArray(INT_SPECIES, c, cRow);
+                IntVector c1 = IntVector.fromArray(INT_SPECIES, c, cRow + INT_LANES);
+                IntVector c2 = IntVector.fromArray(INT_SPECIES, c, cRow + 2 * INT_LANES);
+                IntVector c3 = IntVector.fromArray(INT_SPECIES, c, cRow + 3 * INT_LANES);
+                IntVector d0 = IntVector.fromArray(INT_SPECIES, c, cNext);
+                IntVector d1 = IntVector.fromArray(INT_SPECIES, c, cNext + INT_LANES);
+                IntVector d2 = IntVector.fromArray(INT_SPECIES, c, cNext + 2 * INT_LANES);
+                IntVector d3 = IntVector.fromArray(INT_SPECIES, c, cNext + 3 * INT_LANES);
+                for (int p = 0; p < k; p++) {
+                    int value = a[aRow + p];
+                    int nextValue = a[aRow + k + p];
+                    int bRow = p * n + j0;
+                    IntVector b0 = widen(b, bRow);
+                    IntVector b1 = widen(b, bRow + INT_LANES);
+                    IntVector b2 = widen(b, bRow + 2 * INT_LANES);
+                    IntVector b3 = widen(b, bRow + 3 * INT_LANES);
+                    c0 = c0.add(b0.mul(value));
+                    c1 = c1.add(b1.mul(value));
+                    c2 = c2.add(b2.mul(value));
+                    c3 = c3.add(b3.mul(value));
+                    d0 = d0.add(b0.mul(nextValue));
+                    d1 = d1.add(b1.mul(nextValue));
+                    d2 = d2.add(b2.mul(nextValue));
+                    d3 = d3.add(b3.mul(nextValue));
+                }
+                c0.intoArray(c, cRow);
+                c1.intoArray(c, cRow + INT_LANES);
+                c2.intoArray(c, cRow + 2 * INT_LANES);
+                c3.intoArray(c, cRow + 3 * INT_LANES);
+                d0.intoArray(c, cNext);
+                d1.intoArray(c, cNext + INT_LANES);
+                d2.intoArray(c, cNext + 2 * INT_LANES);
+                d3.intoArray(c, cNext + 3 * INT_LANES);
+            }
+            for (; i < m; i++) {
+                int aRow = i * k;
+                int cRow = i * n + j0;
+                IntVector c0 = IntVector.fromArray(INT_SPECIES, c, cRow);
+                IntVector c1 = IntVector.fromArray(INT_SPECIES, c, cRow + INT_LANES);
+                IntVector c2 = IntVector.fromArray(INT_SPECIES, c, cRow + 2 * INT_LANES);
+                IntVector c3 = IntVector.fromArray(INT_SPECIES, c, cRow + 3 * INT_LANES);
+                for (int p = 0; p < k; p++) {
+                    int value = a[aRow + p];
+                    int bRow = p * n + j0;
+                    c0 = c0.add(widen(b, bRow).mul(value));
+                    c1 = c1.add(widen(b, bRow + INT_LANES).mul(value));
+                    c2 = c2.add(widen(b, bRow + 2 * INT_LANES).mul(value));
+                    c3 = c3.add(widen(b, bRow + 3 * INT_LANES).mul(value));
+                }
+                c0.intoArray(c, cRow);
+                c1.intoArray(c, cRow + INT_LANES);
+                c2.intoArray(c, cRow + 2 * INT_LANES);
+                c3.intoArray(c, cRow + 3 * INT_LANES);
+            }
+        }
+        for (; j0 + INT_LANES <= n; j0 += INT_LANES) {
+            for (int i = 0; i < m; i++) {
+                int aRow = i * k;
+                int cRow = i * n + j0;
+                IntVector sum = IntVector.fromArray(INT_SPECIES, c, cRow);
+                for (int p = 0; p < k; p++) {
+                    sum = sum.add(widen(b, p * n + j0).mul(a[aRow + p]));
+                }
+                sum.intoArray(c, cRow);
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            int aRow = i * k;
+            int cRow = i * n;
+            for (int j = j0; j < n; j++) {
+                int sum = c[cRow + j];
+                for (int p = 0; p < k; p++) {
+                    sum += a[aRow + p] * b[p * n + j];
+                }
+                c[cRow + j] = sum;
+            }
+        }
+    }
+
+    // widen: Этот метод загружает INT_LANES байтов начиная с offset и расширяет их до int.
+    private static IntVector widen(byte[] b, int offset) {
+        return (IntVector) ByteVector.fromArray(BYTE_SPECIES, b, offset).convertShape(VectorOperators.B2I, INT_SPECIES, 0);
+    }
+}